@@ -4,6 +4,7 @@ import de.komoot.photon.DatabaseProperties;
 import de.komoot.photon.Importer;
 import de.komoot.photon.Updater;
 import de.komoot.photon.searcher.StructuredSearchHandler;
+import de.komoot.photon.searcher.ReloadableReverseHandler;
 import de.komoot.photon.searcher.ReverseHandler;
 import de.komoot.photon.searcher.SearchHandler;
 import de.komoot.photon.elasticsearch.*;
@@ -69,6 +70,16 @@ public class Server {
         }
     }
 
+    /**
+     * Set the maximum number of concurrent connections to the database.
+     *
+     * The transport client multiplexes all requests over its own channels,
+     * so there is nothing to configure here.
+     */
+    public Server setMaxConnections(int maxConnections) {
+        return this;
+    }
+
     public Server start(String clusterName, String[] transportAddresses) {
         Settings.Builder sBuilder = Settings.builder();
         sBuilder.put("path.home", this.esDirectory.toString());
@@ -285,7 +296,28 @@ public class Server {
     }
 
     public SearchHandler createSearchHandler(String[] languages, int queryTimeoutSec) {
-        return new ElasticsearchSearchHandler(esClient, languages, queryTimeoutSec);
+        return createSearchHandler(languages, queryTimeoutSec, false);
+    }
+
+    public SearchHandler createSearchHandler(String[] languages, int queryTimeoutSec, boolean parallelLenient) {
+        return new ElasticsearchSearchHandler(esClient, languages, queryTimeoutSec, parallelLenient);
+    }
+
+    public SearchHandler createSearchHandler(String[] languages, int queryTimeoutSec, boolean parallelLenient,
+                                             boolean useSearchTemplates) {
+        if (useSearchTemplates) {
+            throw new UnsupportedOperationException("Search templates are not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
+        }
+        return createSearchHandler(languages, queryTimeoutSec, parallelLenient);
+    }
+
+    public SearchHandler createPrefixSearchHandler(SearchHandler handler, String[] languages, int indexSize) {
+        throw new UnsupportedOperationException("The prefix index is not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
+    }
+
+    public ReloadableReverseHandler createIndexedReverseHandler(ReverseHandler handler, int queryTimeoutSec,
+                                                                int reloadIntervalSec) {
+        throw new UnsupportedOperationException("The reverse index is not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
     }
 
     public StructuredSearchHandler createStructuredSearchHandler(String[] languages, int queryTimeoutSec) {
@@ -1,6 +1,7 @@
 package de.komoot.photon.elasticsearch;
 
 import org.locationtech.jts.geom.Point;
+import de.komoot.photon.metrics.RequestTimings;
 import de.komoot.photon.query.ReverseRequest;
 import de.komoot.photon.searcher.PhotonResult;
 import de.komoot.photon.searcher.ReverseHandler;
@@ -33,8 +34,12 @@ public class ElasticsearchReverseHandler implements ReverseHandler {
     @Override
     public List<PhotonResult> reverse(ReverseRequest photonRequest) {
         ReverseQueryBuilder queryBuilder = buildQuery(photonRequest);
+        final long sendStart = System.nanoTime();
         SearchResponse results = search(queryBuilder.buildQuery(), photonRequest.getLimit(), photonRequest.getLocation(),
                 photonRequest.getLocationDistanceSort());
+        photonRequest.getTimings().record(RequestTimings.BACKEND, sendStart);
+        photonRequest.getTimings().recordBackend(RequestTimings.BACKEND, results.getTookInMillis(),
+                results.getTotalShards(), results.getSuccessfulShards(), results.getFailedShards());
 
         List<PhotonResult> ret = new ArrayList<>((int) results.getHits().getTotalHits());
         for (SearchHit hit : results.getHits()) {
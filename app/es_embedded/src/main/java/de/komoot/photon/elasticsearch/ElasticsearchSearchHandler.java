@@ -1,8 +1,12 @@
 package de.komoot.photon.elasticsearch;
 
+import de.komoot.photon.metrics.RequestTimings;
+import de.komoot.photon.metrics.SearchMetrics;
 import de.komoot.photon.query.PhotonRequest;
 import de.komoot.photon.searcher.PhotonResult;
 import de.komoot.photon.searcher.SearchHandler;
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
@@ -19,27 +23,52 @@ import java.util.List;
 public class ElasticsearchSearchHandler implements SearchHandler {
     private final Client client;
     private final String[] supportedLanguages;
-    private boolean lastLenient = false;
     private TimeValue queryTimeout;
+    private final boolean parallelLenient;
 
-    public ElasticsearchSearchHandler(Client client, String[] languages, int queryTimeoutSec) {
+    public ElasticsearchSearchHandler(Client client, String[] languages, int queryTimeoutSec, boolean parallelLenient) {
         this.client = client;
         this.supportedLanguages = languages;
         queryTimeout = TimeValue.timeValueSeconds(queryTimeoutSec);
+        this.parallelLenient = parallelLenient;
     }
 
     @Override
     public List<PhotonResult> search(PhotonRequest photonRequest) {
-        PhotonQueryBuilder queryBuilder = buildQuery(photonRequest, false);
-
         // for the case of deduplication we need a bit more results, #300
         int limit = photonRequest.getLimit();
         int extLimit = limit > 1 ? (int) Math.round(photonRequest.getLimit() * 1.5) : 1;
 
-        SearchResponse results = sendQuery(queryBuilder.buildQuery(), extLimit);
+        ListenableActionFuture<SearchResponse> lenientResults = null;
+        long lenientStart = 0;
+        if (parallelLenient) {
+            final SearchRequestBuilder lenientQuery = prepareQuery(buildQuery(photonRequest, true).buildQuery(), extLimit);
+            // The lenient query runs from here on, not only once the strict one returned.
+            lenientStart = System.nanoTime();
+            lenientResults = lenientQuery.execute();
+        }
+
+        final RequestTimings timings = photonRequest.getTimings();
+        SearchMetrics.FORWARD_SEARCHES.inc();
+        long stageStart = System.nanoTime();
+        SearchResponse results = sendQuery(buildQuery(photonRequest, false).buildQuery(), extLimit);
+        timings.record(RequestTimings.BACKEND, stageStart);
+        recordBackendStats(timings, RequestTimings.BACKEND, results);
 
         if (results.getHits().getTotalHits() == 0) {
-            results = sendQuery(buildQuery(photonRequest, true).buildQuery(), extLimit);
+            SearchMetrics.LENIENT_FALLBACKS.inc();
+            timings.markLenientUsed();
+            if (lenientResults == null) {
+                stageStart = System.nanoTime();
+                results = sendQuery(buildQuery(photonRequest, true).buildQuery(), extLimit);
+                timings.record(RequestTimings.BACKEND_LENIENT, stageStart);
+            } else {
+                results = lenientResults.actionGet();
+                timings.record(RequestTimings.BACKEND_LENIENT, lenientStart);
+            }
+            recordBackendStats(timings, RequestTimings.BACKEND_LENIENT, results);
+        } else if (lenientResults != null) {
+            SearchMetrics.LENIENT_DISCARDED.inc();
         }
 
         List<PhotonResult> ret = new ArrayList<>((int) results.getHits().getTotalHits());
@@ -50,12 +79,15 @@ public class ElasticsearchSearchHandler implements SearchHandler {
         return ret;
     }
 
+    /**
+     * Dump the query for the given request. This is the lenient query when
+     * the results of the request were taken from it.
+     */
     public String dumpQuery(PhotonRequest photonRequest) {
-        return buildQuery(photonRequest, lastLenient).buildQuery().toString();
+        return buildQuery(photonRequest, photonRequest.getTimings().isLenientUsed()).buildQuery().toString();
     }
 
-   public PhotonQueryBuilder buildQuery(PhotonRequest photonRequest, boolean lenient) {
-       lastLenient = lenient;
+    public PhotonQueryBuilder buildQuery(PhotonRequest photonRequest, boolean lenient) {
         return PhotonQueryBuilder.
                 builder(photonRequest.getQuery(), photonRequest.getLanguage(), supportedLanguages, lenient).
                 withOsmTagFilters(photonRequest.getOsmTagFilters()).
@@ -64,14 +96,20 @@ public class ElasticsearchSearchHandler implements SearchHandler {
                 withBoundingBox(photonRequest.getBbox());
     }
 
-    private SearchResponse sendQuery(QueryBuilder queryBuilder, Integer limit) {
+    private SearchRequestBuilder prepareQuery(QueryBuilder queryBuilder, Integer limit) {
         return client.prepareSearch(PhotonIndex.NAME).
                 setSearchType(SearchType.QUERY_THEN_FETCH).
                 setQuery(queryBuilder).
                 setSize(limit).
-                setTimeout(queryTimeout).
-                execute().
-                actionGet();
+                setTimeout(queryTimeout);
+    }
+
+    private static void recordBackendStats(RequestTimings timings, String stage, SearchResponse response) {
+        timings.recordBackend(stage, response.getTookInMillis(),
+                response.getTotalShards(), response.getSuccessfulShards(), response.getFailedShards());
+    }
 
+    private SearchResponse sendQuery(QueryBuilder queryBuilder, Integer limit) {
+        return prepareQuery(queryBuilder, limit).execute().actionGet();
     }
 }
@@ -1,7 +1,9 @@
 package de.komoot.photon.elasticsearch;
 
 import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.metrics.ImportMetrics;
 import de.komoot.photon.Utils;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.client.Client;
@@ -48,10 +50,18 @@ public class Importer implements de.komoot.photon.Importer {
     private void saveDocuments() {
         if (this.documentCount < 1) return;
 
+        final long startNanos = System.nanoTime();
         BulkResponse bulkResponse = bulkRequest.execute().actionGet();
+        int failures = 0;
         if (bulkResponse.hasFailures()) {
             LOGGER.error("Error during bulk import: {}", bulkResponse.buildFailureMessage());
+            for (BulkItemResponse item : bulkResponse) {
+                if (item.isFailed()) {
+                    ++failures;
+                }
+            }
         }
+        ImportMetrics.bulkFinished(ImportMetrics.IMPORT, startNanos, failures);
         this.bulkRequest = this.esClient.prepareBulk();
     }
 
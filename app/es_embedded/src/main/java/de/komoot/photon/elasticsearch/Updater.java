@@ -1,7 +1,9 @@
 package de.komoot.photon.elasticsearch;
 
 import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.metrics.ImportMetrics;
 import de.komoot.photon.Utils;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.client.Client;
@@ -62,10 +64,18 @@ public class Updater implements de.komoot.photon.Updater {
             LOGGER.warn("Update empty");
             return;
         }
+        final long startNanos = System.nanoTime();
         BulkResponse bulkResponse = bulkRequest.execute().actionGet();
+        int failures = 0;
         if (bulkResponse.hasFailures()) {
             LOGGER.error("Error while bulk update: {}", bulkResponse.buildFailureMessage());
+            for (BulkItemResponse item : bulkResponse) {
+                if (item.isFailed()) {
+                    ++failures;
+                }
+            }
         }
+        ImportMetrics.bulkFinished(ImportMetrics.UPDATE, startNanos, failures);
         this.bulkRequest = this.esClient.prepareBulk();
     }
 }
@@ -3,12 +3,16 @@ package de.komoot.photon;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import de.komoot.photon.opensearch.*;
+import de.komoot.photon.searcher.ReloadableReverseHandler;
 import de.komoot.photon.searcher.ReverseHandler;
 import de.komoot.photon.searcher.SearchHandler;
 import de.komoot.photon.searcher.StructuredSearchHandler;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
 import org.apache.hc.core5.http.HttpHost;
 import org.codelibs.opensearch.runner.OpenSearchRunner;
 import org.opensearch.client.json.jackson.JacksonJsonpMapper;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.HealthStatus;
 import org.opensearch.client.transport.httpclient5.ApacheHttpClient5TransportBuilder;
@@ -22,13 +26,27 @@ public class Server {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(Server.class);
 
     protected OpenSearchClient client;
+    protected OpenSearchAsyncClient asyncClient;
     private OpenSearchRunner runner = null;
     final protected String dataDirectory;
+    private int maxConnections = 0;
 
     public Server(String mainDirectory) {
         dataDirectory = new File(mainDirectory, "photon_data").getAbsolutePath();
     }
 
+    /**
+     * Set the maximum number of concurrent connections to the database.
+     *
+     * Must be called before the server is started. When not set or 0, the
+     * defaults of the HTTP client are used, which only allow a small number
+     * of requests in parallel.
+     */
+    public Server setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
     public Server start(String clusterName, String[] transportAddresses) {
         HttpHost[] hosts;
         if (transportAddresses.length == 0) {
@@ -49,12 +67,25 @@ public class Server {
         final var mapper = new JacksonJsonpMapper();
         mapper.objectMapper().registerModule(module);
 
-        final var transport = ApacheHttpClient5TransportBuilder
+        final var transportBuilder = ApacheHttpClient5TransportBuilder
                 .builder(hosts)
-                .setMapper(mapper)
-                .build();
+                .setMapper(mapper);
+
+        if (maxConnections > 0) {
+            // The connection manager carries the TLS setup, which therefore
+            // needs to be given again, here from the standard system properties.
+            transportBuilder.setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder
+                    .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                            .setMaxConnTotal(maxConnections)
+                            .setMaxConnPerRoute(maxConnections)
+                            .setTlsStrategy(ClientTlsStrategyBuilder.create().useSystemProperties().build())
+                            .build()));
+        }
+
+        final var transport = transportBuilder.build();
 
         client = new OpenSearchClient(transport);
+        asyncClient = new OpenSearchAsyncClient(transport);
 
         return this;
     }
@@ -170,7 +201,51 @@ public class Server {
     }
 
     public SearchHandler createSearchHandler(String[] languages, int queryTimeoutSec) {
-        return new OpenSearchSearchHandler(client, languages, queryTimeoutSec);
+        return createSearchHandler(languages, queryTimeoutSec, false);
+    }
+
+    public SearchHandler createSearchHandler(String[] languages, int queryTimeoutSec, boolean parallelLenient) {
+        return createSearchHandler(languages, queryTimeoutSec, parallelLenient, false);
+    }
+
+    /**
+     * Create a new search handler.
+     *
+     * @param useSearchTemplates When true, register the search query as stored templates
+     *                           in the database and only send the parameters with each query.
+     */
+    public SearchHandler createSearchHandler(String[] languages, int queryTimeoutSec, boolean parallelLenient,
+                                             boolean useSearchTemplates) {
+        return new OpenSearchSearchHandler(client, asyncClient, languages, queryTimeoutSec, parallelLenient,
+                useSearchTemplates);
+    }
+
+    /**
+     * Put a handler in front of the given search handler, which answers
+     * single-word queries from an in-memory index of the most important places.
+     *
+     * @param handler   Handler for all queries that cannot be answered from the index.
+     * @param indexSize Number of places to keep in the index.
+     */
+    public SearchHandler createPrefixSearchHandler(SearchHandler handler, String[] languages, int indexSize) throws IOException {
+        return new PrefixSearchHandler(handler, PrefixIndex.load(client, languages, indexSize));
+    }
+
+    /**
+     * Put a handler in front of the given reverse handler, which finds the
+     * closest places in an in-memory index of the positions of all places.
+     *
+     * @param handler           Handler for all requests that cannot be answered with the index.
+     * @param reloadIntervalSec When larger than 0, rebuild the index at this interval in seconds.
+     */
+    public ReloadableReverseHandler createIndexedReverseHandler(ReverseHandler handler, int queryTimeoutSec,
+                                                                int reloadIntervalSec) throws IOException {
+        final IndexedReverseHandler indexed = new IndexedReverseHandler(handler, client, asyncClient,
+                ReverseIndex.load(client), queryTimeoutSec);
+        if (reloadIntervalSec > 0) {
+            indexed.scheduleReload(reloadIntervalSec);
+        }
+        return indexed;
     }
 
     public StructuredSearchHandler createStructuredSearchHandler(String[] languages, int queryTimeoutSec) {
@@ -178,7 +253,7 @@ public class Server {
     }
 
     public ReverseHandler createReverseHandler(int queryTimeoutSec) {
-        return new OpenSearchReverseHandler(client, queryTimeoutSec);
+        return new OpenSearchReverseHandler(client, asyncClient, queryTimeoutSec);
     }
 
     private void registerPhotonDocSerializer(String[] languages, String[] extraTags) {
@@ -1,6 +1,7 @@
 package de.komoot.photon.opensearch;
 
 import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.metrics.ImportMetrics;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.Time;
 import org.opensearch.client.opensearch.core.BulkRequest;
@@ -50,14 +51,19 @@ public class Importer implements de.komoot.photon.Importer {
     }
 
     private void saveDocuments() {
+        final long startNanos = System.nanoTime();
         try {
             var response = client.bulk(bulkRequest.build());
 
+            int failures = 0;
             if (response.errors()) {
                 LOGGER.error("Error during bulk import.");
+                failures = (int) response.items().stream().filter(item -> item.error() != null).count();
             }
+            ImportMetrics.bulkFinished(ImportMetrics.IMPORT, startNanos, failures);
         } catch (IOException e) {
             LOGGER.error("Error during bulk import", e);
+            ImportMetrics.bulkFinished(ImportMetrics.IMPORT, startNanos, todoDocuments);
         }
 
         bulkRequest = new BulkRequest.Builder();
@@ -0,0 +1,298 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.metrics.RequestTimings;
+import de.komoot.photon.metrics.SearchMetrics;
+import de.komoot.photon.query.ReverseRequest;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.ReloadableReverseHandler;
+import de.komoot.photon.searcher.ReverseHandler;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.core.MsearchRequest;
+import org.opensearch.client.opensearch.core.SearchRequest;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reverse handler that finds the closest places in a {@link ReverseIndex}.
+ *
+ * The documents of the places found are then fetched from the database by
+ * their IDs, which is much cheaper than a search sorted by distance. Requests
+ * with filters that the index does not know about and requests with a large
+ * radius are passed on to the database. When the index is out of date, so that
+ * some of the documents no longer exist, the request is passed on as well.
+ *
+ * The index is rebuilt in the background, see {@link #reload()}. Places
+ * added to the database in the meantime are only found once the new index
+ * is in use.
+ */
+public class IndexedReverseHandler implements ReloadableReverseHandler {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(IndexedReverseHandler.class);
+
+    private final ReverseHandler handler;
+    private final OpenSearchClient client;
+    private final OpenSearchAsyncClient asyncClient;
+    private final String queryTimeout;
+    private final ScheduledExecutorService reloadExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "reverse-index-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<CompletableFuture<Void>> pendingReload = new AtomicReference<>();
+    private volatile ReverseIndex index;
+
+    public IndexedReverseHandler(ReverseHandler handler, OpenSearchClient client, OpenSearchAsyncClient asyncClient,
+                                 ReverseIndex index, int queryTimeoutSec) {
+        this.handler = handler;
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.index = index;
+        this.queryTimeout = queryTimeoutSec + "s";
+    }
+
+    /**
+     * Rebuild the index at a fixed interval, for databases that are updated
+     * by another instance of photon.
+     *
+     * @param intervalSec Time in seconds between the end of one reload and the start of the next one.
+     */
+    public void scheduleReload(int intervalSec) {
+        reloadExecutor.scheduleWithFixedDelay(this::loadIndex, intervalSec, intervalSec, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public List<PhotonResult> reverse(ReverseRequest request) {
+        final List<String> ids = lookup(request);
+        if (ids == null) {
+            return handler.reverse(request);
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final long sendStart = System.nanoTime();
+        final List<PhotonResult> results;
+        try {
+            results = orderResults(ids, client.search(makeFetchRequest(request, ids), OpenSearchResult.class));
+        } catch (IOException e) {
+            throw new RuntimeException("IO error during search", e);
+        } finally {
+            request.getTimings().record(RequestTimings.BACKEND, sendStart);
+        }
+
+        return results == null ? handler.reverse(request) : countAnswer(results);
+    }
+
+    @Override
+    public CompletableFuture<List<PhotonResult>> reverseAsync(ReverseRequest request) {
+        final List<String> ids = lookup(request);
+        if (ids == null) {
+            return handler.reverseAsync(request);
+        }
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        final long sendStart = System.nanoTime();
+        try {
+            return asyncClient.search(makeFetchRequest(request, ids), OpenSearchResult.class)
+                    .whenComplete((response, error) -> request.getTimings().record(RequestTimings.BACKEND, sendStart))
+                    .thenCompose(response -> {
+                        final List<PhotonResult> results = orderResults(ids, response);
+                        return results == null
+                                ? handler.reverseAsync(request)
+                                : CompletableFuture.completedFuture(countAnswer(results));
+                    });
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("IO error during search", e));
+        }
+    }
+
+    @Override
+    public List<List<PhotonResult>> reverseBatch(List<ReverseRequest> requests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(requests.size());
+        final List<List<String>> fetchIds = new ArrayList<>();
+        final List<Integer> fetchPositions = new ArrayList<>();
+        final List<ReverseRequest> missingRequests = new ArrayList<>();
+        final List<Integer> missingPositions = new ArrayList<>();
+
+        for (ReverseRequest request : requests) {
+            final List<String> ids = lookup(request);
+            if (ids == null) {
+                missingRequests.add(request);
+                missingPositions.add(results.size());
+                results.add(null);
+            } else if (ids.isEmpty()) {
+                results.add(Collections.emptyList());
+            } else {
+                fetchIds.add(ids);
+                fetchPositions.add(results.size());
+                results.add(null);
+            }
+        }
+
+        if (!fetchIds.isEmpty()) {
+            final MsearchRequest msearch = MsearchRequest.of(m -> {
+                m.index(PhotonIndex.NAME);
+                for (int i = 0; i < fetchIds.size(); ++i) {
+                    final List<String> ids = fetchIds.get(i);
+                    final ReverseRequest request = requests.get(fetchPositions.get(i));
+                    m.searches(item -> item
+                            .header(h -> h)
+                            .body(b -> b
+                                    .query(q -> q.ids(iq -> iq.values(ids)))
+                                    .size(ids.size())
+                                    .source(ResultSource.forLanguage(request.getLanguage()))
+                                    .timeout(queryTimeout)));
+                }
+                return m;
+            });
+
+            try {
+                final var responses = client.msearch(msearch, OpenSearchResult.class).responses();
+                for (int i = 0; i < responses.size(); ++i) {
+                    final var item = responses.get(i);
+                    if (item.isFailure()) {
+                        throw new RuntimeException("Error during batch search: " + item.failure().error().reason());
+                    }
+                    final int position = fetchPositions.get(i);
+                    final List<PhotonResult> found = orderResults(fetchIds.get(i), item.result());
+                    if (found == null) {
+                        missingRequests.add(requests.get(position));
+                        missingPositions.add(position);
+                    } else {
+                        results.set(position, countAnswer(found));
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("IO error during batch search", e);
+            }
+        }
+
+        if (!missingRequests.isEmpty()) {
+            final List<List<PhotonResult>> fetched = handler.reverseBatch(missingRequests);
+            for (int i = 0; i < fetched.size(); ++i) {
+                results.set(missingPositions.get(i), fetched.get(i));
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public String dumpQuery(ReverseRequest request) {
+        return handler.dumpQuery(request);
+    }
+
+    /**
+     * Rebuild the index from the database in the background. Requests are
+     * answered from the old index until the new one is ready.
+     *
+     * Only one reload runs at a time. When a reload is requested while
+     * another one is running, a single further reload follows, so that it
+     * sees all changes made to the database up to the request. Requests
+     * arriving before that reload has started are merged into it.
+     *
+     * @return Future that completes when the reload has finished, also when it failed.
+     */
+    @Override
+    public CompletableFuture<Void> reload() {
+        final CompletableFuture<Void> reload = new CompletableFuture<>();
+        final CompletableFuture<Void> pending = pendingReload.compareAndExchange(null, reload);
+        if (pending != null) {
+            return pending;
+        }
+
+        reloadExecutor.execute(() -> {
+            pendingReload.set(null);
+            try {
+                loadIndex();
+            } finally {
+                reload.complete(null);
+            }
+        });
+
+        return reload;
+    }
+
+    private void loadIndex() {
+        try {
+            index = ReverseIndex.load(client);
+        } catch (Exception e) {
+            LOGGER.error("Reloading the reverse index failed, keeping the old index.", e);
+        }
+    }
+
+    /**
+     * Find the IDs of the closest places in the index.
+     *
+     * @return The IDs ordered by distance or null if the request cannot be answered from the index.
+     */
+    private List<String> lookup(ReverseRequest request) {
+        if (request.getDebug()
+                || !request.getLocationDistanceSort()
+                || request.getQueryStringFilter() != null
+                || !request.getOsmTagFilters().isEmpty()
+                || request.getRadius() > ReverseIndex.MAX_RADIUS_KM) {
+            return null;
+        }
+
+        final long lookupStart = System.nanoTime();
+        final List<String> ids = index.nearest(request.getLocation().getX(), request.getLocation().getY(),
+                request.getRadius(), request.getLimit(), request.getLayerFilters());
+        request.getTimings().record(RequestTimings.INDEX_LOOKUP, lookupStart);
+
+        return ids;
+    }
+
+    private SearchRequest makeFetchRequest(ReverseRequest request, List<String> ids) {
+        return SearchRequest.of(s -> s
+                .index(PhotonIndex.NAME)
+                .query(q -> q.ids(iq -> iq.values(ids)))
+                .size(ids.size())
+                .source(ResultSource.forLanguage(request.getLanguage()))
+                .timeout(queryTimeout));
+    }
+
+    /**
+     * Put the fetched documents into the order of the index.
+     *
+     * @return The ordered results or null if some of the documents are missing.
+     */
+    private static List<PhotonResult> orderResults(List<String> ids, SearchResponse<OpenSearchResult> response) {
+        final Map<String, PhotonResult> documents = new HashMap<>();
+        for (var hit : response.hits().hits()) {
+            if (hit.source() != null) {
+                documents.put(hit.id(), hit.source());
+            }
+        }
+
+        final List<PhotonResult> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            final PhotonResult result = documents.get(id);
+            if (result == null) {
+                return null;
+            }
+            results.add(result);
+        }
+
+        return results;
+    }
+
+    private static List<PhotonResult> countAnswer(List<PhotonResult> results) {
+        SearchMetrics.REVERSE_INDEX_ANSWERS.inc();
+        return results;
+    }
+}
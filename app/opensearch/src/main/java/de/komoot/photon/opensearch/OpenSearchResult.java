@@ -2,6 +2,7 @@ package de.komoot.photon.opensearch;
 
 import de.komoot.photon.searcher.PhotonResult;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class OpenSearchResult implements PhotonResult {
@@ -11,9 +12,10 @@ public class OpenSearchResult implements PhotonResult {
     private final double[] extent;
     private final double[] coordinates;
     private final Map<String, Object> infos;
-    private final Map<String, Map<String, String>> localeTags;
+    // Objects with text values, e.g. the names, as arrays of alternating keys and values.
+    private final Map<String, String[]> localeTags;
 
-    OpenSearchResult(double extent[], double[] coordinates, Map<String, Object> infos, Map<String, Map<String, String>> localeTags) {
+    OpenSearchResult(double extent[], double[] coordinates, Map<String, Object> infos, Map<String, String[]> localeTags) {
         this.extent = extent;
         this.coordinates = coordinates;
         this.infos = infos;
@@ -32,27 +34,47 @@ public class OpenSearchResult implements PhotonResult {
 
     @Override
     public String getLocalised(String key, String language) {
-        final var map = getMap(key);
-        if (map == null) return null;
+        final String[] fields = localeTags.get(key);
+        if (fields == null) return null;
 
-        if (map.get(language) != null) {
+        final String value = lookup(fields, language);
+        if (value != null) {
             // language specific field
-            return map.get(language);
+            return value;
         }
 
         if ("name".equals(key)) {
             for (String name : NAME_PRECEDENCE) {
-                if (map.containsKey(name))
-                    return map.get(name);
+                final String altName = lookup(fields, name);
+                if (altName != null)
+                    return altName;
             }
         }
 
-        return map.get("default");
+        return lookup(fields, "default");
     }
 
     @Override
     public Map<String, String> getMap(String key) {
-        return localeTags.get(key);
+        final String[] fields = localeTags.get(key);
+        if (fields == null) return null;
+
+        final Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < fields.length; i += 2) {
+            map.put(fields[i], fields[i + 1]);
+        }
+
+        return map;
+    }
+
+    private static String lookup(String[] fields, String key) {
+        for (int i = 0; i < fields.length; i += 2) {
+            if (fields[i].equals(key)) {
+                return fields[i + 1];
+            }
+        }
+
+        return null;
     }
 
     @Override
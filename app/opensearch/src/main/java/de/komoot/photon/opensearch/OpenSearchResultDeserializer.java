@@ -2,18 +2,24 @@ package de.komoot.photon.opensearch;
 
 import com.fasterxml.jackson.core.JacksonException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.komoot.photon.Constants;
 import de.komoot.photon.searcher.PhotonResult;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Reads the source of a search hit directly from the token stream.
+ *
+ * No intermediate JSON tree is built. Simple values are collected into the
+ * tags of the result. Objects with text values, like the names in the
+ * different languages, are kept as compact arrays of key/value pairs.
+ */
 public class OpenSearchResultDeserializer extends StdDeserializer<OpenSearchResult> {
 
     public OpenSearchResultDeserializer() {
@@ -22,61 +28,114 @@ public class OpenSearchResultDeserializer extends StdDeserializer<OpenSearchResu
 
     @Override
     public OpenSearchResult deserialize(JsonParser p, DeserializationContext ctxt) throws IOException, JacksonException {
-        final var node = (ObjectNode) p.getCodec().readTree(p);
-
-        final var importanceNode = node.get("importance");
-        final double[] extent = extractExtent((ObjectNode) node.get("extent"));
-        final double[] coordinates = extractCoordinate((ObjectNode) node.get("coordinate"));
-
+        double[] extent = null;
+        double[] coordinates = PhotonResult.INVALID_COORDINATES;
         final Map<String, Object> tags = new HashMap<>();
-        final Map<String, Map<String, String>> localeTags = new HashMap<>();
+        final Map<String, String[]> localeTags = new HashMap<>();
 
-        var fields = node.fields();
-        while (fields.hasNext()) {
-            final var entry = fields.next();
-            final String key = entry.getKey();
-            final JsonNode value = entry.getValue();
-            if (value.isTextual()) {
-                tags.put(key, value.asText());
-            } else if (value.isInt()) {
-                tags.put(entry.getKey(), value.asInt());
-            } else if (value.isBigInteger()) {
-                tags.put(entry.getKey(), value.asLong());
-            } else if (value.isObject()) {
-                Map<String, String> vtags = new HashMap<>();
-                var subfields = value.fields();
-                while (subfields.hasNext()) {
-                    final var subentry = subfields.next();
-                    if (subentry.getValue().isTextual()) {
-                        vtags.put(subentry.getKey(), subentry.getValue().asText());
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            final String key = p.currentName();
+            switch (p.nextToken()) {
+                case VALUE_STRING:
+                    tags.put(key, p.getText());
+                    break;
+                case VALUE_NUMBER_INT:
+                    if (p.getNumberType() == JsonParser.NumberType.INT) {
+                        tags.put(key, p.getIntValue());
+                    } else {
+                        tags.put(key, p.getLongValue());
                     }
-                    localeTags.put(key, vtags);
-                }
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    tags.put(key, p.getDoubleValue());
+                    break;
+                case START_OBJECT:
+                    if ("coordinate".equals(key)) {
+                        coordinates = readCoordinate(p);
+                    } else if ("extent".equals(key)) {
+                        extent = readExtent(p);
+                    } else {
+                        localeTags.put(key, readTextFields(p));
+                    }
+                    break;
+                default:
+                    p.skipChildren();
             }
         }
 
         return new OpenSearchResult(extent, coordinates, tags, localeTags);
     }
 
-    private double[] extractExtent(ObjectNode node) {
-        if (node == null || !node.has("coordinates")) {
-            return null;
+    /**
+     * Read the text fields of an object as an array of alternating keys and values.
+     * Other fields are ignored.
+     */
+    private String[] readTextFields(JsonParser p) throws IOException {
+        String[] fields = new String[8];
+        int size = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = p.currentName();
+            if (p.nextToken() == JsonToken.VALUE_STRING) {
+                if (size == fields.length) {
+                    fields = Arrays.copyOf(fields, size * 2);
+                }
+                fields[size++] = key;
+                fields[size++] = p.getText();
+            } else {
+                p.skipChildren();
+            }
         }
 
-        final var coords = ((ArrayNode) node.get("coordinates"));
-        final var nw = ((ArrayNode) coords.get(0));
-        final var se = ((ArrayNode) coords.get(1));
-
-        return new double[]{nw.get(0).doubleValue(), nw.get(1).doubleValue(),
-                            se.get(0).doubleValue(), se.get(1).doubleValue()};
+        return Arrays.copyOf(fields, size);
     }
 
-    private double[] extractCoordinate(ObjectNode node) {
-        if (node == null) {
-            return PhotonResult.INVALID_COORDINATES;
+    private double[] readCoordinate(JsonParser p) throws IOException {
+        double lon = Double.NaN;
+        double lat = Double.NaN;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = p.currentName();
+            p.nextToken();
+            if (Constants.LON.equals(key)) {
+                lon = p.getDoubleValue();
+            } else if (Constants.LAT.equals(key)) {
+                lat = p.getDoubleValue();
+            } else {
+                p.skipChildren();
+            }
         }
 
-        return new double[]{node.get(Constants.LON).doubleValue(), node.get(Constants.LAT).doubleValue()};
+        return new double[]{lon, lat};
     }
 
+    private double[] readExtent(JsonParser p) throws IOException {
+        double[] extent = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = p.currentName();
+            p.nextToken();
+            if ("coordinates".equals(key) && p.currentToken() == JsonToken.START_ARRAY) {
+                // Two points: [[minLon, maxLat], [maxLon, minLat]]
+                extent = new double[4];
+                int pos = 0;
+                while (p.nextToken() == JsonToken.START_ARRAY) {
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        if (pos < extent.length) {
+                            extent[pos++] = p.getDoubleValue();
+                        }
+                    }
+                }
+                if (pos < extent.length) {
+                    extent = null;
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+
+        return extent;
+    }
 }
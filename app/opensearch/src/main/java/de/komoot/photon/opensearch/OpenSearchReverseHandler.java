@@ -1,71 +1,303 @@
 package de.komoot.photon.opensearch;
 
+import de.komoot.photon.metrics.RequestTimings;
+import de.komoot.photon.metrics.SearchMetrics;
 import de.komoot.photon.query.ReverseRequest;
 import de.komoot.photon.searcher.PhotonResult;
 import de.komoot.photon.searcher.ReverseHandler;
 import org.locationtech.jts.geom.Point;
+import org.opensearch.client.json.JsonpMapper;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.SearchType;
+import org.opensearch.client.opensearch._types.SortOptions;
 import org.opensearch.client.opensearch._types.SortOrder;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.MsearchRequest;
+import org.opensearch.client.opensearch.core.SearchRequest;
 import org.opensearch.client.opensearch.core.SearchResponse;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Reverse handler that sends the requests to the database.
+ *
+ * When results are sorted by distance, the search starts with a small radius
+ * and the radius is expanded geometrically until enough results are found or
+ * the radius of the request is reached. The closest places found within a
+ * smaller radius are the same as within the full radius, but in dense areas
+ * the database has to look at far fewer candidates.
+ *
+ * The query timeout applies to the request as a whole: each round may only
+ * use the time left over from the previous rounds. When no time is left,
+ * the results of the last round are returned, which are the closest places
+ * but possibly fewer than requested.
+ */
 public class OpenSearchReverseHandler implements ReverseHandler {
+    static final double INITIAL_RADIUS_KM = 0.1;
+    static final double EXPANSION_FACTOR = 4;
+    // Maximum number of queries per request, including the one with the full radius.
+    static final int MAX_ROUNDS = 4;
+
     final private OpenSearchClient client;
+    final private OpenSearchAsyncClient asyncClient;
     final private String queryTimeout;
+    final private long queryTimeoutNanos;
 
-    public OpenSearchReverseHandler(OpenSearchClient client, int queryTimeoutSec) {
+    public OpenSearchReverseHandler(OpenSearchClient client, OpenSearchAsyncClient asyncClient, int queryTimeoutSec) {
         this.client = client;
+        this.asyncClient = asyncClient;
         queryTimeout = queryTimeoutSec + "s";
+        queryTimeoutNanos = TimeUnit.SECONDS.toNanos(queryTimeoutSec);
     }
 
     @Override
     public List<PhotonResult> reverse(ReverseRequest request) {
-        final var queryBuilder = new ReverseQueryBuilder(request.getLocation(), request.getRadius(), request.getQueryStringFilter(), request.getLayerFilters())
-                .withOsmTagFilters(request.getOsmTagFilters());
+        final long deadline = System.nanoTime() + queryTimeoutNanos;
+        final double[] radii = radiusSteps(request);
+        List<PhotonResult> results = search(request, radii[0], queryTimeout);
+        for (int i = 1; i < radii.length && results.size() < request.getLimit(); ++i) {
+            final String timeout = remainingTimeout(deadline);
+            if (timeout == null) {
+                break;
+            }
+            SearchMetrics.REVERSE_RADIUS_EXPANSIONS.inc();
+            results = search(request, radii[i], timeout);
+        }
 
+        return results;
+    }
 
-        final var results = search(queryBuilder.buildQuery(),
-                request.getLimit(),
-                request.getLocationDistanceSort() ? request.getLocation() : null);
+    @Override
+    public CompletableFuture<List<PhotonResult>> reverseAsync(ReverseRequest request) {
+        return searchAsync(request, radiusSteps(request), 0, System.nanoTime() + queryTimeoutNanos, queryTimeout);
+    }
 
-        final List<PhotonResult> ret = new ArrayList<>();
-        for (var hit : results.hits().hits()) {
-            ret.add(hit.source());
+    @Override
+    public List<List<PhotonResult>> reverseBatch(List<ReverseRequest> requests) {
+        final long deadline = System.nanoTime() + queryTimeoutNanos;
+        final List<List<PhotonResult>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        final List<double[]> radii = new ArrayList<>(requests.size());
+        List<Integer> pending = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); ++i) {
+            radii.add(radiusSteps(requests.get(i)));
+            pending.add(i);
         }
 
-        return ret;
+        // Send all requests that still need a larger radius in a single batch per round.
+        for (int round = 0; !pending.isEmpty(); ++round) {
+            final int currentRound = round;
+            final List<Integer> current = pending;
+            final String timeout = round == 0 ? queryTimeout : remainingTimeout(deadline);
+            if (timeout == null) {
+                break;
+            }
+            if (round > 0) {
+                SearchMetrics.REVERSE_RADIUS_EXPANSIONS.inc(current.size());
+            }
+
+            final MsearchRequest msearch = MsearchRequest.of(m -> {
+                m.index(PhotonIndex.NAME);
+                for (int position : current) {
+                    final ReverseRequest request = requests.get(position);
+                    final Query query = buildQuery(request, radii.get(position)[currentRound]);
+                    m.searches(item -> item
+                            .header(h -> h)
+                            .body(b -> {
+                                b.query(query)
+                                        .size(request.getLimit())
+                                        .source(ResultSource.forLanguage(request.getLanguage()))
+                                        .timeout(timeout);
+                                if (request.getLocationDistanceSort()) {
+                                    b.sort(distanceSort(request.getLocation()));
+                                }
+                                return b;
+                            }));
+                }
+                return m;
+            });
+
+            pending = new ArrayList<>();
+            try {
+                final var responses = client.msearch(msearch, OpenSearchResult.class).responses();
+                for (int i = 0; i < responses.size(); ++i) {
+                    final var item = responses.get(i);
+                    if (item.isFailure()) {
+                        throw new RuntimeException("Error during batch search: " + item.failure().error().reason());
+                    }
+                    final int position = current.get(i);
+                    final List<PhotonResult> found = convertResults(item.result());
+                    results.set(position, found);
+                    if (found.size() < requests.get(position).getLimit() && round + 1 < radii.get(position).length) {
+                        pending.add(position);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("IO error during batch search", e);
+            }
+        }
+
+        return results;
     }
 
-    @Override
-    public String dumpQuery(ReverseRequest photonRequest) {
-        return "{}";
+    /**
+     * Get the radii to search with, one after another, until enough results are found.
+     *
+     * Only a search sorted by distance returns the same results for a
+     * smaller radius, so other searches always use the radius of the request.
+     */
+    static double[] radiusSteps(ReverseRequest request) {
+        final double radius = request.getRadius();
+        if (!request.getLocationDistanceSort()) {
+            return new double[]{radius};
+        }
+
+        final List<Double> steps = new ArrayList<>(MAX_ROUNDS);
+        for (double step = INITIAL_RADIUS_KM; step < radius && steps.size() < MAX_ROUNDS - 1; step *= EXPANSION_FACTOR) {
+            steps.add(step);
+        }
+        steps.add(radius);
+
+        return steps.stream().mapToDouble(Double::doubleValue).toArray();
     }
 
-    private SearchResponse<OpenSearchResult> search(Query query, int limit, Point location) {
+    /**
+     * Get the time left until the deadline as a timeout for the database.
+     *
+     * @return The timeout or null if less than a millisecond is left.
+     */
+    private static String remainingTimeout(long deadline) {
+        final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        return remainingMillis > 0 ? remainingMillis + "ms" : null;
+    }
+
+    private List<PhotonResult> search(ReverseRequest request, double radius, String timeout) {
+        final SearchRequest searchRequest = makeTimedSearchRequest(request, radius, timeout);
+        final long sendStart = System.nanoTime();
         try {
-            return client.search(s -> {
-                s.index(PhotonIndex.NAME)
-                        .searchType(SearchType.QueryThenFetch)
-                        .query(query)
-                        .size(limit);
-
-                if (location != null) {
-                    s.sort(sq -> sq
-                            .geoDistance(gd -> gd
-                                    .field("coordinate")
-                                    .location(l -> l.latlon(ll -> ll.lat(location.getY()).lon(location.getX())))
-                                    .order(SortOrder.Asc)));
-                }
-                return s;
-            }, OpenSearchResult.class);
+            final var response = client.search(searchRequest, OpenSearchResult.class);
+            recordBackendStats(request, response);
+            return convertResults(response);
         } catch (IOException e) {
             throw new RuntimeException("IO error during search", e);
+        } finally {
+            request.getTimings().record(RequestTimings.BACKEND, sendStart);
+        }
+    }
+
+    private CompletableFuture<List<PhotonResult>> searchAsync(ReverseRequest request, double[] radii, int round,
+                                                              long deadline, String timeout) {
+        if (round > 0) {
+            SearchMetrics.REVERSE_RADIUS_EXPANSIONS.inc();
+        }
+
+        final SearchRequest searchRequest = makeTimedSearchRequest(request, radii[round], timeout);
+        final long sendStart = System.nanoTime();
+        try {
+            return asyncClient.search(searchRequest, OpenSearchResult.class)
+                    .whenComplete((response, error) -> request.getTimings().record(RequestTimings.BACKEND, sendStart))
+                    .thenCompose(response -> {
+                        recordBackendStats(request, response);
+                        final List<PhotonResult> results = convertResults(response);
+                        if (results.size() < request.getLimit() && round + 1 < radii.length) {
+                            final String nextTimeout = remainingTimeout(deadline);
+                            if (nextTimeout != null) {
+                                return searchAsync(request, radii, round + 1, deadline, nextTimeout);
+                            }
+                        }
+                        return CompletableFuture.completedFuture(results);
+                    });
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("IO error during search", e));
+        }
+    }
+
+    /**
+     * Dump the query sent to the database. When the radius is expanded in
+     * several rounds, the queries of all rounds are dumped as an object with
+     * the list of queries under 'rounds'. Later rounds are only sent when the
+     * earlier ones find too few results.
+     */
+    @Override
+    public String dumpQuery(ReverseRequest photonRequest) {
+        final JsonpMapper mapper = client._transport().jsonpMapper();
+        final double[] radii = radiusSteps(photonRequest);
+        if (radii.length == 1) {
+            return SearchTemplates.toJson(mapper, makeSearchRequest(photonRequest, radii[0], queryTimeout));
+        }
+
+        final StringBuilder dump = new StringBuilder("{\"rounds\":[");
+        for (int i = 0; i < radii.length; ++i) {
+            if (i > 0) {
+                dump.append(',');
+            }
+            dump.append(SearchTemplates.toJson(mapper, makeSearchRequest(photonRequest, radii[i], queryTimeout)));
         }
+        return dump.append("]}").toString();
+    }
+
+    private static void recordBackendStats(ReverseRequest request, SearchResponse<OpenSearchResult> response) {
+        request.getTimings().recordBackend(RequestTimings.BACKEND, response.took(),
+                response.shards().total(), response.shards().successful(), response.shards().failed());
+    }
+
+    private List<PhotonResult> convertResults(SearchResponse<OpenSearchResult> results) {
+        final List<PhotonResult> ret = new ArrayList<>();
+        for (var hit : results.hits().hits()) {
+            ret.add(hit.source());
+        }
+
+        return ret;
+    }
+
+    private Query buildQuery(ReverseRequest request, double radius) {
+        return new ReverseQueryBuilder(request.getLocation(), radius, request.getQueryStringFilter(), request.getLayerFilters())
+                .withOsmTagFilters(request.getOsmTagFilters())
+                .buildQuery();
+    }
+
+    private SortOptions distanceSort(Point location) {
+        return SortOptions.of(sq -> sq
+                .geoDistance(gd -> gd
+                        .field("coordinate")
+                        .location(l -> l.latlon(ll -> ll.lat(location.getY()).lon(location.getX())))
+                        .order(SortOrder.Asc)));
+    }
+
+    private SearchRequest makeTimedSearchRequest(ReverseRequest request, double radius, String timeout) {
+        final long buildStart = System.nanoTime();
+        final SearchRequest searchRequest = makeSearchRequest(request, radius, timeout);
+        request.getTimings().record(RequestTimings.QUERY_BUILD, buildStart);
+        return searchRequest;
+    }
+
+    private SearchRequest makeSearchRequest(ReverseRequest request, double radius, String timeout) {
+        return makeSearchRequest(buildQuery(request, radius),
+                request.getLimit(),
+                request.getLocationDistanceSort() ? request.getLocation() : null,
+                request.getLanguage(),
+                timeout);
+    }
+
+    private SearchRequest makeSearchRequest(Query query, int limit, Point location, String language, String timeout) {
+        return SearchRequest.of(s -> {
+            s.index(PhotonIndex.NAME)
+                    .searchType(SearchType.QueryThenFetch)
+                    .query(query)
+                    .size(limit)
+                    .source(ResultSource.forLanguage(language))
+                    .timeout(timeout);
+
+            if (location != null) {
+                s.sort(distanceSort(location));
+            }
+            return s;
+        });
     }
 
 }
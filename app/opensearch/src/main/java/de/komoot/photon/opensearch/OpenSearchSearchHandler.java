@@ -1,70 +1,315 @@
 package de.komoot.photon.opensearch;
 
+import de.komoot.photon.metrics.RequestTimings;
+import de.komoot.photon.metrics.SearchMetrics;
 import de.komoot.photon.query.PhotonRequest;
 import de.komoot.photon.searcher.PhotonResult;
 import de.komoot.photon.searcher.SearchHandler;
+import org.opensearch.client.json.JsonpMapper;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.SearchType;
+import org.opensearch.client.opensearch._types.ShardStatistics;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.MsearchRequest;
+import org.opensearch.client.opensearch.core.SearchRequest;
 import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.SearchTemplateRequest;
+import org.opensearch.client.opensearch.core.search.HitsMetadata;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class OpenSearchSearchHandler implements SearchHandler {
     final private OpenSearchClient client;
-    final private String[] supportedLanguages;
+    final private OpenSearchAsyncClient asyncClient;
+    final private SearchQueryParts queryParts;
     final private String queryTimeout;
+    final private boolean parallelLenient;
+    final private SearchTemplates templates;
 
-    public OpenSearchSearchHandler(OpenSearchClient client, String[] supportedLanguages, int queryTimeout) {
+    /**
+     * Create a new search handler.
+     *
+     * @param parallelLenient When true, send the lenient query together with the strict
+     *                        one instead of waiting for the strict query to come back empty.
+     */
+    public OpenSearchSearchHandler(OpenSearchClient client, OpenSearchAsyncClient asyncClient,
+                                   String[] supportedLanguages, int queryTimeout, boolean parallelLenient) {
+        this(client, asyncClient, supportedLanguages, queryTimeout, parallelLenient, false);
+    }
+
+    /**
+     * Create a new search handler.
+     *
+     * @param useTemplates When true, register the search query as stored templates
+     *                     and only send the template parameters with each request.
+     */
+    public OpenSearchSearchHandler(OpenSearchClient client, OpenSearchAsyncClient asyncClient,
+                                   String[] supportedLanguages, int queryTimeout, boolean parallelLenient,
+                                   boolean useTemplates) {
         this.client = client;
-        this.supportedLanguages = supportedLanguages;
+        this.asyncClient = asyncClient;
+        this.queryParts = new SearchQueryParts(supportedLanguages);
         this.queryTimeout = queryTimeout + "s";
+        this.parallelLenient = parallelLenient;
+        if (useTemplates) {
+            try {
+                this.templates = new SearchTemplates(client._transport().jsonpMapper(), queryParts, this.queryTimeout)
+                        .register(client);
+            } catch (IOException e) {
+                throw new RuntimeException("IO error while registering search templates", e);
+            }
+        } else {
+            this.templates = null;
+        }
     }
 
     @Override
     public List<PhotonResult> search(PhotonRequest request) {
-        final int limit = request.getLimit();
-        final int extLimit = limit > 1 ? (int) Math.round(limit * 1.5) : 1;
+        if (parallelLenient) {
+            return searchAsync(request).join();
+        }
+
+        final int extLimit = getExtendedLimit(request);
 
-        var results = sendQuery(buildQuery(request, false).buildQuery(), extLimit);
+        SearchMetrics.FORWARD_SEARCHES.inc();
+        var results = sendQuery(request, false, extLimit);
 
-        if (results.hits().hits().isEmpty()) {
-            results = sendQuery(buildQuery(request, true).buildQuery(), extLimit);
+        if (results.hits().isEmpty()) {
+            SearchMetrics.LENIENT_FALLBACKS.inc();
+            request.getTimings().markLenientUsed();
+            results = sendQuery(request, true, extLimit);
         }
 
-        List<PhotonResult> ret = new ArrayList<>();
-        for (var hit : results.hits().hits()) {
-            ret.add(hit.source().setScore(hit.score()));
+        return convertResults(results);
+    }
+
+    @Override
+    public CompletableFuture<List<PhotonResult>> searchAsync(PhotonRequest request) {
+        final int extLimit = getExtendedLimit(request);
+
+        SearchMetrics.FORWARD_SEARCHES.inc();
+        final var strictResults = sendQueryAsync(request, false, extLimit);
+        final var lenientResults = parallelLenient
+                ? sendQueryAsync(request, true, extLimit)
+                : null;
+
+        return strictResults
+                .thenCompose(results -> {
+                    if (!results.hits().isEmpty()) {
+                        if (lenientResults != null) {
+                            SearchMetrics.LENIENT_DISCARDED.inc();
+                        }
+                        return CompletableFuture.completedFuture(results);
+                    }
+
+                    SearchMetrics.LENIENT_FALLBACKS.inc();
+                    request.getTimings().markLenientUsed();
+                    return lenientResults == null
+                            ? sendQueryAsync(request, true, extLimit)
+                            : lenientResults;
+                })
+                .thenApply(this::convertResults);
+    }
+
+    @Override
+    public List<List<PhotonResult>> searchBatch(List<PhotonRequest> requests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(requests.size());
+        final List<Integer> emptyPositions = new ArrayList<>();
+
+        SearchMetrics.FORWARD_SEARCHES.inc(requests.size());
+        final var strictResults = sendMultiQuery(requests, false);
+        for (int i = 0; i < strictResults.size(); ++i) {
+            final var response = strictResults.get(i);
+            if (response.hits().hits().isEmpty()) {
+                emptyPositions.add(i);
+            }
+            results.add(convertResults(response.hits()));
         }
 
-        return ret;
+        if (!emptyPositions.isEmpty()) {
+            SearchMetrics.LENIENT_FALLBACKS.inc(emptyPositions.size());
+            final List<PhotonRequest> lenientRequests = new ArrayList<>(emptyPositions.size());
+            for (int pos : emptyPositions) {
+                requests.get(pos).getTimings().markLenientUsed();
+                lenientRequests.add(requests.get(pos));
+            }
+
+            final var lenientResults = sendMultiQuery(lenientRequests, true);
+            for (int i = 0; i < lenientResults.size(); ++i) {
+                results.set(emptyPositions.get(i), convertResults(lenientResults.get(i).hits()));
+            }
+        }
+
+        return results;
     }
 
+    /**
+     * Dump the full search requests for the given request. The lenient query
+     * is only included when the results were taken from it.
+     *
+     * When stored templates are in use, the search request that is equivalent
+     * to the template is dumped.
+     */
     @Override
     public String dumpQuery(PhotonRequest photonRequest) {
-        return "{}";
+        final JsonpMapper mapper = client._transport().jsonpMapper();
+        final int extLimit = getExtendedLimit(photonRequest);
+        final StringBuilder dump = new StringBuilder("{\"strict\":");
+        dump.append(SearchTemplates.toJson(mapper, makeSearchRequest(
+                buildQuery(photonRequest, false).buildQuery(), extLimit, photonRequest.getLanguage())));
+        if (photonRequest.getTimings().isLenientUsed()) {
+            dump.append(",\"lenient\":");
+            dump.append(SearchTemplates.toJson(mapper, makeSearchRequest(
+                    buildQuery(photonRequest, true).buildQuery(), extLimit, photonRequest.getLanguage())));
+        }
+        return dump.append('}').toString();
+    }
+
+    private int getExtendedLimit(PhotonRequest request) {
+        // for the case of deduplication we need a bit more results, #300
+        final int limit = request.getLimit();
+        return limit > 1 ? (int) Math.round(limit * 1.5) : 1;
+    }
+
+    private List<PhotonResult> convertResults(HitsMetadata<OpenSearchResult> results) {
+        List<PhotonResult> ret = new ArrayList<>();
+        for (var hit : results.hits()) {
+            ret.add(hit.source().setScore(hit.score()));
+        }
+
+        return ret;
     }
 
     private SearchQueryBuilder buildQuery(PhotonRequest request, boolean lenient) {
-        return new SearchQueryBuilder(request.getQuery(), request.getLanguage(), supportedLanguages, lenient).
+        return new SearchQueryBuilder(request.getQuery(), request.getLanguage(), queryParts, lenient).
                 withOsmTagFilters(request.getOsmTagFilters()).
                 withLayerFilters(request.getLayerFilters()).
                 withLocationBias(request.getLocationForBias(), request.getScaleForBias(), request.getZoomForBias()).
                 withBoundingBox(request.getBbox());
     }
 
-    private SearchResponse<OpenSearchResult> sendQuery(Query query, int limit) {
+    private SearchRequest makeSearchRequest(Query query, int limit, String language) {
+        return SearchRequest.of(s -> s
+                .index(PhotonIndex.NAME)
+                .searchType(SearchType.QueryThenFetch)
+                .query(query)
+                .size(limit)
+                .source(ResultSource.forLanguage(language))
+                .timeout(queryTimeout));
+    }
+
+    /**
+     * Check if the query for the request can be run from a stored template.
+     * The location bias changes the structure of the query, so it is not
+     * covered by the templates.
+     */
+    private boolean useTemplate(PhotonRequest request) {
+        return templates != null && (request.getLocationForBias() == null || request.getZoomForBias() < 4);
+    }
+
+    private SearchTemplateRequest makeTemplateRequest(PhotonRequest request, boolean lenient, int limit) {
+        return templates.makeRequest(request.getQuery(), request.getLanguage(), lenient,
+                buildQuery(request, lenient).buildFilters(), limit);
+    }
+
+    private static String backendStage(boolean lenient) {
+        return lenient ? RequestTimings.BACKEND_LENIENT : RequestTimings.BACKEND;
+    }
+
+    private static void recordBackendStats(RequestTimings timings, boolean lenient, long took, ShardStatistics shards) {
+        timings.recordBackend(backendStage(lenient), took, shards.total(), shards.successful(), shards.failed());
+    }
+
+    private HitsMetadata<OpenSearchResult> sendQuery(PhotonRequest request, boolean lenient, int limit) {
+        final RequestTimings timings = request.getTimings();
+        long stageStart = System.nanoTime();
         try {
-            return client.search(s -> s
-                    .index(PhotonIndex.NAME)
-                    .searchType(SearchType.QueryThenFetch)
-                    .query(query)
-                    .size(limit)
-                    .timeout(queryTimeout), OpenSearchResult.class);
+            if (useTemplate(request)) {
+                final var templateRequest = makeTemplateRequest(request, lenient, limit);
+                timings.record(RequestTimings.QUERY_BUILD, stageStart);
+
+                stageStart = System.nanoTime();
+                final var response = client.searchTemplate(templateRequest, OpenSearchResult.class);
+                timings.record(backendStage(lenient), stageStart);
+                recordBackendStats(timings, lenient, response.took(), response.shards());
+                return response.hits();
+            }
+
+            final var searchRequest = makeSearchRequest(buildQuery(request, lenient).buildQuery(), limit, request.getLanguage());
+            timings.record(RequestTimings.QUERY_BUILD, stageStart);
+
+            stageStart = System.nanoTime();
+            final var response = client.search(searchRequest, OpenSearchResult.class);
+            timings.record(backendStage(lenient), stageStart);
+            recordBackendStats(timings, lenient, response.took(), response.shards());
+            return response.hits();
         } catch (IOException e) {
             throw new RuntimeException("IO error during search", e);
         }
     }
+
+    private List<SearchResponse<OpenSearchResult>> sendMultiQuery(List<PhotonRequest> requests, boolean lenient) {
+        final MsearchRequest msearch = MsearchRequest.of(m -> {
+            m.index(PhotonIndex.NAME);
+            for (PhotonRequest request : requests) {
+                final Query query = buildQuery(request, lenient).buildQuery();
+                final int limit = getExtendedLimit(request);
+                final var source = ResultSource.forLanguage(request.getLanguage());
+                m.searches(item -> item
+                        .header(h -> h)
+                        .body(b -> b.query(query).size(limit).source(source).timeout(queryTimeout)));
+            }
+            return m;
+        });
+
+        try {
+            final List<SearchResponse<OpenSearchResult>> ret = new ArrayList<>(requests.size());
+            for (var item : client.msearch(msearch, OpenSearchResult.class).responses()) {
+                if (item.isFailure()) {
+                    throw new RuntimeException("Error during batch search: " + item.failure().error().reason());
+                }
+                ret.add(item.result());
+            }
+            return ret;
+        } catch (IOException e) {
+            throw new RuntimeException("IO error during batch search", e);
+        }
+    }
+
+    private CompletableFuture<HitsMetadata<OpenSearchResult>> sendQueryAsync(PhotonRequest request, boolean lenient, int limit) {
+        final RequestTimings timings = request.getTimings();
+        final long buildStart = System.nanoTime();
+        try {
+            final CompletableFuture<HitsMetadata<OpenSearchResult>> response;
+            final long sendStart;
+            if (useTemplate(request)) {
+                final var templateRequest = makeTemplateRequest(request, lenient, limit);
+                timings.record(RequestTimings.QUERY_BUILD, buildStart);
+                // Taken before the call, which may already do part of the work synchronously.
+                sendStart = System.nanoTime();
+                response = asyncClient.searchTemplate(templateRequest, OpenSearchResult.class)
+                        .thenApply(r -> {
+                            recordBackendStats(timings, lenient, r.took(), r.shards());
+                            return r.hits();
+                        });
+            } else {
+                final var searchRequest = makeSearchRequest(buildQuery(request, lenient).buildQuery(), limit, request.getLanguage());
+                timings.record(RequestTimings.QUERY_BUILD, buildStart);
+                sendStart = System.nanoTime();
+                response = asyncClient.search(searchRequest, OpenSearchResult.class)
+                        .thenApply(r -> {
+                            recordBackendStats(timings, lenient, r.took(), r.shards());
+                            return r.hits();
+                        });
+            }
+
+            return response.whenComplete((hits, error) -> timings.record(backendStage(lenient), sendStart));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("IO error during search", e));
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package de.komoot.photon.opensearch;
 
 import de.komoot.photon.*;
+import de.komoot.photon.metrics.RequestTimings;
 import de.komoot.photon.searcher.StructuredSearchHandler;
 import de.komoot.photon.searcher.PhotonResult;
 import de.komoot.photon.query.StructuredPhotonRequest;
@@ -32,23 +33,22 @@ public class OpenSearchStructuredSearchHandler implements StructuredSearchHandle
 
     @Override
     public List<PhotonResult> search(StructuredPhotonRequest photonRequest) {
-        var queryBuilder = buildQuery(photonRequest, false);
-
         // for the case of deduplication we need a bit more results, #300
         int limit = photonRequest.getLimit();
         int extLimit = limit > 1 ? (int) Math.round(photonRequest.getLimit() * 1.5) : 1;
 
-        var results = sendQuery(queryBuilder.buildQuery(), extLimit);
+        var results = sendQuery(photonRequest, false, extLimit);
 
         if (results.hits().total().value() == 0) {
-            results = sendQuery(buildQuery(photonRequest, true).buildQuery(), extLimit);
+            photonRequest.getTimings().markLenientUsed();
+            results = sendQuery(photonRequest, true, extLimit);
 
             if (results.hits().total().value() == 0 && photonRequest.hasStreet()) {
                 var street = photonRequest.getStreet();
                 var houseNumber = photonRequest.getHouseNumber();
                 photonRequest.setStreet(null);
                 photonRequest.setHouseNumber(null);
-                results = sendQuery(buildQuery(photonRequest, true).buildQuery(), extLimit);
+                results = sendQuery(photonRequest, true, extLimit);
                 photonRequest.setStreet(street);
                 photonRequest.setHouseNumber(houseNumber);
             }
@@ -70,16 +70,25 @@ public class OpenSearchStructuredSearchHandler implements StructuredSearchHandle
                 withBoundingBox(photonRequest.getBbox());
     }
 
-    private SearchResponse<OpenSearchResult> sendQuery(Query query, Integer limit) {
+    private SearchResponse<OpenSearchResult> sendQuery(StructuredPhotonRequest photonRequest, boolean lenient, int limit) {
+        final RequestTimings timings = photonRequest.getTimings();
+        long stageStart = System.nanoTime();
+        final Query query = buildQuery(photonRequest, lenient).buildQuery();
+        timings.record(RequestTimings.QUERY_BUILD, stageStart);
+
+        stageStart = System.nanoTime();
         try {
             return client.search(s -> s
                     .index(PhotonIndex.NAME)
                     .searchType(SearchType.QueryThenFetch)
                     .query(query)
                     .size(limit)
+                    .source(ResultSource.forLanguage(photonRequest.getLanguage()))
                     .timeout(queryTimeout), OpenSearchResult.class);
         } catch (IOException e) {
             throw new RuntimeException("IO error during search", e);
+        } finally {
+            timings.record(lenient ? RequestTimings.BACKEND_LENIENT : RequestTimings.BACKEND, stageStart);
         }
     }
 }
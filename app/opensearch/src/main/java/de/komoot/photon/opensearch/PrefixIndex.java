@@ -0,0 +1,245 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.searcher.PhotonResult;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.SortOrder;
+import org.opensearch.client.opensearch._types.Time;
+import org.opensearch.client.opensearch.core.ScrollRequest;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index for looking up the most important places by a name prefix.
+ *
+ * The index contains a fixed number of places with the highest importance.
+ * For each language, all words of the names visible in that language are kept
+ * in a sorted array, so that all places with a word starting with a given prefix
+ * can be found with a binary search. The results for prefixes of up to
+ * {@link #SHORT_PREFIX_LENGTH} characters, which would match a large part of the
+ * index, are precomputed.
+ *
+ * Answers from the index are ranked by importance only. They do not take
+ * the scoring of the search query into account, e.g. whether the prefix
+ * matches a complete word or only the start of one, so the order may differ
+ * from the one the database would return.
+ */
+public class PrefixIndex {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(PrefixIndex.class);
+
+    public static final int SHORT_PREFIX_LENGTH = 3;
+    public static final int MAX_RESULTS = 50;
+
+    private static final int PAGE_SIZE = 1000;
+    private static final Time SCROLL_TIMEOUT = Time.of(t -> t.time("1m"));
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[\\s\\p{Punct}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    // Name variants that are shown independently of the requested language.
+    private static final Set<String> GENERIC_NAMES = Set.of("default", "housename", "int", "loc", "reg", "alt", "old");
+    private static final int[] NO_DOCUMENTS = new int[0];
+
+    private final List<OpenSearchResult> documents;
+    private final Map<String, LanguageIndex> languageIndexes = new HashMap<>();
+
+    /**
+     * Create a new index.
+     *
+     * @param documents Places to index, ordered by descending importance.
+     * @param languages Languages to create an index for. An index for the
+     *                  'default' language is always created.
+     */
+    public PrefixIndex(List<OpenSearchResult> documents, String[] languages) {
+        this.documents = documents;
+        languageIndexes.put("default", new LanguageIndex(null));
+        for (String language : languages) {
+            languageIndexes.put(language, new LanguageIndex(language));
+        }
+    }
+
+    /**
+     * Load the most important places from the database and build the index.
+     *
+     * @param client    Client for the database.
+     * @param languages Languages to create an index for.
+     * @param size      Number of places to load.
+     */
+    public static PrefixIndex load(OpenSearchClient client, String[] languages, int size) throws IOException {
+        LOGGER.info("Loading {} places for prefix index.", size);
+        final List<OpenSearchResult> documents = new ArrayList<>(size);
+
+        var response = client.search(s -> s
+                        .index(PhotonIndex.NAME)
+                        .size(Math.min(size, PAGE_SIZE))
+                        .scroll(SCROLL_TIMEOUT)
+                        .query(SearchQueryBuilder.EXCLUDE_PROPERTY_DOCUMENT_QUERY)
+                        .sort(so -> so.field(f -> f.field("importance").order(SortOrder.Desc))),
+                OpenSearchResult.class);
+        String scrollId = response.scrollId();
+        List<Hit<OpenSearchResult>> hits = response.hits().hits();
+
+        while (!hits.isEmpty() && documents.size() < size) {
+            for (var hit : hits) {
+                if (documents.size() < size && hit.source() != null) {
+                    documents.add(hit.source());
+                }
+            }
+
+            if (documents.size() < size) {
+                final String currentScrollId = scrollId;
+                final var scrollResponse = client.scroll(ScrollRequest.of(r -> r
+                        .scrollId(currentScrollId)
+                        .scroll(SCROLL_TIMEOUT)), OpenSearchResult.class);
+                scrollId = scrollResponse.scrollId();
+                hits = scrollResponse.hits().hits();
+            }
+        }
+
+        if (scrollId != null) {
+            final String currentScrollId = scrollId;
+            client.clearScroll(c -> c.scrollId(currentScrollId));
+        }
+
+        final PrefixIndex index = new PrefixIndex(documents, languages);
+        LOGGER.info("Prefix index ready with {} places.", documents.size());
+        return index;
+    }
+
+    /**
+     * Look up the most important places with a name starting with the given prefix.
+     *
+     * @param query    Single word to look up.
+     * @param language Language of the request.
+     * @param limit    Maximum number of results.
+     * @return Places ordered by importance or null if the query cannot be answered from the index.
+     */
+    public List<PhotonResult> lookup(String query, String language, int limit) {
+        final LanguageIndex index = languageIndexes.get(language);
+        if (index == null || limit > MAX_RESULTS) {
+            return null;
+        }
+
+        final String[] tokens = tokenize(query);
+        if (tokens.length != 1) {
+            return null;
+        }
+
+        final String prefix = tokens[0];
+        final int[] docs = prefix.length() <= SHORT_PREFIX_LENGTH
+                ? index.shortPrefixes.getOrDefault(prefix, NO_DOCUMENTS)
+                : index.findDocuments(prefix, limit);
+
+        // Longer prefixes may well refer to places that are not important
+        // enough to be in the index, so only use complete answers.
+        if (docs.length == 0 || (prefix.length() > SHORT_PREFIX_LENGTH && docs.length < limit)) {
+            return null;
+        }
+
+        final List<PhotonResult> results = new ArrayList<>(Math.min(limit, docs.length));
+        for (int i = 0; i < docs.length && i < limit; ++i) {
+            results.add(documents.get(docs[i]));
+        }
+
+        return results;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    static String[] tokenize(String text) {
+        final String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .trim();
+
+        return normalized.isEmpty() ? new String[0] : TOKEN_SEPARATOR.split(normalized);
+    }
+
+    private final class LanguageIndex {
+        private final String[] tokens;
+        private final int[] tokenDocs;
+        private final Map<String, int[]> shortPrefixes = new HashMap<>();
+
+        LanguageIndex(String language) {
+            final List<Set<String>> docTokens = new ArrayList<>(documents.size());
+            int numTokens = 0;
+            for (OpenSearchResult doc : documents) {
+                final Set<String> words = collectTokens(doc, language);
+                docTokens.add(words);
+                numTokens += words.size();
+            }
+
+            final Integer[] order = new Integer[numTokens];
+            final String[] unsortedTokens = new String[numTokens];
+            final int[] unsortedDocs = new int[numTokens];
+            final Map<String, List<Integer>> prefixDocs = new HashMap<>();
+            int pos = 0;
+            for (int doc = 0; doc < docTokens.size(); ++doc) {
+                for (String word : docTokens.get(doc)) {
+                    unsortedTokens[pos] = word;
+                    unsortedDocs[pos] = doc;
+                    order[pos] = pos;
+                    ++pos;
+
+                    for (int len = 1; len <= Math.min(SHORT_PREFIX_LENGTH, word.length()); ++len) {
+                        final List<Integer> prefixList = prefixDocs.computeIfAbsent(word.substring(0, len), k -> new ArrayList<>());
+                        // Documents are visited in order, so a duplicate can only be the last entry.
+                        if (prefixList.size() < MAX_RESULTS && (prefixList.isEmpty() || prefixList.get(prefixList.size() - 1) != doc)) {
+                            prefixList.add(doc);
+                        }
+                    }
+                }
+            }
+
+            Arrays.sort(order, Comparator.comparing((Integer i) -> unsortedTokens[i]).thenComparingInt(i -> unsortedDocs[i]));
+            tokens = new String[numTokens];
+            tokenDocs = new int[numTokens];
+            for (int i = 0; i < numTokens; ++i) {
+                tokens[i] = unsortedTokens[order[i]];
+                tokenDocs[i] = unsortedDocs[order[i]];
+            }
+
+            for (var entry : prefixDocs.entrySet()) {
+                shortPrefixes.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        /**
+         * Find the most important documents with a word starting with the given prefix.
+         */
+        int[] findDocuments(String prefix, int limit) {
+            int pos = Arrays.binarySearch(tokens, prefix);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+
+            final TreeSet<Integer> best = new TreeSet<>();
+            for (; pos < tokens.length && tokens[pos].startsWith(prefix); ++pos) {
+                best.add(tokenDocs[pos]);
+                if (best.size() > limit) {
+                    best.pollLast();
+                }
+            }
+
+            return best.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private Set<String> collectTokens(OpenSearchResult doc, String language) {
+            final Set<String> words = new HashSet<>();
+            final Map<String, String> names = doc.getMap("name");
+            if (names != null) {
+                for (var entry : names.entrySet()) {
+                    if (language == null || language.equals(entry.getKey()) || GENERIC_NAMES.contains(entry.getKey())) {
+                        words.addAll(Arrays.asList(tokenize(entry.getValue())));
+                    }
+                }
+            }
+            words.remove("");
+            return words;
+        }
+    }
+}
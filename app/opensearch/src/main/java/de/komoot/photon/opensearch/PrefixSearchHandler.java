@@ -0,0 +1,86 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.metrics.SearchMetrics;
+import de.komoot.photon.query.PhotonRequest;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.SearchHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Search handler that answers single-word type-ahead queries from a {@link PrefixIndex}.
+ *
+ * Only requests without any filters or location bias are looked up in the
+ * index. All other requests and queries that cannot be answered from the index
+ * are passed on to the database.
+ */
+public class PrefixSearchHandler implements SearchHandler {
+    private final SearchHandler handler;
+    private final PrefixIndex index;
+
+    public PrefixSearchHandler(SearchHandler handler, PrefixIndex index) {
+        this.handler = handler;
+        this.index = index;
+    }
+
+    @Override
+    public List<PhotonResult> search(PhotonRequest photonRequest) {
+        final List<PhotonResult> results = lookup(photonRequest);
+        return results == null ? handler.search(photonRequest) : results;
+    }
+
+    @Override
+    public CompletableFuture<List<PhotonResult>> searchAsync(PhotonRequest photonRequest) {
+        final List<PhotonResult> results = lookup(photonRequest);
+        return results == null ? handler.searchAsync(photonRequest) : CompletableFuture.completedFuture(results);
+    }
+
+    @Override
+    public List<List<PhotonResult>> searchBatch(List<PhotonRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(photonRequests.size());
+        final List<PhotonRequest> missingRequests = new ArrayList<>();
+        final List<Integer> missingPositions = new ArrayList<>();
+
+        for (PhotonRequest photonRequest : photonRequests) {
+            final List<PhotonResult> found = lookup(photonRequest);
+            if (found == null) {
+                missingRequests.add(photonRequest);
+                missingPositions.add(results.size());
+            }
+            results.add(found);
+        }
+
+        if (!missingRequests.isEmpty()) {
+            final List<List<PhotonResult>> fetched = handler.searchBatch(missingRequests);
+            for (int i = 0; i < fetched.size(); ++i) {
+                results.set(missingPositions.get(i), fetched.get(i));
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public String dumpQuery(PhotonRequest photonRequest) {
+        return handler.dumpQuery(photonRequest);
+    }
+
+    private List<PhotonResult> lookup(PhotonRequest request) {
+        if (request.getDebug()
+                || request.getLocationForBias() != null
+                || request.getBbox() != null
+                || !request.getOsmTagFilters().isEmpty()
+                || !request.getLayerFilters().isEmpty()) {
+            return null;
+        }
+
+        final List<PhotonResult> results = index.lookup(request.getQuery(), request.getLanguage(), request.getLimit());
+        if (results != null) {
+            SearchMetrics.PREFIX_INDEX_ANSWERS.inc();
+        }
+
+        return results;
+    }
+}
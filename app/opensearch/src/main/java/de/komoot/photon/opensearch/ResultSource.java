@@ -0,0 +1,65 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.Constants;
+import org.opensearch.client.opensearch.core.search.SourceConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Source filters for search requests, which restrict the document source
+ * returned by the database to the fields needed for formatting the results.
+ *
+ * Of the localised fields, only the variants for the requested language and
+ * the fallbacks used by {@link OpenSearchResult#getLocalised} are returned.
+ */
+public class ResultSource {
+    private static final String[] PLAIN_FIELDS = {
+            Constants.OSM_ID, Constants.OSM_TYPE, Constants.OSM_KEY, Constants.OSM_VALUE, Constants.OBJECT_TYPE,
+            Constants.POSTCODE, Constants.HOUSENUMBER, Constants.COUNTRYCODE, Constants.IMPORTANCE,
+            "coordinate", "extent", "extra"};
+    private static final String[] LOCALISED_FIELDS = {
+            Constants.COUNTRY, Constants.CITY, Constants.DISTRICT, Constants.LOCALITY,
+            Constants.STREET, Constants.STATE, Constants.COUNTY};
+    // Name variants which may be shown when there is no name in the requested language.
+    private static final String[] NAME_VARIANTS = {"default", "housename", "int", "loc", "reg", "alt", "old"};
+
+    private static final Map<String, SourceConfig> configs = new ConcurrentHashMap<>();
+
+    private ResultSource() {
+    }
+
+    /**
+     * Get the source filter for results in the given language.
+     */
+    public static SourceConfig forLanguage(String language) {
+        return configs.computeIfAbsent(language, ResultSource::createConfig);
+    }
+
+    static List<String> includedFields(String language) {
+        final List<String> fields = new ArrayList<>(List.of(PLAIN_FIELDS));
+
+        for (String variant : NAME_VARIANTS) {
+            fields.add(Constants.NAME + "." + variant);
+        }
+        if (!"default".equals(language)) {
+            fields.add(Constants.NAME + "." + language);
+        }
+
+        for (String field : LOCALISED_FIELDS) {
+            fields.add(field + ".default");
+            if (!"default".equals(language)) {
+                fields.add(field + "." + language);
+            }
+        }
+
+        return fields;
+    }
+
+    private static SourceConfig createConfig(String language) {
+        final List<String> fields = includedFields(language);
+        return SourceConfig.of(s -> s.filter(f -> f.includes(fields)));
+    }
+}
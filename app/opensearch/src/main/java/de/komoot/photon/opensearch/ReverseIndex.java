@@ -0,0 +1,407 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.Constants;
+import de.komoot.photon.searcher.PhotonResult;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.Time;
+import org.opensearch.client.opensearch.core.ScrollRequest;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index for finding the places closest to a coordinate.
+ *
+ * Only the position, the object type and the ID of each place are kept, in
+ * primitive arrays. The places are sorted into a regular grid of
+ * {@link #CELL_SIZE} degrees. A lookup visits the cells around the requested
+ * location in growing rectangles until it is certain that no closer place
+ * can be found. The complete documents then need to be fetched from the
+ * database by their IDs.
+ *
+ * Distances are great-circle distances like the ones used by the database
+ * for sorting, so that the index finds the same places as a query to the
+ * database.
+ */
+public class ReverseIndex {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(ReverseIndex.class);
+
+    /**
+     * Largest search radius supported by the index. Lookups with a larger
+     * radius may need to visit too many cells and are better left to the database.
+     */
+    public static final double MAX_RADIUS_KM = 100;
+
+    static final double CELL_SIZE = 0.01;
+    private static final int CELLS_X = (int) Math.round(360 / CELL_SIZE);
+    private static final int CELLS_Y = (int) Math.round(180 / CELL_SIZE);
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final double COORDINATE_SCALE = 1e7;
+
+    private static final int PAGE_SIZE = 10000;
+    private static final Time SCROLL_TIMEOUT = Time.of(t -> t.time("5m"));
+    // IDs that can be restored exactly from their numeric encoding.
+    private static final Pattern NUMERIC_ID = Pattern.compile("(0|[1-9]\\d{0,13})(\\.[1-9]\\d{0,3})?");
+    private static final int OBJECT_ID_FACTOR = 10000;
+
+    // Per cell, sorted by cell key. cellStarts has one more entry than cellKeys.
+    private final int[] cellKeys;
+    private final int[] cellStarts;
+
+    // Per place, sorted by cell.
+    private final int[] lats;
+    private final int[] lons;
+    private final byte[] types;
+    private final long[] ids;
+
+    private final String[] typeNames;
+    private final String[] otherIds;
+
+    /**
+     * Create a new index from the given places.
+     *
+     * @param builder Collected places.
+     */
+    ReverseIndex(Builder builder) {
+        final int size = builder.size;
+        typeNames = builder.typeNames.toArray(new String[0]);
+        otherIds = builder.otherIds.toArray(new String[0]);
+
+        // Sort the places by cell: pack cell key and position into a single
+        // value, so that a primitive array can be sorted.
+        final long[] order = new long[size];
+        for (int i = 0; i < size; ++i) {
+            order[i] = ((long) cellKey(builder.lats[i], builder.lons[i]) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        lats = new int[size];
+        lons = new int[size];
+        types = new byte[size];
+        ids = new long[size];
+        final int[] keys = new int[size];
+        final int[] starts = new int[size + 1];
+        int numCells = 0;
+        for (int i = 0; i < size; ++i) {
+            final int key = (int) (order[i] >>> 32);
+            final int pos = (int) order[i];
+            lats[i] = builder.lats[pos];
+            lons[i] = builder.lons[pos];
+            types[i] = builder.types[pos];
+            ids[i] = builder.ids[pos];
+            if (numCells == 0 || keys[numCells - 1] != key) {
+                keys[numCells] = key;
+                starts[numCells] = i;
+                ++numCells;
+            }
+        }
+        starts[numCells] = size;
+
+        cellKeys = Arrays.copyOf(keys, numCells);
+        cellStarts = Arrays.copyOf(starts, numCells + 1);
+    }
+
+    /**
+     * Load the positions of all places from the database and build the index.
+     */
+    public static ReverseIndex load(OpenSearchClient client) throws IOException {
+        LOGGER.info("Loading places for reverse index.");
+        final long start = System.currentTimeMillis();
+        final Builder builder = new Builder();
+
+        var response = client.search(s -> s
+                        .index(PhotonIndex.NAME)
+                        .size(PAGE_SIZE)
+                        .scroll(SCROLL_TIMEOUT)
+                        .source(sc -> sc.filter(f -> f.includes("coordinate", Constants.OBJECT_TYPE)))
+                        .sort(so -> so.doc(d -> d)),
+                OpenSearchResult.class);
+        String scrollId = response.scrollId();
+        List<Hit<OpenSearchResult>> hits = response.hits().hits();
+
+        while (!hits.isEmpty()) {
+            for (var hit : hits) {
+                if (hit.source() != null) {
+                    builder.add(hit.id(), hit.source());
+                }
+            }
+
+            final String currentScrollId = scrollId;
+            final var scrollResponse = client.scroll(ScrollRequest.of(r -> r
+                    .scrollId(currentScrollId)
+                    .scroll(SCROLL_TIMEOUT)), OpenSearchResult.class);
+            scrollId = scrollResponse.scrollId();
+            hits = scrollResponse.hits().hits();
+        }
+
+        if (scrollId != null) {
+            final String currentScrollId = scrollId;
+            client.clearScroll(c -> c.scrollId(currentScrollId));
+        }
+
+        final ReverseIndex index = new ReverseIndex(builder);
+        LOGGER.info("Reverse index ready with {} places in {} cells after {} seconds.",
+                index.size(), index.cellKeys.length, (System.currentTimeMillis() - start) / 1000);
+        return index;
+    }
+
+    public int size() {
+        return lats.length;
+    }
+
+    /**
+     * Find the places closest to the given location.
+     *
+     * @param lon      Longitude of the location.
+     * @param lat      Latitude of the location.
+     * @param radiusKm Maximum distance of the places.
+     * @param limit    Maximum number of places to return.
+     * @param layers   Object types of the places to return. When empty, places of any type are returned.
+     * @return IDs of the places, closest first.
+     */
+    public List<String> nearest(double lon, double lat, double radiusKm, int limit, Set<String> layers) {
+        if (limit <= 0 || lats.length == 0) {
+            return Collections.emptyList();
+        }
+
+        final boolean[] typeAllowed = new boolean[typeNames.length];
+        for (int i = 0; i < typeNames.length; ++i) {
+            typeAllowed[i] = layers.isEmpty() || layers.contains(typeNames[i]);
+        }
+
+        final Candidates candidates = new Candidates(limit);
+        final int cx = cellX(lon);
+        final int cy = cellY(lat);
+        final double cellKm = CELL_SIZE * KM_PER_DEGREE;
+
+        // Visit the cells in growing rectangles around the cell of the
+        // location. Each round only visits the cells added to the rectangle.
+        int prevRy = -1;
+        int prevLeft = -1;
+        int prevRight = -1;
+        for (int ring = 0; ring <= CELLS_Y; ++ring) {
+            final int ry = ring;
+            // The rectangle needs to be wider in longitude to cover the same
+            // distance. Use the latitude closest to the pole for the estimate.
+            final double lonFactor = Math.cos(Math.toRadians(Math.min(89.9, Math.abs(lat) + ring * CELL_SIZE)));
+            final int left = Math.min(CELLS_X / 2, (int) Math.ceil(ring / lonFactor));
+            final int right = Math.min(left, CELLS_X - 1 - left);
+
+            for (int y = Math.max(0, cy - ry); y <= Math.min(CELLS_Y - 1, cy + ry); ++y) {
+                if (Math.abs(y - cy) > prevRy) {
+                    visitRange(y, cx - left, cx + right, lon, lat, radiusKm, typeAllowed, candidates);
+                } else {
+                    visitRange(y, cx - left, cx - prevLeft - 1, lon, lat, radiusKm, typeAllowed, candidates);
+                    visitRange(y, cx + prevRight + 1, cx + right, lon, lat, radiusKm, typeAllowed, candidates);
+                }
+            }
+            prevRy = ry;
+            prevLeft = left;
+            prevRight = right;
+
+            // All places outside the visited rectangle are at least this far away.
+            // Leave a small margin because great circles are shorter than the
+            // distance along a parallel.
+            final double coveredKm = ring * cellKm * 0.99;
+            if (coveredKm >= radiusKm || (candidates.isFull() && candidates.worstDistance() <= coveredKm)) {
+                break;
+            }
+        }
+
+        return candidates.sortedIds(this);
+    }
+
+    /**
+     * Offer all places in the cells from x0 to x1 of the given row.
+     * The range may wrap around the antimeridian.
+     */
+    private void visitRange(int y, int x0, int x1, double lon, double lat, double radiusKm,
+                            boolean[] typeAllowed, Candidates candidates) {
+        if (x0 > x1) {
+            return;
+        }
+        if (x0 < 0) {
+            visitRange(y, x0 + CELLS_X, CELLS_X - 1, lon, lat, radiusKm, typeAllowed, candidates);
+            visitRange(y, 0, x1, lon, lat, radiusKm, typeAllowed, candidates);
+            return;
+        }
+        if (x1 >= CELLS_X) {
+            visitRange(y, x0, CELLS_X - 1, lon, lat, radiusKm, typeAllowed, candidates);
+            visitRange(y, 0, x1 - CELLS_X, lon, lat, radiusKm, typeAllowed, candidates);
+            return;
+        }
+
+        // Cells of a row have consecutive keys, so only the first one needs to be searched.
+        final int lastKey = y * CELLS_X + x1;
+        int cell = Arrays.binarySearch(cellKeys, y * CELLS_X + x0);
+        if (cell < 0) {
+            cell = -cell - 1;
+        }
+
+        for (; cell < cellKeys.length && cellKeys[cell] <= lastKey; ++cell) {
+            for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; ++i) {
+                if (typeAllowed[types[i]]) {
+                    final double distance = distanceKm(lon, lat, lons[i] / COORDINATE_SCALE, lats[i] / COORDINATE_SCALE);
+                    if (distance <= radiusKm) {
+                        candidates.offer(i, distance);
+                    }
+                }
+            }
+        }
+    }
+
+    private String getId(int place) {
+        final long id = ids[place];
+        if (id < 0) {
+            return otherIds[(int) (-id - 1)];
+        }
+
+        final long objectId = id % OBJECT_ID_FACTOR;
+        return objectId == 0 ? Long.toString(id / OBJECT_ID_FACTOR) : (id / OBJECT_ID_FACTOR) + "." + objectId;
+    }
+
+    static double distanceKm(double lon1, double lat1, double lon2, double lat2) {
+        final double dLat = Math.toRadians(lat2 - lat1);
+        final double dLon = Math.toRadians(lon2 - lon1);
+        final double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int cellX(double lon) {
+        return Math.floorMod((int) Math.floor((lon + 180) / CELL_SIZE), CELLS_X);
+    }
+
+    private static int cellY(double lat) {
+        return Math.max(0, Math.min(CELLS_Y - 1, (int) Math.floor((lat + 90) / CELL_SIZE)));
+    }
+
+    private static int cellKey(int lat, int lon) {
+        return cellY(lat / COORDINATE_SCALE) * CELLS_X + cellX(lon / COORDINATE_SCALE);
+    }
+
+    /**
+     * Collects the places for a new index.
+     */
+    static class Builder {
+        private int size = 0;
+        private int[] lats = new int[1024];
+        private int[] lons = new int[1024];
+        private byte[] types = new byte[1024];
+        private long[] ids = new long[1024];
+        private final List<String> typeNames = new ArrayList<>();
+        private final List<String> otherIds = new ArrayList<>();
+
+        /**
+         * Add a place. Places without a position are ignored.
+         */
+        Builder add(String id, PhotonResult place) {
+            final double[] coordinates = place.getCoordinates();
+            if (coordinates == PhotonResult.INVALID_COORDINATES
+                    || Double.isNaN(coordinates[0]) || Double.isNaN(coordinates[1])) {
+                return this;
+            }
+
+            if (size == lats.length) {
+                final int newSize = size * 2;
+                lats = Arrays.copyOf(lats, newSize);
+                lons = Arrays.copyOf(lons, newSize);
+                types = Arrays.copyOf(types, newSize);
+                ids = Arrays.copyOf(ids, newSize);
+            }
+
+            lons[size] = (int) Math.round(coordinates[0] * COORDINATE_SCALE);
+            lats[size] = (int) Math.round(coordinates[1] * COORDINATE_SCALE);
+            types[size] = typeIndex((String) place.get(Constants.OBJECT_TYPE));
+            ids[size] = encodeId(id);
+            ++size;
+
+            return this;
+        }
+
+        private byte typeIndex(String type) {
+            final String name = type == null ? "other" : type;
+            int index = typeNames.indexOf(name);
+            if (index < 0) {
+                if (typeNames.size() == Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Too many object types for reverse index.");
+                }
+                typeNames.add(name);
+                index = typeNames.size() - 1;
+            }
+            return (byte) index;
+        }
+
+        /**
+         * Encode the ID of a place as a number. Photon creates IDs from the
+         * place ID and an optional object ID for additional house numbers,
+         * see PhotonDoc.makeUid(). Other IDs are kept as strings.
+         */
+        private long encodeId(String id) {
+            if (NUMERIC_ID.matcher(id).matches()) {
+                final int dot = id.indexOf('.');
+                if (dot < 0) {
+                    return Long.parseLong(id) * OBJECT_ID_FACTOR;
+                }
+                return Long.parseLong(id.substring(0, dot)) * OBJECT_ID_FACTOR + Long.parseLong(id.substring(dot + 1));
+            }
+
+            otherIds.add(id);
+            return -otherIds.size();
+        }
+    }
+
+    /**
+     * Bounded list of the closest places found so far.
+     */
+    private static class Candidates {
+        private final int[] places;
+        private final double[] distances;
+        private int size = 0;
+
+        Candidates(int limit) {
+            places = new int[limit];
+            distances = new double[limit];
+        }
+
+        boolean isFull() {
+            return size == places.length;
+        }
+
+        double worstDistance() {
+            return distances[size - 1];
+        }
+
+        void offer(int place, double distance) {
+            if (isFull() && distance >= worstDistance()) {
+                return;
+            }
+
+            // Insertion sort, the number of results is small.
+            int pos = isFull() ? size - 1 : size++;
+            while (pos > 0 && distances[pos - 1] > distance) {
+                places[pos] = places[pos - 1];
+                distances[pos] = distances[pos - 1];
+                --pos;
+            }
+            places[pos] = place;
+            distances[pos] = distance;
+        }
+
+        List<String> sortedIds(ReverseIndex index) {
+            final List<String> result = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                result.add(index.getId(places[i]));
+            }
+            return result;
+        }
+    }
+}
@@ -16,14 +16,33 @@ import java.util.*;
 public class SearchQueryBuilder {
     private static final String[] ALT_NAMES = new String[]{"alt", "int", "loc", "old", "reg", "housename"};
 
+    // Query-independent parts of the query, which can be shared between requests.
+    private static final FunctionScore IMPORTANCE_FUNCTION = FunctionScore.of(fn -> fn
+            .linear(df -> df
+                    .field("importance")
+                    .placement(p -> p
+                            .origin(JsonData.of(1.0))
+                            .scale(JsonData.of(0.6))
+                            .decay(0.5))));
+    private static final Query NO_HOUSENUMBER_QUERY = BoolQuery.of(q -> q
+            .mustNot(mn -> mn.exists(ex -> ex.field("housenumber")))).toQuery();
+    static final Query EXCLUDE_PROPERTY_DOCUMENT_QUERY = BoolQuery.of(q -> q
+            .mustNot(n -> n.ids(i -> i.values(PhotonIndex.PROPERTY_DOCUMENT_ID)))).toQuery();
+
     private ObjectBuilder<Query> finalQueryWithoutTagFilterBuilder;
     private BoolQuery.Builder queryBuilderForTopLevelFilter;
     private OsmTagFilter osmTagFilter = new OsmTagFilter();
     private GeoBoundingBoxQuery.Builder bboxQueryBuilder;
     private TermsQuery.Builder layerQueryBuilder;
+    private List<Query> filters = null;
     private Query finalQuery = null;
 
     public SearchQueryBuilder(String query, String language, String[] languages, boolean lenient) {
+        this(query, language, new SearchQueryParts(languages), lenient);
+    }
+
+    public SearchQueryBuilder(String query, String language, SearchQueryParts parts, boolean lenient) {
+        final var fields = parts.forLanguage(language);
         var query4QueryBuilder = QueryBuilders.bool();
 
         // 1. All terms of the query must be contained in the place record somehow. Be more lenient on second try.
@@ -47,11 +66,7 @@ public class SearchQueryBuilder {
         query4QueryBuilder.should(shd -> shd.functionScore(fs -> fs
                 .query(q -> q.multiMatch(mm -> {
                     mm.query(query).type(TextQueryType.BestFields).analyzer("search");
-                    mm.fields(String.format(Locale.ROOT, "%s^%f", "collector.default", 1.0f));
-
-                    for (String lang : languages) {
-                        mm.fields(String.format(Locale.ROOT, "collector.%s^%f", lang, lang.equals(language) ? 1.0f : 0.6f));
-                    }
+                    mm.fields(fields.getCollectorFields());
 
                     return mm.boost(0.3f);
                 }))
@@ -65,7 +80,6 @@ public class SearchQueryBuilder {
         ));
 
         // 3. Either the name or house number must be in the query terms.
-        final String defLang = "default".equals(language) ? languages[0] : language;
         var nameNgramQuery = MultiMatchQuery.of(q -> {
             q.query(query).type(TextQueryType.BestFields).analyzer("search");
 
@@ -73,11 +87,7 @@ public class SearchQueryBuilder {
                 q.fuzziness("AUTO").prefixLength(2);
             }
 
-            for (String lang : languages) {
-                q.fields(String.format(Locale.ROOT, "name.%s.ngrams^%f", lang, lang.equals(defLang) ? 1.0f : 0.4f));
-            }
-
-            q.fields("name.other^0.4");
+            q.fields(fields.getNgramFields());
 
             if (query.indexOf(',') < 0 && query.indexOf(' ') < 0) {
                 q.boost(2f);
@@ -108,7 +118,7 @@ public class SearchQueryBuilder {
         // 4. Rerank results for having the full name in the default language.
         query4QueryBuilder.should(m -> m.match(inner -> inner
                 .query(q -> q.stringValue(query))
-                .field(String.format("name.%s.raw", language))
+                .field(fields.getRawNameField())
                 .analyzer("search")
                 .fuzziness(lenient ? "auto" : "0")
         ));
@@ -117,13 +127,7 @@ public class SearchQueryBuilder {
         // never drops to 0 and cancels out the ES score.
         finalQueryWithoutTagFilterBuilder = new Query.Builder().functionScore(fs -> fs
                 .query(query4QueryBuilder.build().toQuery())
-                .functions(fn1 -> fn1
-                        .linear(df1 -> df1
-                                .field("importance")
-                                .placement(p1 -> p1
-                                        .origin(JsonData.of(1.0))
-                                        .scale(JsonData.of(0.6))
-                                        .decay(0.5))))
+                .functions(IMPORTANCE_FUNCTION)
                 .functions(fn2 -> fn2
                         .filter(flt -> flt
                                 .match(m -> m
@@ -135,14 +139,13 @@ public class SearchQueryBuilder {
 
         // Filter for later: records that have a house number and no name must only appear when the house number matches.
         queryBuilderForTopLevelFilter = QueryBuilders.bool()
-                .should(q1 -> q1.bool(qin -> qin
-                        .mustNot(mn -> mn.exists(ex -> ex.field("housenumber")))))
+                .should(NO_HOUSENUMBER_QUERY)
                 .should(q2 -> q2.match(m2 -> m2
                         .query(iq -> iq.stringValue(query))
                         .field("housenumber")
                         .analyzer("standard")))
                 .should(q3 -> q3.exists(ex2 -> ex2
-                        .field(String.format("name.%s.raw", language))));
+                        .field(fields.getRawNameField())));
     }
 
     public SearchQueryBuilder(StructuredPhotonRequest request, String language, String[] languages, boolean lenient)
@@ -249,6 +252,31 @@ public class SearchQueryBuilder {
         return this;
     }
 
+    /**
+     * Get the filters restricting the results that were requested with the
+     * with...() functions. These are part of the query returned by buildQuery().
+     */
+    public List<Query> buildFilters() {
+        if (filters == null) {
+            filters = new ArrayList<>();
+
+            final var tagFilters = osmTagFilter.build();
+            if (tagFilters != null) {
+                filters.add(tagFilters);
+            }
+
+            if (bboxQueryBuilder != null) {
+                filters.add(bboxQueryBuilder.build().toQuery());
+            }
+
+            if (layerQueryBuilder != null) {
+                filters.add(layerQueryBuilder.build().toQuery());
+            }
+        }
+
+        return filters;
+    }
+
     public Query buildQuery() {
         if (finalQuery == null) {
             finalQuery = BoolQuery.of(q -> {
@@ -257,21 +285,10 @@ public class SearchQueryBuilder {
                     q.filter(queryBuilderForTopLevelFilter.build().toQuery());
                 }
 
-                q.filter(f -> f.bool(fb -> fb
-                        .mustNot(n -> n.ids(i -> i.values(PhotonIndex.PROPERTY_DOCUMENT_ID)))
-                ));
-
-                final var tagFilters = osmTagFilter.build();
-                if (tagFilters != null) {
-                    q.filter(tagFilters);
-                }
-
-                if (bboxQueryBuilder != null) {
-                    q.filter(bboxQueryBuilder.build().toQuery());
-                }
+                q.filter(EXCLUDE_PROPERTY_DOCUMENT_QUERY);
 
-                if (layerQueryBuilder != null) {
-                    q.filter(layerQueryBuilder.build().toQuery());
+                for (Query filter : buildFilters()) {
+                    q.filter(filter);
                 }
 
                 return q;
@@ -0,0 +1,80 @@
+package de.komoot.photon.opensearch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parts of the forward search query that only depend on the languages.
+ *
+ * The field lists with their boosts are the same for every request in a given
+ * language, so they are computed once per search handler and shared between
+ * all queries built by {@link SearchQueryBuilder}.
+ */
+public class SearchQueryParts {
+    private final String[] languages;
+    private final Map<String, LanguageFields> fields = new HashMap<>();
+
+    public SearchQueryParts(String[] languages) {
+        this.languages = languages;
+        fields.put("default", new LanguageFields("default"));
+        for (String lang : languages) {
+            fields.put(lang, new LanguageFields(lang));
+        }
+    }
+
+    public String[] getLanguages() {
+        return languages;
+    }
+
+    /**
+     * Get the precomputed fields for the given request language.
+     */
+    public LanguageFields forLanguage(String language) {
+        final LanguageFields langFields = fields.get(language);
+        return langFields == null ? new LanguageFields(language) : langFields;
+    }
+
+    /**
+     * Fields to search for a single request language.
+     */
+    public final class LanguageFields {
+        private final List<String> collectorFields;
+        private final List<String> ngramFields;
+        private final String rawNameField;
+
+        private LanguageFields(String language) {
+            final List<String> collector = new ArrayList<>(languages.length + 1);
+            collector.add(String.format(Locale.ROOT, "%s^%f", "collector.default", 1.0f));
+            for (String lang : languages) {
+                collector.add(String.format(Locale.ROOT, "collector.%s^%f", lang, lang.equals(language) ? 1.0f : 0.6f));
+            }
+            collectorFields = Collections.unmodifiableList(collector);
+
+            final String defLang = "default".equals(language) ? languages[0] : language;
+            final List<String> ngrams = new ArrayList<>(languages.length + 1);
+            for (String lang : languages) {
+                ngrams.add(String.format(Locale.ROOT, "name.%s.ngrams^%f", lang, lang.equals(defLang) ? 1.0f : 0.4f));
+            }
+            ngrams.add("name.other^0.4");
+            ngramFields = Collections.unmodifiableList(ngrams);
+
+            rawNameField = String.format("name.%s.raw", language);
+        }
+
+        public List<String> getCollectorFields() {
+            return collectorFields;
+        }
+
+        public List<String> getNgramFields() {
+            return ngramFields;
+        }
+
+        public String getRawNameField() {
+            return rawNameField;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package de.komoot.photon.opensearch;
+
+import jakarta.json.stream.JsonGenerator;
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.json.JsonpMapper;
+import org.opensearch.client.json.JsonpSerializable;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchTemplateRequest;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stored search templates for the forward search query.
+ *
+ * The language-dependent query is rendered once for every supported language
+ * and registered as a mustache template in the database. Search requests then
+ * only need to send the query string, the result size and the additional
+ * filters as template parameters.
+ *
+ * Templates are registered under an ID that contains a hash of their source,
+ * so that Photon instances with different versions or languages can share a
+ * database, also while one of them is being upgraded. Templates are never
+ * removed automatically, because other instances may still use them.
+ */
+public class SearchTemplates {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(SearchTemplates.class);
+
+    private static final String ID_PREFIX = "photon-search-";
+    // Stand-ins for the query string while rendering the template. The query
+    // structure differs for single words and phrases, so there is one of each.
+    private static final String WORD_PLACEHOLDER = "__photon_query__";
+    private static final String PHRASE_PLACEHOLDER = "__photon query__";
+
+    private final Map<String, String> sources = new HashMap<>();
+    private final JsonpMapper mapper;
+
+    /**
+     * Render the templates for all languages.
+     *
+     * @param mapper       Mapper for serializing the query.
+     * @param parts        Language-dependent parts of the search query.
+     * @param queryTimeout Timeout for the search, as an OpenSearch time value.
+     */
+    public SearchTemplates(JsonpMapper mapper, SearchQueryParts parts, String queryTimeout) {
+        this.mapper = mapper;
+        final List<String> languages = new ArrayList<>(List.of(parts.getLanguages()));
+        languages.add("default");
+        for (String language : languages) {
+            for (boolean lenient : new boolean[]{false, true}) {
+                for (boolean phrase : new boolean[]{false, true}) {
+                    sources.put(templateKey(language, lenient, phrase),
+                            renderTemplate(parts, language, lenient, phrase, queryTimeout));
+                }
+            }
+        }
+    }
+
+    /**
+     * Register all templates with the database.
+     */
+    public SearchTemplates register(OpenSearchClient client) throws IOException {
+        for (var entry : sources.entrySet()) {
+            final String id = templateId(entry.getKey(), entry.getValue());
+            client.putScript(p -> p.id(id).script(s -> s.lang("mustache").source(entry.getValue())));
+        }
+        LOGGER.info("Registered {} search templates.", sources.size());
+        return this;
+    }
+
+    /**
+     * Create a search request that runs the stored template for the given query.
+     *
+     * @param query    The query string.
+     * @param language Language of the request, must be one of the supported languages.
+     * @param lenient  When true, use the typo-tolerant variant of the query.
+     * @param filters  Additional filters restricting the results.
+     * @param limit    Maximum number of results.
+     */
+    public SearchTemplateRequest makeRequest(String query, String language, boolean lenient, List<Query> filters, int limit) {
+        final String key = templateKey(language, lenient, isPhrase(query));
+        final String source = sources.get(key);
+        if (source == null) {
+            throw new IllegalArgumentException("No search template for language " + language);
+        }
+
+        final StringBuilder filterJson = new StringBuilder("[");
+        for (Query filter : filters) {
+            if (filterJson.length() > 1) {
+                filterJson.append(',');
+            }
+            filterJson.append(toJson(mapper, filter));
+        }
+        filterJson.append(']');
+
+        return SearchTemplateRequest.of(s -> s
+                .index(PhotonIndex.NAME)
+                .id(templateId(key, source))
+                .params("query", JsonData.of(query))
+                .params("size", JsonData.of(limit))
+                .params("filters", JsonData.of(filterJson.toString())));
+    }
+
+    private String renderTemplate(SearchQueryParts parts, String language, boolean lenient, boolean phrase,
+                                  String queryTimeout) {
+        final String placeholder = phrase ? PHRASE_PLACEHOLDER : WORD_PLACEHOLDER;
+        final Query query = new SearchQueryBuilder(placeholder, language, parts, lenient).buildQuery();
+        final String queryJson = toJson(mapper, query)
+                .replace('"' + placeholder + '"', "{{#toJson}}query{{/toJson}}");
+
+        // The filters are inserted unescaped, they are serialized queries.
+        return "{\"size\":{{size}},\"timeout\":\"" + queryTimeout + "\","
+                + "\"_source\":" + toJson(mapper, ResultSource.forLanguage(language)) + ","
+                + "\"query\":{\"bool\":{"
+                + "\"must\":[" + queryJson + "],"
+                + "\"filter\":{{{filters}}}}}}";
+    }
+
+    /**
+     * Create the ID of a template. The hash of the source makes sure that
+     * differing templates of different versions never share an ID.
+     */
+    static String templateId(String key, String source) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        final StringBuilder id = new StringBuilder(ID_PREFIX).append(key).append('-');
+        for (int i = 0; i < 8; ++i) {
+            id.append(String.format("%02x", hash[i]));
+        }
+        return id.toString();
+    }
+
+    private static String templateKey(String language, boolean lenient, boolean phrase) {
+        return language + (lenient ? "-lenient" : "-strict") + (phrase ? "-phrase" : "-word");
+    }
+
+    /**
+     * Same criterion as in {@link SearchQueryBuilder} for choosing the query structure.
+     */
+    private static boolean isPhrase(String query) {
+        return query.indexOf(',') >= 0 || query.indexOf(' ') >= 0;
+    }
+
+    static String toJson(JsonpMapper mapper, JsonpSerializable value) {
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = mapper.jsonProvider().createGenerator(writer)) {
+            value.serialize(generator, mapper);
+        }
+        return writer.toString();
+    }
+}
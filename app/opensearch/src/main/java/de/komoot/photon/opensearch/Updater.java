@@ -1,6 +1,7 @@
 package de.komoot.photon.opensearch;
 
 import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.metrics.ImportMetrics;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch.core.BulkRequest;
 import org.slf4j.Logger;
@@ -62,14 +63,19 @@ public class Updater implements de.komoot.photon.Updater {
             return;
         }
 
+        final long startNanos = System.nanoTime();
         try {
             var response = client.bulk(bulkRequest.build());
 
+            int failures = 0;
             if (response.errors()) {
                 LOGGER.error("Errors during bulk update.");
+                failures = (int) response.items().stream().filter(item -> item.error() != null).count();
             }
+            ImportMetrics.bulkFinished(ImportMetrics.UPDATE, startNanos, failures);
         } catch (IOException e) {
             LOGGER.error("IO error during bulk update", e);
+            ImportMetrics.bulkFinished(ImportMetrics.UPDATE, startNanos, todoDocuments);
         }
 
         bulkRequest = new BulkRequest.Builder();
@@ -0,0 +1,135 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.ESBaseTester;
+import de.komoot.photon.Importer;
+import de.komoot.photon.Updater;
+import de.komoot.photon.query.ReverseRequest;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.ReloadableReverseHandler;
+import de.komoot.photon.searcher.ReverseHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedReverseHandlerTest extends ESBaseTester {
+    @TempDir
+    private static Path instanceTestDirectory;
+
+    private final List<ReverseRequest> delegated = new ArrayList<>();
+    private ReloadableReverseHandler handler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        setUpES(instanceTestDirectory, "en");
+        Importer instance = makeImporter();
+        instance.add(createDoc(13.4000, 52.5000, 1, 1, "building", "yes"), 0);
+        instance.add(createDoc(13.4010, 52.5000, 2, 2, "building", "yes"), 0);
+        instance.add(createDoc(13.4500, 52.5200, 3, 3, "place", "city").rankAddress(16), 0);
+        instance.finish();
+        refresh();
+
+        delegated.clear();
+        final ReverseHandler database = new ReverseHandler() {
+            @Override
+            public List<PhotonResult> reverse(ReverseRequest request) {
+                delegated.add(request);
+                return Collections.emptyList();
+            }
+
+            @Override
+            public String dumpQuery(ReverseRequest request) {
+                return "{}";
+            }
+        };
+        handler = getServer().createIndexedReverseHandler(database, 10, 0);
+    }
+
+    private ReverseRequest request(double radius, Set<String> layers, String queryStringFilter) {
+        return new ReverseRequest(FACTORY.createPoint(new Coordinate(13.4001, 52.5000)), "en", radius,
+                queryStringFilter, 2, true, layers, false);
+    }
+
+    private ReverseRequest request() {
+        return request(1, Set.of(), null);
+    }
+
+    private static List<Long> osmIds(List<PhotonResult> results) {
+        return results.stream()
+                .map(r -> ((Number) r.get("osm_id")).longValue())
+                .collect(Collectors.toList());
+    }
+
+    private void deletePlace(long placeId) throws IOException {
+        Updater updater = makeUpdater();
+        updater.delete(placeId, 0);
+        updater.finish();
+        refresh();
+    }
+
+    @Test
+    void testAnswersFromIndex() {
+        assertEquals(List.of(1L, 2L), osmIds(handler.reverse(request())));
+        assertEquals(List.of(1L, 2L), osmIds(handler.reverseAsync(request()).join()));
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)),
+                     handler.reverseBatch(List.of(request(), request(10, Set.of("city"), null)))
+                             .stream().map(IndexedReverseHandlerTest::osmIds).collect(Collectors.toList()));
+
+        assertTrue(delegated.isEmpty());
+    }
+
+    @Test
+    void testLayersFromIndex() {
+        assertEquals(List.of(3L), osmIds(handler.reverse(request(10, Set.of("city"), null))));
+        assertTrue(handler.reverse(request(10, Set.of("state"), null)).isEmpty());
+
+        assertTrue(delegated.isEmpty());
+    }
+
+    @Test
+    void testUnsupportedRequestsArePassedOn() {
+        final ReverseRequest withQueryString = request(1, Set.of(), "name:berlin");
+        final ReverseRequest withDebug = new ReverseRequest(FACTORY.createPoint(new Coordinate(13.4001, 52.5000)),
+                "en", 1, null, 2, true, Set.of(), true);
+        final ReverseRequest withLargeRadius = request(ReverseIndex.MAX_RADIUS_KM + 1, Set.of(), null);
+
+        handler.reverse(withQueryString);
+        handler.reverseAsync(withDebug).join();
+        handler.reverseBatch(List.of(request(), withLargeRadius));
+
+        assertEquals(List.of(withQueryString, withDebug, withLargeRadius), delegated);
+    }
+
+    @Test
+    void testOutdatedIndexFallsBackToDatabase() throws IOException {
+        deletePlace(1);
+
+        assertTrue(handler.reverse(request()).isEmpty());
+        assertTrue(handler.reverseAsync(request()).join().isEmpty());
+        final ReverseRequest city = request(10, Set.of("city"), null);
+        final List<List<PhotonResult>> batch = handler.reverseBatch(List.of(request(), city));
+
+        assertEquals(3, delegated.size());
+        assertTrue(batch.get(0).isEmpty());
+        assertEquals(List.of(3L), osmIds(batch.get(1)));
+    }
+
+    @Test
+    void testReload() throws IOException {
+        deletePlace(1);
+        handler.reload().join();
+
+        assertEquals(List.of(2L, 3L), osmIds(handler.reverse(request(10, Set.of(), null))));
+        assertTrue(delegated.isEmpty());
+    }
+}
@@ -0,0 +1,52 @@
+package de.komoot.photon.opensearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenSearchResultDeserializerTest {
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(
+            new SimpleModule().addDeserializer(OpenSearchResult.class, new OpenSearchResultDeserializer()));
+
+    private OpenSearchResult parse(String json) throws IOException {
+        return mapper.readValue(json, OpenSearchResult.class);
+    }
+
+    @Test
+    void testReadFullDocument() throws IOException {
+        var result = parse("{\"osm_id\": 4294967296, \"osm_type\": \"N\", \"osm_key\": \"place\","
+                + "\"osm_value\": \"city\", \"type\": \"city\", \"importance\": 0.75,"
+                + "\"coordinate\": {\"lat\": 52.5, \"lon\": 13.4},"
+                + "\"name\": {\"default\": \"Berlin\", \"en\": \"Berlin (en)\", \"alt\": \"Spree-Athen\"},"
+                + "\"state\": {\"default\": \"Berlin\"},"
+                + "\"extra\": {\"wikidata\": \"Q64\"},"
+                + "\"extent\": {\"type\": \"envelope\", \"coordinates\": [[13.0, 52.7], [13.8, 52.3]]},"
+                + "\"unknown\": [1, 2, {\"a\": \"b\"}]}");
+
+        assertEquals(4294967296L, result.get("osm_id"));
+        assertEquals("N", result.get("osm_type"));
+        assertEquals(0.75, result.get("importance"));
+        assertArrayEquals(new double[]{13.4, 52.5}, result.getCoordinates());
+        assertArrayEquals(new double[]{13.0, 52.7, 13.8, 52.3}, result.getExtent());
+        assertEquals("Berlin (en)", result.getLocalised("name", "en"));
+        assertEquals("Berlin", result.getLocalised("name", "de"));
+        assertEquals("Berlin", result.getLocalised("state", "en"));
+        assertEquals(Map.of("wikidata", "Q64"), result.getMap("extra"));
+        assertNull(result.get("unknown"));
+    }
+
+    @Test
+    void testNamePrecedence() throws IOException {
+        var result = parse("{\"osm_id\": 1, \"name\": {\"old\": \"Old Name\", \"int\": \"Int Name\"}}");
+
+        assertEquals(1, result.get("osm_id"));
+        assertEquals("Int Name", result.getLocalised("name", "en"));
+        assertNull(result.getLocalised("street", "en"));
+        assertNull(result.getExtent());
+    }
+}
@@ -3,6 +3,7 @@ package de.komoot.photon.opensearch;
 import de.komoot.photon.Server;
 import de.komoot.photon.searcher.PhotonResult;
 import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.common.settings.Settings;
 
 import java.io.IOException;
@@ -49,6 +50,10 @@ public class OpenSearchTestServer extends Server {
         runner.clean();
     }
 
+    public OpenSearchClient getClient() {
+        return client;
+    }
+
     public PhotonResult getByID(String id) {
         try {
             final var response = client.get(fn -> fn
@@ -0,0 +1,69 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.searcher.PhotonResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+
+    private static OpenSearchResult place(String... names) {
+        return new OpenSearchResult(null, new double[]{0, 0}, new HashMap<>(), Map.of("name", names));
+    }
+
+    private static List<String> names(List<PhotonResult> results) {
+        return results.stream().map(r -> r.getLocalised("name", "default")).collect(Collectors.toList());
+    }
+
+    private final PrefixIndex index = new PrefixIndex(List.of(
+            place("default", "Berlin"),
+            place("default", "München", "en", "Munich"),
+            place("default", "Bern"),
+            place("default", "Berlin Hauptbahnhof"),
+            place("default", "Bernau bei Berlin")
+    ), new String[]{"en", "de"});
+
+    @Test
+    void testShortPrefixOrderedByImportance() {
+        assertEquals(List.of("Berlin", "Bern", "Berlin Hauptbahnhof"), names(index.lookup("be", "default", 3)));
+        assertEquals(List.of("Berlin", "Bern", "Berlin Hauptbahnhof", "Bernau bei Berlin"),
+                     names(index.lookup("Ber", "de", 10)));
+    }
+
+    @Test
+    void testLongerPrefixMatchesAnyWord() {
+        assertEquals(List.of("Berlin", "Berlin Hauptbahnhof", "Bernau bei Berlin"),
+                     names(index.lookup("berli", "default", 3)));
+        assertEquals(List.of("Berlin Hauptbahnhof"), names(index.lookup("hauptbahn", "default", 1)));
+    }
+
+    @Test
+    void testDiacriticsAreIgnored() {
+        assertEquals(List.of("München"), names(index.lookup("mun", "de", 1)));
+        assertEquals(List.of("München"), names(index.lookup("MÜNCH", "de", 1)));
+    }
+
+    @Test
+    void testLanguageSpecificNames() {
+        assertEquals(List.of("München"), names(index.lookup("munich", "en", 1)));
+        assertNull(index.lookup("munich", "de", 1));
+        assertEquals(List.of("München"), names(index.lookup("munich", "default", 1)));
+    }
+
+    @Test
+    void testFallbackToDatabase() {
+        // multiple words
+        assertNull(index.lookup("berlin haupt", "default", 1));
+        // incomplete answer for long prefix
+        assertNull(index.lookup("bernau", "default", 2));
+        // unknown prefix
+        assertNull(index.lookup("xy", "default", 1));
+        // unknown language
+        assertNull(index.lookup("be", "fr", 1));
+        // too many results requested
+        assertNull(index.lookup("be", "default", PrefixIndex.MAX_RESULTS + 1));
+    }
+}
@@ -0,0 +1,36 @@
+package de.komoot.photon.opensearch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultSourceTest {
+
+    @Test
+    void testIncludesRequestedLanguage() {
+        var fields = ResultSource.includedFields("de");
+
+        assertTrue(fields.contains("name.de"));
+        assertTrue(fields.contains("name.default"));
+        assertTrue(fields.contains("name.alt"));
+        assertTrue(fields.contains("street.de"));
+        assertTrue(fields.contains("street.default"));
+        assertTrue(fields.contains("coordinate"));
+        assertTrue(fields.contains("extra"));
+        assertFalse(fields.contains("name.en"));
+        assertFalse(fields.contains("classification"));
+    }
+
+    @Test
+    void testDefaultLanguage() {
+        var fields = ResultSource.includedFields("default");
+
+        assertTrue(fields.contains("city.default"));
+        assertEquals(fields.size(), fields.stream().distinct().count());
+    }
+
+    @Test
+    void testConfigIsShared() {
+        assertSame(ResultSource.forLanguage("en"), ResultSource.forLanguage("en"));
+    }
+}
@@ -0,0 +1,65 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.searcher.PhotonResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReverseIndexTest {
+
+    private static OpenSearchResult place(String type, double lon, double lat) {
+        return new OpenSearchResult(null, new double[]{lon, lat}, new HashMap<>(Map.of("type", type)), new HashMap<>());
+    }
+
+    private final ReverseIndex index = new ReverseIndex(new ReverseIndex.Builder()
+            .add("1", place("house", 13.4000, 52.5000))
+            .add("2", place("house", 13.4010, 52.5000))
+            .add("3", place("street", 13.4100, 52.5000))
+            .add("4.2", place("house", 13.4002, 52.5001))
+            .add("5", place("city", 13.4500, 52.5200))
+            .add("osm-7", place("house", 13.3999, 52.4999))
+            .add("6", new OpenSearchResult(null, PhotonResult.INVALID_COORDINATES, new HashMap<>(), new HashMap<>()))
+            .add("10", place("house", 179.9995, 0.0))
+            .add("11", place("house", -179.9995, 0.0)));
+
+    @Test
+    void testIgnoresPlacesWithoutPosition() {
+        assertEquals(8, index.size());
+    }
+
+    @Test
+    void testNearestOrderedByDistance() {
+        assertEquals(List.of("osm-7", "1", "4.2", "2"),
+                     index.nearest(13.4000, 52.5000, 1, 4, Set.of()));
+        assertEquals(List.of("3", "2"),
+                     index.nearest(13.4090, 52.5000, 1, 2, Set.of()));
+    }
+
+    @Test
+    void testRadius() {
+        assertEquals(List.of("5"), index.nearest(13.4500, 52.5200, 0.5, 10, Set.of()));
+        assertEquals(6, index.nearest(13.4500, 52.5200, 10, 10, Set.of()).size());
+        assertTrue(index.nearest(0, 0, 100, 10, Set.of()).isEmpty());
+    }
+
+    @Test
+    void testLayers() {
+        assertEquals(List.of("3", "5"), index.nearest(13.4000, 52.5000, 10, 10, Set.of("street", "city")));
+        assertTrue(index.nearest(13.4000, 52.5000, 10, 10, Set.of("state")).isEmpty());
+    }
+
+    @Test
+    void testAcrossAntimeridian() {
+        assertEquals(List.of("10", "11"), index.nearest(179.9999, 0.0, 1, 2, Set.of()));
+        assertEquals(List.of("11", "10"), index.nearest(-179.9999, 0.0, 1, 2, Set.of()));
+    }
+
+    @Test
+    void testDistance() {
+        assertEquals(0, ReverseIndex.distanceKm(13.4, 52.5, 13.4, 52.5), 1e-9);
+        assertEquals(111.2, ReverseIndex.distanceKm(0, 0, 0, 1), 0.1);
+        assertEquals(111.2, ReverseIndex.distanceKm(179.5, 0, -179.5, 0), 0.1);
+    }
+}
@@ -0,0 +1,119 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.ESBaseTester;
+import de.komoot.photon.Importer;
+import de.komoot.photon.query.ReverseRequest;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.ReverseHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Point;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.SortOrder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that expanding the radius in several rounds finds the same places
+ * as a single query with the full radius.
+ */
+class ReverseRadiusExpansionTest extends ESBaseTester {
+    @TempDir
+    private static Path instanceTestDirectory;
+
+    private static final double CENTER_LON = 13.4;
+    private static final double CENTER_LAT = 52.5;
+    // Distances of the places from the center in km.
+    private static final double[] DISTANCES = {0.05, 0.3, 0.8, 2, 5, 12};
+    private static final double RADIUS = 10;
+
+    private ReverseHandler handler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        setUpES(instanceTestDirectory, "en");
+        Importer instance = makeImporter();
+        // One degree of longitude is about 67.7 km at this latitude.
+        for (int i = 0; i < DISTANCES.length; ++i) {
+            instance.add(createDoc(CENTER_LON + DISTANCES[i] / 67.7, CENTER_LAT, i + 1, i + 1, "building", "yes"), 0);
+        }
+        instance.finish();
+        refresh();
+
+        handler = getServer().createReverseHandler(10);
+    }
+
+    private ReverseRequest request(int limit) {
+        return new ReverseRequest(FACTORY.createPoint(new Coordinate(CENTER_LON, CENTER_LAT)), "en", RADIUS, null,
+                limit, true, new HashSet<>(), false);
+    }
+
+    private static List<Long> osmIds(List<PhotonResult> results) {
+        return results.stream()
+                .map(r -> ((Number) r.get("osm_id")).longValue())
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> fullRadiusSearch(ReverseRequest request) throws IOException {
+        final OpenSearchClient client = ((OpenSearchTestServer) getServer()).getClient();
+        final Point location = request.getLocation();
+
+        final var response = client.search(s -> s
+                        .index(PhotonIndex.NAME)
+                        .query(new ReverseQueryBuilder(location, request.getRadius(), null, request.getLayerFilters())
+                                .buildQuery())
+                        .size(request.getLimit())
+                        .sort(so -> so.geoDistance(gd -> gd
+                                .field("coordinate")
+                                .location(l -> l.latlon(ll -> ll.lat(location.getY()).lon(location.getX())))
+                                .order(SortOrder.Asc))),
+                OpenSearchResult.class);
+
+        final List<PhotonResult> results = new ArrayList<>();
+        for (var hit : response.hits().hits()) {
+            results.add(hit.source());
+        }
+        return osmIds(results);
+    }
+
+    @Test
+    void testSameResultsAsFullRadius() throws IOException {
+        final List<ReverseRequest> batch = new ArrayList<>();
+        for (int limit = 1; limit <= DISTANCES.length; ++limit) {
+            final ReverseRequest request = request(limit);
+            final List<Long> expected = fullRadiusSearch(request);
+
+            assertEquals(Math.min(limit, DISTANCES.length - 1), expected.size());
+            assertEquals(expected, osmIds(handler.reverse(request)), "sync, limit " + limit);
+            assertEquals(expected, osmIds(handler.reverseAsync(request).join()), "async, limit " + limit);
+            batch.add(request);
+        }
+
+        final List<List<PhotonResult>> batchResults = handler.reverseBatch(batch);
+        for (int i = 0; i < batch.size(); ++i) {
+            assertEquals(fullRadiusSearch(batch.get(i)), osmIds(batchResults.get(i)), "batch, limit " + (i + 1));
+        }
+    }
+
+    @Test
+    void testDumpContainsAllRounds() {
+        final JSONArray rounds = new JSONObject(handler.dumpQuery(request(3))).getJSONArray("rounds");
+        final double[] radii = OpenSearchReverseHandler.radiusSteps(request(3));
+
+        assertEquals(radii.length, rounds.length());
+        for (int i = 0; i < radii.length; ++i) {
+            assertTrue(rounds.getJSONObject(i).toString().contains("\"" + radii[i] + "km\""), "radius " + radii[i]);
+        }
+    }
+}
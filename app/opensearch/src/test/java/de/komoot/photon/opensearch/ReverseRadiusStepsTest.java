@@ -0,0 +1,46 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.query.ReverseRequest;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReverseRadiusStepsTest {
+    private static final GeometryFactory FACTORY = new GeometryFactory(new PrecisionModel(), 4326);
+
+    private static double[] steps(double radius, boolean distanceSort) {
+        return OpenSearchReverseHandler.radiusSteps(new ReverseRequest(
+                FACTORY.createPoint(new Coordinate(13.4, 52.5)), "en", radius, null, 1,
+                distanceSort, new HashSet<>(), false));
+    }
+
+    @Test
+    void testExpandsUpToRequestRadius() {
+        assertArrayEquals(new double[]{0.1, 0.4, 1.0}, steps(1.0, true), 1e-9);
+    }
+
+    @Test
+    void testNumberOfRoundsIsLimited() {
+        final double[] radii = steps(5000, true);
+
+        assertEquals(OpenSearchReverseHandler.MAX_ROUNDS, radii.length);
+        assertEquals(OpenSearchReverseHandler.INITIAL_RADIUS_KM, radii[0]);
+        assertEquals(5000, radii[radii.length - 1]);
+    }
+
+    @Test
+    void testSmallRadiusUsedDirectly() {
+        assertArrayEquals(new double[]{0.05}, steps(0.05, true));
+        assertArrayEquals(new double[]{0.1}, steps(0.1, true));
+    }
+
+    @Test
+    void testNoExpansionWithoutDistanceSort() {
+        assertArrayEquals(new double[]{10}, steps(10, false));
+    }
+}
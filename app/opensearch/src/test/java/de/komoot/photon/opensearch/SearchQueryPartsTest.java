@@ -0,0 +1,38 @@
+package de.komoot.photon.opensearch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchQueryPartsTest {
+    private final SearchQueryParts parts = new SearchQueryParts(new String[]{"en", "de"});
+
+    @Test
+    void testFieldsForLanguage() {
+        var fields = parts.forLanguage("de");
+
+        assertEquals(List.of("collector.default^1.000000", "collector.en^0.600000", "collector.de^1.000000"),
+                     fields.getCollectorFields());
+        assertEquals(List.of("name.en.ngrams^0.400000", "name.de.ngrams^1.000000", "name.other^0.4"),
+                     fields.getNgramFields());
+        assertEquals("name.de.raw", fields.getRawNameField());
+    }
+
+    @Test
+    void testDefaultLanguageUsesFirstLanguageForNames() {
+        var fields = parts.forLanguage("default");
+
+        assertEquals(List.of("collector.default^1.000000", "collector.en^0.600000", "collector.de^0.600000"),
+                     fields.getCollectorFields());
+        assertEquals(List.of("name.en.ngrams^1.000000", "name.de.ngrams^0.400000", "name.other^0.4"),
+                     fields.getNgramFields());
+        assertEquals("name.default.raw", fields.getRawNameField());
+    }
+
+    @Test
+    void testFieldsAreShared() {
+        assertSame(parts.forLanguage("en"), parts.forLanguage("en"));
+    }
+}
@@ -0,0 +1,123 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.ESBaseTester;
+import de.komoot.photon.Importer;
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.query.BadRequestException;
+import de.komoot.photon.query.ParameterMapRequest;
+import de.komoot.photon.query.PhotonRequest;
+import de.komoot.photon.query.PhotonRequestFactory;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.SearchHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTemplatesTest extends ESBaseTester {
+    @TempDir
+    private static Path instanceTestDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        setUpES(instanceTestDirectory, "en", "de");
+        Importer instance = makeImporter();
+        instance.add(createDoc(13.38, 52.51, 1, 1, "place", "city")
+                .names(Map.of("name", "Berlin", "name:de", "Berlin")).importance(0.9), 0);
+        instance.add(createDoc(13.40, 52.52, 2, 2, "railway", "station")
+                .names(Map.of("name", "Berlin Hauptbahnhof")).importance(0.5), 0);
+        instance.add(createDoc(-75.0, 40.0, 3, 3, "place", "town")
+                .names(Map.of("name", "Berlin Township")).importance(0.2), 0);
+        instance.finish();
+        refresh();
+    }
+
+    private PhotonRequest request(String... params) throws BadRequestException {
+        final Map<String, String[]> paramMap = new HashMap<>();
+        for (int i = 0; i < params.length - 1; i += 2) {
+            paramMap.put(params[i], new String[]{params[i + 1]});
+        }
+
+        return new PhotonRequestFactory(List.of("en", "de"), "default", 50)
+                .create(new ParameterMapRequest(paramMap, null));
+    }
+
+    private List<Long> osmIds(List<PhotonResult> results) {
+        return results.stream()
+                .map(r -> ((Number) r.get("osm_id")).longValue())
+                .collect(Collectors.toList());
+    }
+
+    private void assertSameResults(String... params) throws BadRequestException {
+        final PhotonRequest request = request(params);
+        final SearchHandler plain = getServer().createSearchHandler(new String[]{"en", "de"}, 1, false, false);
+        final SearchHandler templated = getServer().createSearchHandler(new String[]{"en", "de"}, 1, false, true);
+
+        final List<Long> expected = osmIds(plain.search(request));
+        assertEquals(expected, osmIds(templated.search(request)));
+        assertEquals(expected, osmIds(templated.searchAsync(request).join()));
+    }
+
+    @Test
+    void testSimpleQueries() {
+        assertAll(
+                () -> assertSameResults("q", "berlin", "lang", "en"),
+                () -> assertSameResults("q", "berlin hauptbahnhof", "lang", "de"),
+                () -> assertSameResults("q", "berlin, township"),
+                () -> assertSameResults("q", "berlni", "lang", "en"),
+                () -> assertSameResults("q", "berlin \"}]}", "lang", "en")
+        );
+    }
+
+    @Test
+    void testFilteredQueries() {
+        assertAll(
+                () -> assertSameResults("q", "berlin", "osm_tag", "place"),
+                () -> assertSameResults("q", "berlin", "layer", "city"),
+                () -> assertSameResults("q", "berlin", "bbox", "13.0,52.0,14.0,53.0")
+        );
+    }
+
+    private static List<String> storedTemplateIds(OpenSearchClient client) throws IOException {
+        final var state = client.cluster().state(s -> s.metric("metadata")).valueBody().toJson().asJsonObject();
+        final var metadata = state.getJsonObject("metadata");
+        if (metadata == null || !metadata.containsKey("stored_scripts")) {
+            return List.of();
+        }
+        return metadata.getJsonObject("stored_scripts").keySet().stream()
+                .filter(id -> id.startsWith("photon-search-"))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void testTemplatesOfOtherInstancesAreKept() throws IOException {
+        final OpenSearchClient client = ((OpenSearchTestServer) getServer()).getClient();
+        final String otherId = SearchTemplates.templateId("en-strict-word", "{}");
+        client.putScript(p -> p.id(otherId).script(s -> s.lang("mustache").source("{}")));
+
+        getServer().createSearchHandler(new String[]{"en", "de"}, 1, false, true);
+        getServer().createSearchHandler(new String[]{"en", "de"}, 1, false, true);
+
+        final List<String> ids = storedTemplateIds(client);
+        assertTrue(ids.contains(otherId));
+        // strict/lenient and word/phrase for en, de and default, registered only once
+        assertEquals(12 + 1, ids.size());
+    }
+
+    @Test
+    void testLocationBiasFallsBackToFullQuery() {
+        assertAll(
+                () -> assertSameResults("q", "berlin", "lat", "40.0", "lon", "-75.0"),
+                () -> assertSameResults("q", "berlin", "lat", "40.0", "lon", "-75.0", "zoom", "2")
+        );
+    }
+}
@@ -0,0 +1,69 @@
+package de.komoot.photon.datagen;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import org.slf4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Command line tool to write a synthetic Nominatim database as SQL script.
+ *
+ * Load the script with psql into an empty database and import it with
+ * 'photon -nominatim-import'.
+ */
+public class GenerateDataset {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(GenerateDataset.class);
+
+    private static class Args {
+        @Parameter(names = "-places", description = "Number of places to create")
+        private long places = 100000;
+
+        @Parameter(names = "-seed", description = "Seed for the random generator, the same seed always creates the same data")
+        private long seed = 1;
+
+        @Parameter(names = "-output", description = "File to write the SQL script to, compressed if the name ends with '.gz'", required = true)
+        private String output;
+
+        @Parameter(names = "-h", description = "Show help / usage", help = true)
+        private boolean usage = false;
+    }
+
+    public static void main(String[] rawArgs) throws IOException {
+        final Args args = new Args();
+        final JCommander jCommander = new JCommander(args);
+        try {
+            jCommander.parse(rawArgs);
+            if (args.places < 1) {
+                throw new ParameterException("Number of places must be positive");
+            }
+        } catch (ParameterException e) {
+            LOGGER.warn("Could not generate dataset: {}", e.getMessage());
+            jCommander.usage();
+            System.exit(1);
+        }
+
+        if (args.usage) {
+            jCommander.usage();
+            System.exit(1);
+        }
+
+        LOGGER.info("Writing {} places to {}.", args.places, args.output);
+        final long start = System.currentTimeMillis();
+        final Path path = Path.of(args.output);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                args.output.endsWith(".gz") ? new GZIPOutputStream(Files.newOutputStream(path), 65536) : Files.newOutputStream(path),
+                StandardCharsets.UTF_8), 1 << 20))) {
+            new PostgresDumpWriter(out, args.seed, args.places).write();
+        }
+        LOGGER.info("Done in {} seconds.", (System.currentTimeMillis() - start) / 1000);
+    }
+}
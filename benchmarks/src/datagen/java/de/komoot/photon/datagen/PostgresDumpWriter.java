@@ -0,0 +1,238 @@
+package de.komoot.photon.datagen;
+
+import de.komoot.photon.nominatim.testdb.SyntheticDataset;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link SyntheticDataset} as SQL script for PostgreSQL.
+ *
+ * The script creates the tables of a Nominatim database that photon reads
+ * and fills them with COPY statements. The dataset is generated only once,
+ * rows of the smaller tables are collected in temporary files meanwhile.
+ */
+public class PostgresDumpWriter {
+    private static final String SCHEMA = String.join("\n",
+            "CREATE EXTENSION IF NOT EXISTS postgis;",
+            "CREATE EXTENSION IF NOT EXISTS hstore;",
+            "",
+            "CREATE TABLE placex (",
+            "  place_id BIGINT NOT NULL, parent_place_id BIGINT, linked_place_id BIGINT, importance FLOAT,",
+            "  indexed_date TIMESTAMP, geometry_sector INTEGER, rank_address SMALLINT, rank_search SMALLINT,",
+            "  partition SMALLINT, indexed_status SMALLINT, osm_id INT8 NOT NULL, osm_type CHAR(1) NOT NULL,",
+            "  class TEXT NOT NULL, type TEXT NOT NULL, name HSTORE, admin_level SMALLINT, address HSTORE,",
+            "  extratags HSTORE, geometry GEOMETRY(Geometry, 4326), wikipedia TEXT, country_code VARCHAR(2),",
+            "  housenumber TEXT, postcode TEXT, centroid GEOMETRY(Geometry, 4326));",
+            "",
+            "CREATE TABLE place_addressline (",
+            "  place_id BIGINT, address_place_id BIGINT, distance FLOAT, cached_rank_address SMALLINT,",
+            "  fromarea BOOLEAN, isaddress BOOLEAN);",
+            "",
+            "CREATE TABLE location_property_osmline (",
+            "  place_id BIGINT NOT NULL, osm_id BIGINT, parent_place_id BIGINT, geometry_sector INTEGER,",
+            "  indexed_date TIMESTAMP, startnumber INTEGER, endnumber INTEGER, step SMALLINT, partition SMALLINT,",
+            "  indexed_status SMALLINT, linegeo GEOMETRY(Geometry, 4326), address HSTORE, postcode TEXT,",
+            "  country_code VARCHAR(2));",
+            "",
+            "CREATE TABLE country_name (",
+            "  country_code VARCHAR(2), name HSTORE, country_default_language_code VARCHAR(2), partition INTEGER);",
+            "",
+            "CREATE TABLE import_status (lastimportdate TIMESTAMP WITH TIME ZONE NOT NULL, indexed BOOLEAN);",
+            "INSERT INTO import_status VALUES (now(), true);",
+            "");
+
+    private static final String INDEXES = String.join("\n",
+            "CREATE INDEX idx_placex_place_id ON placex (place_id);",
+            "CREATE INDEX idx_place_addressline_place_id ON place_addressline (place_id);",
+            "CREATE INDEX idx_osmline_place_id ON location_property_osmline (place_id);",
+            "ANALYZE;",
+            "");
+
+    private final PrintWriter out;
+    private final long seed;
+    private final long numPlaces;
+
+    /**
+     * Create a new writer.
+     *
+     * @param out       Output for the SQL script.
+     * @param seed      Seed of the dataset.
+     * @param numPlaces Number of places of the dataset.
+     */
+    public PostgresDumpWriter(PrintWriter out, long seed, long numPlaces) {
+        this.out = out;
+        this.seed = seed;
+        this.numPlaces = numPlaces;
+    }
+
+    /**
+     * Write the complete script.
+     *
+     * @throws IOException When the temporary files cannot be written.
+     */
+    public void write() throws IOException {
+        writeLine(out, SCHEMA);
+
+        final Path addressLines = Files.createTempFile("photon-place_addressline", ".copy");
+        final Path interpolations = Files.createTempFile("photon-osmline", ".copy");
+        try {
+            generate(addressLines, interpolations);
+
+            copyFrom(addressLines, "COPY place_addressline (place_id, address_place_id, cached_rank_address,"
+                    + " distance, fromarea, isaddress) FROM stdin;");
+            copyFrom(interpolations, "COPY location_property_osmline (place_id, parent_place_id, osm_id,"
+                    + " startnumber, endnumber, step, linegeo, postcode, country_code, indexed_status) FROM stdin;");
+        } finally {
+            Files.deleteIfExists(addressLines);
+            Files.deleteIfExists(interpolations);
+        }
+
+        writeLine(out, "");
+        writeLine(out, INDEXES);
+        out.flush();
+    }
+
+    /**
+     * Generate the dataset in a single pass. The places are written straight
+     * into the script. Each COPY statement can only contain rows of one
+     * table, so the countries are kept in memory until the first place
+     * arrives and the rows of the other tables go to temporary files.
+     */
+    private void generate(Path addressLines, Path interpolations) throws IOException {
+        try (PrintWriter addressLineOut = openTemporary(addressLines);
+             PrintWriter interpolationOut = openTemporary(interpolations)) {
+            final var writer = new SyntheticDataset.RowWriter() {
+                private final List<String> countries = new ArrayList<>();
+                private boolean placesStarted = false;
+
+                @Override
+                public void writeCountry(String countryCode, Map<String, String> names) {
+                    countries.add(row(countryCode, hstore(names)));
+                }
+
+                @Override
+                public void writePlace(SyntheticDataset.Place place) {
+                    startPlaces();
+                    writeLine(out, row(place.getPlaceId(), place.getParentPlaceId(), place.getOsmType(),
+                            place.getOsmId(), place.getKey(), place.getValue(), place.getRankSearch(),
+                            place.getRankAddress(), geometry(place.getCentroid()), geometry(place.getGeometry()),
+                            hstore(place.getNames()), hstore(place.getAddress()), hstore(place.getExtraTags()),
+                            place.getCountryCode(), place.getPostcode(), place.getImportance(), 0));
+                }
+
+                @Override
+                public void writeAddressLine(long placeId, long addressPlaceId, int rankAddress, double distance) {
+                    writeLine(addressLineOut, row(placeId, addressPlaceId, rankAddress, distance, "t", "t"));
+                }
+
+                @Override
+                public void writeInterpolation(SyntheticDataset.Interpolation line) {
+                    writeLine(interpolationOut, row(line.getPlaceId(), line.getParentPlaceId(), line.getOsmId(),
+                            line.getStartNumber(), line.getEndNumber(), line.getStep(),
+                            geometry(line.getLineGeometry()), line.getPostcode(), line.getCountryCode(), 0));
+                }
+
+                void startPlaces() {
+                    if (!placesStarted) {
+                        writeLine(out, "COPY country_name (country_code, name) FROM stdin;");
+                        countries.forEach(country -> writeLine(out, country));
+                        writeLine(out, "\\.");
+                        writeLine(out, "COPY placex (place_id, parent_place_id, osm_type, osm_id, class, type,"
+                                + " rank_search, rank_address, centroid, geometry, name, address, extratags,"
+                                + " country_code, postcode, importance, indexed_status) FROM stdin;");
+                        placesStarted = true;
+                    }
+                }
+            };
+
+            new SyntheticDataset(seed, numPlaces).generate(writer);
+
+            if (addressLineOut.checkError() || interpolationOut.checkError()) {
+                throw new IOException("Writing the temporary files failed.");
+            }
+
+            writer.startPlaces();
+            writeLine(out, "\\.");
+        }
+    }
+
+    /**
+     * Append the rows from a temporary file to the script as a COPY statement.
+     */
+    private void copyFrom(Path rows, String copyStatement) throws IOException {
+        writeLine(out, copyStatement);
+        try (BufferedReader reader = Files.newBufferedReader(rows, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writeLine(out, line);
+            }
+        }
+        writeLine(out, "\\.");
+    }
+
+    private static PrintWriter openTemporary(Path path) throws IOException {
+        return new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    private static String row(Object... values) {
+        final StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; ++i) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            line.append(values[i] == null ? "\\N" : escapeCopy(values[i].toString()));
+        }
+        return line.toString();
+    }
+
+    private static void writeLine(PrintWriter out, CharSequence text) {
+        // COPY data must not contain platform-specific line endings.
+        out.print(text);
+        out.print('\n');
+    }
+
+    private static String geometry(String wkt) {
+        return wkt == null ? null : "SRID=4326;" + wkt;
+    }
+
+    /**
+     * Create the text representation of an hstore.
+     */
+    static String hstore(Map<String, String> map) {
+        if (map == null) {
+            return null;
+        }
+
+        final StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append('"').append(escapeHstore(entry.getKey())).append("\"=>\"")
+                    .append(escapeHstore(entry.getValue())).append('"');
+        }
+        return out.toString();
+    }
+
+    private static String escapeHstore(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Escape a value for the text format of COPY.
+     */
+    static String escapeCopy(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("\t", "\\t")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r");
+    }
+}
@@ -0,0 +1,33 @@
+package de.komoot.photon.benchmarks;
+
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.elasticsearch.PhotonDocConverter;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Benchmark for converting documents into the JSON sent to ElasticSearch during import.
+ */
+@State(Scope.Benchmark)
+public class PhotonDocConverterBenchmark {
+    @Param({"city", "street"})
+    public String kind;
+
+    private PhotonDoc doc;
+
+    @Setup
+    public void setup() {
+        doc = "city".equals(kind) ? ImportFixtures.createCity() : ImportFixtures.createStreet();
+    }
+
+    @Benchmark
+    public BytesReference convert() throws IOException {
+        return PhotonDocConverter.convert(doc, ImportFixtures.LANGUAGES, ImportFixtures.EXTRA_TAGS).bytes();
+    }
+}
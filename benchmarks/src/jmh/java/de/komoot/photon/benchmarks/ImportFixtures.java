@@ -0,0 +1,127 @@
+package de.komoot.photon.benchmarks;
+
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.nominatim.model.AddressType;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Documents shaped like the ones created during an import of planet data.
+ *
+ * Large places have names in dozens of languages plus alternative and old
+ * names, a full address and context. Interpolation lines are long and have
+ * many vertices.
+ */
+public final class ImportFixtures {
+    public static final String[] LANGUAGES = {"en", "de", "fr", "it"};
+    public static final String[] EXTRA_TAGS = {"wikidata", "wikipedia", "website", "opening_hours", "population"};
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+    private static final String[] NAME_LANGUAGES = {
+            "ar", "be", "bg", "ca", "cs", "cy", "da", "de", "el", "en", "eo", "es", "et", "eu", "fa", "fi",
+            "fr", "ga", "he", "hi", "hr", "hu", "hy", "id", "is", "it", "ja", "ka", "ko", "la", "lt", "lv",
+            "mk", "nl", "no", "pl", "pt", "ro", "ru", "sk", "sl", "sr", "sv", "th", "tr", "uk", "ur", "vi", "zh"};
+
+    private ImportFixtures() {
+    }
+
+    /**
+     * Create a city with names in many languages, a full address, context and extra tags.
+     */
+    public static PhotonDoc createCity() {
+        final Map<String, String> names = new HashMap<>();
+        names.put("name", "Berlin");
+        for (String lang : NAME_LANGUAGES) {
+            names.put("name:" + lang, "Berlin (" + lang + ")");
+        }
+        names.put("alt_name", "Spree-Athen");
+        names.put("old_name", "Cölln");
+        names.put("int_name", "Berlin");
+        names.put("loc_name", "Balin");
+
+        final Map<String, String> extraTags = new HashMap<>();
+        extraTags.put("wikidata", "Q64");
+        extraTags.put("wikipedia", "de:Berlin");
+        extraTags.put("website", "https://www.berlin.de/");
+        extraTags.put("population", "3769495");
+        extraTags.put("capital", "yes");
+        extraTags.put("linked_place", "city");
+
+        final PhotonDoc doc = new PhotonDoc(240109189, "R", 62422, "boundary", "administrative")
+                .names(names)
+                .extraTags(extraTags)
+                .countryCode("de")
+                .importance(0.8875)
+                .rankAddress(16)
+                .postcode("10117")
+                .centroid(FACTORY.createPoint(new Coordinate(13.3888599, 52.5170365)))
+                .bbox(createBox(13.088345, 52.3382448, 13.7611609, 52.6755087));
+
+        doc.setAddressPartIfNew(AddressType.STATE, translated("Berlin"));
+        doc.setCountry(translated("Deutschland"));
+        doc.getContext().add(translated("Brandenburg"));
+        doc.getContext().add(Map.of("name", "Berlin-Mitte", "name:en", "Berlin Centre"));
+
+        return doc;
+    }
+
+    /**
+     * Create a street with the usual address parts but without extra names.
+     */
+    public static PhotonDoc createStreet() {
+        final Map<String, String> address = new HashMap<>();
+        address.put("city", "Berlin");
+        address.put("suburb", "Mitte");
+        address.put("neighbourhood", "Dorotheenstadt");
+        address.put("state", "Berlin");
+        address.put("postcode", "10117");
+
+        final PhotonDoc doc = new PhotonDoc(1234567, "W", 4045142, "highway", "secondary")
+                .names(Map.of("name", "Unter den Linden", "name:ru", "Унтер-ден-Линден"))
+                .extraTags(Map.of())
+                .countryCode("de")
+                .importance(0.4)
+                .rankAddress(26)
+                .address(address)
+                .centroid(FACTORY.createPoint(new Coordinate(13.3888, 52.5170)))
+                .bbox(createInterpolationLine(20));
+
+        doc.setCountry(translated("Deutschland"));
+
+        return doc;
+    }
+
+    /**
+     * Create a zig-zagging interpolation line of about 1km length.
+     *
+     * @param numPoints Number of vertices of the line.
+     */
+    public static LineString createInterpolationLine(int numPoints) {
+        final Coordinate[] coords = new Coordinate[numPoints];
+        final double step = 0.01 / (numPoints - 1);
+        for (int i = 0; i < numPoints; ++i) {
+            coords[i] = new Coordinate(13.38 + i * step, 52.51 + (i % 2) * step / 2);
+        }
+        return FACTORY.createLineString(coords);
+    }
+
+    private static Polygon createBox(double minLon, double minLat, double maxLon, double maxLat) {
+        return FACTORY.createPolygon(new Coordinate[]{
+                new Coordinate(minLon, minLat), new Coordinate(maxLon, minLat), new Coordinate(maxLon, maxLat),
+                new Coordinate(minLon, maxLat), new Coordinate(minLon, minLat)});
+    }
+
+    private static Map<String, String> translated(String name) {
+        final Map<String, String> names = new HashMap<>();
+        names.put("name", name);
+        for (String lang : LANGUAGES) {
+            names.put("name:" + lang, name + " (" + lang + ")");
+        }
+        return names;
+    }
+}
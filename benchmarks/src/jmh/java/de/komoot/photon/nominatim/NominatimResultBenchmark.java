@@ -0,0 +1,67 @@
+package de.komoot.photon.nominatim;
+
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.benchmarks.ImportFixtures;
+import org.locationtech.jts.geom.LineString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Benchmarks for expanding the house numbers of places and interpolation
+ * lines into separate documents.
+ *
+ * Lives in the package of {@link NominatimResult} because the class is not public.
+ */
+@State(Scope.Benchmark)
+public class NominatimResultBenchmark {
+    private static final String HOUSENUMBERS = "1;2;3;3a;3b;4;5;6;7;8;9;10;11;12;12-14;15;16;17;18;19;20";
+
+    /**
+     * Width of the interpolation, the longest interpolations allowed have 1000 numbers.
+     */
+    @Param({"10", "1000"})
+    public int interpolationWidth;
+
+    private PhotonDoc street;
+    private LineString line;
+    private NominatimResult interpolated;
+
+    @Setup
+    public void setup() {
+        street = ImportFixtures.createStreet();
+        line = ImportFixtures.createInterpolationLine(200);
+        interpolated = new NominatimResult(street);
+        interpolated.addHouseNumbersFromInterpolation(2, 2 + interpolationWidth, 1, line);
+    }
+
+    @Benchmark
+    public NominatimResult addHousenumbersFromString() {
+        final NominatimResult result = new NominatimResult(street);
+        result.addHousenumbersFromString(HOUSENUMBERS);
+        return result;
+    }
+
+    @Benchmark
+    public NominatimResult addOldStyleInterpolation() {
+        final NominatimResult result = new NominatimResult(street);
+        result.addHouseNumbersFromInterpolation(1, 1 + interpolationWidth, "odd", line);
+        return result;
+    }
+
+    @Benchmark
+    public NominatimResult addNewStyleInterpolation() {
+        final NominatimResult result = new NominatimResult(street);
+        result.addHouseNumbersFromInterpolation(2, 2 + interpolationWidth, 2, line);
+        return result;
+    }
+
+    @Benchmark
+    public List<PhotonDoc> getDocsWithHousenumber() {
+        return interpolated.getDocsWithHousenumber();
+    }
+}
@@ -0,0 +1,157 @@
+package de.komoot.photon.loadtest;
+
+import de.komoot.photon.Importer;
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.Server;
+import de.komoot.photon.nominatim.model.AddressType;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Creates a small, reproducible Photon database for the load test.
+ *
+ * Contains real cities with their approximate position, each with a set of
+ * common street names and house numbers. When more cities are requested than
+ * there are real ones, numbered towns are added around them. The same seed
+ * always creates the same documents, so that runs on different machines and
+ * photon versions are comparable.
+ */
+public class FixtureIndex {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(FixtureIndex.class);
+
+    public static final String CLUSTER_NAME = "photon-loadtest";
+    public static final String[] LANGUAGES = {"en", "de", "fr", "it"};
+
+    private static final GeometryFactory FACTORY = new GeometryFactory(new PrecisionModel(), 4326);
+    private static final long SEED = 4711;
+    private static final int STREETS_PER_CITY = 20;
+    private static final int HOUSES_PER_STREET = 10;
+
+    private static final Object[][] CITIES = {
+            {"Berlin", "DE", 52.5170, 13.3889}, {"Hamburg", "DE", 53.5503, 10.0007},
+            {"München", "DE", 48.1372, 11.5755}, {"Köln", "DE", 50.9384, 6.9600},
+            {"Frankfurt am Main", "DE", 50.1106, 8.6821}, {"Stuttgart", "DE", 48.7784, 9.1800},
+            {"Düsseldorf", "DE", 51.2254, 6.7763}, {"Leipzig", "DE", 51.3406, 12.3747},
+            {"Dresden", "DE", 51.0493, 13.7381}, {"Potsdam", "DE", 52.4009, 13.0591},
+            {"Wien", "AT", 48.2084, 16.3725}, {"Graz", "AT", 47.0708, 15.4386},
+            {"Zürich", "CH", 47.3744, 8.5410}, {"Bern", "CH", 46.9483, 7.4515},
+            {"Paris", "FR", 48.8589, 2.3200}, {"Lyon", "FR", 45.7578, 4.8320},
+            {"Marseille", "FR", 43.2962, 5.3700}, {"Strasbourg", "FR", 48.5846, 7.7507},
+            {"Roma", "IT", 41.8933, 12.4829}, {"Milano", "IT", 45.4642, 9.1896},
+            {"Bologna", "IT", 44.4938, 11.3426}, {"Amsterdam", "NL", 52.3731, 4.8925},
+            {"Rotterdam", "NL", 51.9225, 4.4792}, {"Bruxelles", "BE", 50.8467, 4.3525},
+            {"London", "GB", 51.5073, -0.1277}, {"Manchester", "GB", 53.4794, -2.2453},
+            {"Dublin", "IE", 53.3498, -6.2603}, {"København", "DK", 55.6867, 12.5701},
+            {"Praha", "CZ", 50.0874, 14.4213}, {"Warszawa", "PL", 52.2319, 21.0067}};
+
+    private static final String[] STREETS = {
+            "Hauptstraße", "Bahnhofstraße", "Schulstraße", "Gartenstraße", "Dorfstraße", "Lindenstraße",
+            "Rue de la Gare", "Rue de l'Église", "Avenue Victor Hugo", "Via Roma", "Via Garibaldi",
+            "Corso Italia", "High Street", "Station Road", "Church Lane", "Kerkstraat", "Dorpsstraat",
+            "Marktplatz", "Am Markt", "Friedhofstraße", "Rathausplatz", "Mühlenweg", "Ringstraße",
+            "Goethestraße", "Schillerstraße"};
+
+    private FixtureIndex() {
+    }
+
+    /**
+     * Create a new database in the given directory and fill it with the fixture data.
+     *
+     * @param dataDirectory Directory the database is created in.
+     * @param numCities     Number of cities to create.
+     */
+    public static void create(String dataDirectory, int numCities) throws IOException {
+        final Server server = new Server(dataDirectory).start(CLUSTER_NAME, new String[0]);
+        try {
+            server.waitForReady();
+            server.recreateIndex(LANGUAGES, new Date(), true);
+
+            final Importer importer = server.createImporter(LANGUAGES, new String[0]);
+            final long count = addDocuments(importer, numCities);
+            importer.finish();
+            server.refreshIndexes();
+
+            LOGGER.info("Created fixture index with {} documents.", count);
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static long addDocuments(Importer importer, int numCities) {
+        final Random random = new Random(SEED);
+        long placeId = 1;
+        long count = 0;
+
+        for (int city = 0; city < numCities; ++city) {
+            final Object[] base = CITIES[city % CITIES.length];
+            final String countryCode = (String) base[1];
+            final String cityName;
+            double lat = (Double) base[2];
+            double lon = (Double) base[3];
+            if (city < CITIES.length) {
+                cityName = (String) base[0];
+            } else {
+                cityName = base[0] + "-Nord " + (city / CITIES.length);
+                lat += 0.1 * (city / CITIES.length);
+                lon += (random.nextDouble() - 0.5) * 0.2;
+            }
+
+            final Map<String, String> cityNames = Map.of("name", cityName);
+            importer.add(new PhotonDoc(placeId, "R", placeId, "place", "city")
+                    .names(cityNames)
+                    .countryCode(countryCode)
+                    .importance(0.5 + random.nextDouble() * 0.3)
+                    .rankAddress(16)
+                    .centroid(point(lat, lon)), 0);
+            ++placeId;
+            ++count;
+
+            for (int street = 0; street < STREETS_PER_CITY; ++street) {
+                final String streetName = STREETS[(city + street) % STREETS.length];
+                final String postcode = String.format("%05d", 10000 + (city * 37 + street) % 89999);
+                final double streetLat = lat + (random.nextDouble() - 0.5) * 0.05;
+                final double streetLon = lon + (random.nextDouble() - 0.5) * 0.05;
+
+                final PhotonDoc streetDoc = new PhotonDoc(placeId, "W", placeId, "highway", "residential")
+                        .names(Map.of("name", streetName))
+                        .countryCode(countryCode)
+                        .importance(0.1)
+                        .rankAddress(26)
+                        .postcode(postcode)
+                        .centroid(point(streetLat, streetLon));
+                streetDoc.setAddressPartIfNew(AddressType.CITY, cityNames);
+                importer.add(streetDoc, 0);
+                ++placeId;
+                ++count;
+
+                final Map<String, String> streetNames = Map.of("name", streetName);
+                for (int house = 1; house <= HOUSES_PER_STREET; ++house) {
+                    final PhotonDoc houseDoc = new PhotonDoc(placeId, "N", placeId, "building", "yes")
+                            .houseNumber(Integer.toString(house * 2 - 1))
+                            .countryCode(countryCode)
+                            .postcode(postcode)
+                            .centroid(point(streetLat + house * 0.0001, streetLon + house * 0.0001));
+                    houseDoc.setAddressPartIfNew(AddressType.STREET, streetNames);
+                    houseDoc.setAddressPartIfNew(AddressType.CITY, cityNames);
+                    importer.add(houseDoc, 0);
+                    ++placeId;
+                    ++count;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static Point point(double lat, double lon) {
+        return FACTORY.createPoint(new Coordinate(lon, lat));
+    }
+}
@@ -0,0 +1,206 @@
+package de.komoot.photon.loadtest;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+import de.komoot.photon.App;
+import org.slf4j.Logger;
+import spark.Spark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test for the search API.
+ *
+ * Replays a request log against a photon server and reports throughput,
+ * latency percentiles and error rates. By default an embedded server is
+ * started with a fixture index, so that the test runs without network
+ * access and results of different photon versions can be compared.
+ */
+public class LoadTest {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String SAMPLE_LOG = "/sample-requests.jsonl";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String[] rawArgs) throws Exception {
+        final LoadTestArgs args = parseCommandLine(rawArgs);
+        final RequestLog log = readRequestLog(args.getRequestLog());
+        LOGGER.info("Replaying {} different requests.", log.size());
+
+        final boolean embedded = args.getUrl() == null;
+        final String baseUrl = embedded ? startEmbeddedServer(args) : args.getUrl().replaceAll("/+$", "");
+
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+
+        if (args.getWarmup() > 0) {
+            LOGGER.info("Warming up with {} requests.", args.getWarmup());
+            replay(client, baseUrl, log, 0, args.getWarmup(), args, null);
+        }
+
+        LOGGER.info("Sending {} requests with a concurrency of {}.", args.getCount(), args.getConcurrency());
+        final LoadTestReport report = new LoadTestReport(args.getCount());
+        replay(client, baseUrl, log, args.getWarmup(), args.getCount(), args, report);
+
+        System.out.print(report.format());
+        if (args.getReportFile() != null) {
+            Files.writeString(Path.of(args.getReportFile()), report.toJson().toString(2));
+            LOGGER.info("Results written to {}.", args.getReportFile());
+        }
+
+        if (embedded) {
+            Spark.stop();
+            Spark.awaitStop();
+        }
+        // The embedded database keeps non-daemon threads running.
+        System.exit(0);
+    }
+
+    private static LoadTestArgs parseCommandLine(String[] rawArgs) {
+        final LoadTestArgs args = new LoadTestArgs();
+        final JCommander jCommander = new JCommander(args);
+        try {
+            jCommander.parse(rawArgs);
+
+            if (args.getCount() < 1 || args.getWarmup() < 0 || args.getConcurrency() < 1 || args.getRate() < 0) {
+                throw new ParameterException("Invalid load settings: need count >= 1, warmup >= 0, concurrency >= 1 and rate >= 0");
+            }
+        } catch (ParameterException e) {
+            LOGGER.warn("Could not start load test: {}", e.getMessage());
+            jCommander.usage();
+            System.exit(1);
+        }
+
+        if (args.isUsage()) {
+            jCommander.usage();
+            System.exit(1);
+        }
+
+        return args;
+    }
+
+    private static RequestLog readRequestLog(String fileName) throws IOException {
+        final InputStream in = fileName == null
+                ? LoadTest.class.getResourceAsStream(SAMPLE_LOG)
+                : Files.newInputStream(Path.of(fileName));
+        if (in == null) {
+            throw new IOException("Sample request log not found.");
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return RequestLog.read(reader);
+        }
+    }
+
+    /**
+     * Create the fixture index and start photon on it.
+     *
+     * @return The base URL of the API.
+     */
+    private static String startEmbeddedServer(LoadTestArgs args) throws Exception {
+        final String dataDirectory = args.getDataDirectory() == null
+                ? Files.createTempDirectory("photon-loadtest").toString()
+                : args.getDataDirectory();
+
+        LOGGER.info("Creating fixture index with {} cities in {}.", args.getFixtureCities(), dataDirectory);
+        FixtureIndex.create(dataDirectory, args.getFixtureCities());
+
+        final List<String> photonArgs = new ArrayList<>(List.of(
+                "-cluster", FixtureIndex.CLUSTER_NAME,
+                "-data-dir", dataDirectory,
+                "-listen-ip", "127.0.0.1",
+                "-listen-port", Integer.toString(args.getListenPort()),
+                "-structured"));
+        photonArgs.addAll(Arrays.asList(args.getPhotonArgs()));
+
+        App.main(photonArgs.toArray(new String[0]));
+        Spark.awaitInitialization();
+
+        return "http://127.0.0.1:" + args.getListenPort();
+    }
+
+    /**
+     * Send requests from the log with the configured concurrency and rate.
+     *
+     * With a fixed rate, the latency is measured from the time the request
+     * was scheduled to be sent and not from the time it was actually sent.
+     * Otherwise a slow server would delay the following requests and hide
+     * the waiting time from the results.
+     *
+     * @param firstSequence Position in the request log to start with.
+     * @param count         Number of requests to send.
+     * @param report        Report to record the results in, may be null during warm-up.
+     */
+    private static void replay(HttpClient client, String baseUrl, RequestLog log, long firstSequence, int count,
+                               LoadTestArgs args, LoadTestReport report) throws InterruptedException {
+        final long intervalNanos = args.getRate() > 0 ? (long) (1e9 / args.getRate()) : 0;
+        final AtomicInteger next = new AtomicInteger();
+        final ExecutorService workers = Executors.newFixedThreadPool(args.getConcurrency());
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < args.getConcurrency(); ++i) {
+            workers.execute(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < count) {
+                    final RequestLog.Entry entry = log.get(firstSequence + index);
+
+                    long scheduled = System.nanoTime();
+                    if (intervalNanos > 0) {
+                        scheduled = start + index * intervalNanos;
+                        long wait;
+                        while ((wait = scheduled - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+
+                    int status;
+                    try {
+                        status = client.send(HttpRequest.newBuilder(URI.create(baseUrl + entry.getUri()))
+                                        .timeout(REQUEST_TIMEOUT)
+                                        .GET()
+                                        .build(),
+                                HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        LOGGER.debug("Request {} failed", entry.getUri(), e);
+                        status = LoadTestReport.IO_ERROR;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+
+                    if (report != null) {
+                        report.record(index, entry.getRoute(), System.nanoTime() - scheduled, status);
+                    }
+                }
+            });
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.DAYS);
+
+        if (report != null) {
+            report.setDuration(System.nanoTime() - start);
+        }
+    }
+}
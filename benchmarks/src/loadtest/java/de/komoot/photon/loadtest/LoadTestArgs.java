@@ -0,0 +1,93 @@
+package de.komoot.photon.loadtest;
+
+import com.beust.jcommander.Parameter;
+
+/**
+ * Command line arguments of the load test.
+ */
+public class LoadTestArgs {
+
+    @Parameter(names = "-requests", description = "Request log to replay, one JSON object with 'route' and 'params' per line as written by the slow query log (default: bundled sample log)")
+    private String requestLog = null;
+
+    @Parameter(names = "-url", description = "Base URL of a running photon instance to test. When not given, an embedded server with a fixture index is started.")
+    private String url = null;
+
+    @Parameter(names = "-data-dir", description = "Directory for the database of the embedded server (default: temporary directory)")
+    private String dataDirectory = null;
+
+    @Parameter(names = "-fixture-cities", description = "Number of cities in the fixture index of the embedded server")
+    private int fixtureCities = 50;
+
+    @Parameter(names = "-photon-args", description = "Additional command line arguments for the embedded photon server, separated by spaces")
+    private String photonArgs = "";
+
+    @Parameter(names = "-listen-port", description = "Port for the embedded photon server")
+    private int listenPort = 2332;
+
+    @Parameter(names = "-count", description = "Number of requests to send, the request log is repeated as needed")
+    private int count = 10000;
+
+    @Parameter(names = "-warmup", description = "Number of requests to send before measuring")
+    private int warmup = 1000;
+
+    @Parameter(names = "-concurrency", description = "Maximum number of requests in flight")
+    private int concurrency = 8;
+
+    @Parameter(names = "-rate", description = "Requests per second to send, 0 sends requests as fast as the concurrency allows")
+    private double rate = 0;
+
+    @Parameter(names = "-report", description = "File to write the results to as JSON")
+    private String reportFile = null;
+
+    @Parameter(names = "-h", description = "Show help / usage")
+    private boolean usage = false;
+
+    public String getRequestLog() {
+        return requestLog;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getDataDirectory() {
+        return dataDirectory;
+    }
+
+    public int getFixtureCities() {
+        return fixtureCities;
+    }
+
+    public String[] getPhotonArgs() {
+        return photonArgs.isBlank() ? new String[0] : photonArgs.trim().split("\\s+");
+    }
+
+    public int getListenPort() {
+        return listenPort;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getWarmup() {
+        return warmup;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    public boolean isUsage() {
+        return usage;
+    }
+}
@@ -0,0 +1,139 @@
+package de.komoot.photon.loadtest;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Results of a load test: throughput, latency percentiles and errors,
+ * overall and for each route.
+ *
+ * Results are recorded by sequence number of the request, so that the
+ * worker threads never write to the same slot.
+ */
+public class LoadTestReport {
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /** Status recorded for requests that failed without an HTTP response. */
+    public static final int IO_ERROR = 0;
+
+    private final String[] routes;
+    private final long[] latencies;
+    private final int[] statuses;
+    private long durationNanos = 0;
+
+    public LoadTestReport(int numRequests) {
+        routes = new String[numRequests];
+        latencies = new long[numRequests];
+        statuses = new int[numRequests];
+    }
+
+    /**
+     * Record the outcome of a single request.
+     *
+     * @param index        Number of the request, counted from the first measured request.
+     * @param route        Route the request was sent to.
+     * @param latencyNanos Time until the complete response was received.
+     * @param status       HTTP status of the response or {@link #IO_ERROR}.
+     */
+    public void record(int index, String route, long latencyNanos, int status) {
+        routes[index] = route;
+        latencies[index] = latencyNanos;
+        statuses[index] = status;
+    }
+
+    /**
+     * Set the wall-clock time needed to send all measured requests.
+     */
+    public void setDuration(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    public JSONObject toJson() {
+        final Map<String, List<Integer>> byRoute = new TreeMap<>();
+        final List<Integer> all = new ArrayList<>(latencies.length);
+        for (int i = 0; i < latencies.length; ++i) {
+            if (routes[i] != null) {
+                byRoute.computeIfAbsent(routes[i], k -> new ArrayList<>()).add(i);
+                all.add(i);
+            }
+        }
+
+        final JSONObject routeJson = new JSONObject();
+        for (Map.Entry<String, List<Integer>> route : byRoute.entrySet()) {
+            routeJson.put(route.getKey(), summarize(route.getValue()));
+        }
+
+        return summarize(all)
+                .put("duration_seconds", durationNanos / NANOS_PER_SECOND)
+                .put("routes", routeJson);
+    }
+
+    /**
+     * Create a human-readable table of the results.
+     */
+    public String format() {
+        final JSONObject json = toJson();
+        final StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-12s %8s %10s %8s %9s %9s %9s %9s%n",
+                "route", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        final JSONObject routeJson = json.getJSONObject("routes");
+        for (String route : routeJson.keySet()) {
+            appendLine(out, route, routeJson.getJSONObject(route));
+        }
+        appendLine(out, "total", json);
+        return out.toString();
+    }
+
+    private static void appendLine(StringBuilder out, String name, JSONObject summary) {
+        final JSONObject latency = summary.getJSONObject("latency_ms");
+        out.append(String.format(Locale.ROOT, "%-12s %8d %10.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f%n",
+                name, summary.getInt("requests"), summary.getDouble("throughput"),
+                summary.getDouble("error_rate") * 100,
+                latency.getDouble("p50"), latency.getDouble("p95"), latency.getDouble("p99"), latency.getDouble("max")));
+    }
+
+    private JSONObject summarize(List<Integer> indexes) {
+        final long[] sorted = new long[indexes.size()];
+        final Map<String, Integer> errors = new LinkedHashMap<>();
+        int numErrors = 0;
+        for (int i = 0; i < sorted.length; ++i) {
+            final int index = indexes.get(i);
+            sorted[i] = latencies[index];
+            if (statuses[index] != 200) {
+                ++numErrors;
+                errors.merge(statuses[index] == IO_ERROR ? "io" : Integer.toString(statuses[index]), 1, Integer::sum);
+            }
+        }
+        Arrays.sort(sorted);
+
+        return new JSONObject()
+                .put("requests", sorted.length)
+                .put("throughput", durationNanos > 0 ? sorted.length * NANOS_PER_SECOND / durationNanos : 0)
+                .put("error_rate", sorted.length > 0 ? (double) numErrors / sorted.length : 0)
+                .put("errors", errors)
+                .put("latency_ms", new JSONObject()
+                        .put("p50", percentile(sorted, 0.5))
+                        .put("p95", percentile(sorted, 0.95))
+                        .put("p99", percentile(sorted, 0.99))
+                        .put("max", sorted.length > 0 ? sorted[sorted.length - 1] / NANOS_PER_MILLI : 0));
+    }
+
+    /**
+     * Get a percentile of the sorted latencies in milliseconds, using the nearest-rank method.
+     */
+    static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,145 @@
+package de.komoot.photon.loadtest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Requests to replay during the load test.
+ *
+ * The log has the format of the slow query log: one JSON object per line
+ * with the name of the route and the query parameters. Further fields, like
+ * the timings of the original request, are ignored. Only the GET routes of
+ * the API can be replayed. Older versions of photon wrote the time of the
+ * request in front of the JSON object, which is skipped.
+ */
+public class RequestLog {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(RequestLog.class);
+
+    private static final Set<String> SUPPORTED_ROUTES = Set.of("api", "reverse", "structured");
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Read the log.
+     *
+     * @throws IOException When the log cannot be read or contains no usable requests.
+     */
+    public static RequestLog read(BufferedReader reader) throws IOException {
+        final RequestLog log = new RequestLog();
+        int lineNumber = 0;
+        int skipped = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            final int start = line.indexOf('{');
+            if (start < 0) {
+                throw new IOException("Invalid request in line " + lineNumber + ": no JSON object found");
+            }
+
+            try {
+                final Entry entry = parseEntry(new JSONObject(line.substring(start)));
+                if (entry == null) {
+                    ++skipped;
+                } else {
+                    log.entries.add(entry);
+                }
+            } catch (JSONException e) {
+                throw new IOException("Invalid request in line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        if (skipped > 0) {
+            LOGGER.warn("Skipped {} requests for routes other than {}.", skipped, SUPPORTED_ROUTES);
+        }
+        if (log.entries.isEmpty()) {
+            throw new IOException("Request log contains no requests that can be replayed.");
+        }
+
+        return log;
+    }
+
+    static Entry parseEntry(JSONObject json) {
+        final String route = json.getString("route");
+        // The route names of the API handlers may have a trailing slash.
+        final String path = route.endsWith("/") ? route.substring(0, route.length() - 1) : route;
+        if (!SUPPORTED_ROUTES.contains(path)) {
+            return null;
+        }
+
+        final StringBuilder uri = new StringBuilder("/").append(path);
+        final JSONObject params = json.optJSONObject("params");
+        if (params != null) {
+            char separator = '?';
+            for (String key : params.keySet()) {
+                final Object value = params.get(key);
+                if (value instanceof JSONArray) {
+                    for (Object item : (JSONArray) value) {
+                        appendParam(uri, separator, key, item.toString());
+                        separator = '&';
+                    }
+                } else {
+                    appendParam(uri, separator, key, value.toString());
+                    separator = '&';
+                }
+            }
+        }
+
+        return new Entry(path, uri.toString());
+    }
+
+    private static void appendParam(StringBuilder uri, char separator, String key, String value) {
+        uri.append(separator)
+                .append(URLEncoder.encode(key, StandardCharsets.UTF_8))
+                .append('=')
+                .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the request with the given sequence number, repeating the log as needed.
+     */
+    public Entry get(long sequence) {
+        return entries.get((int) (sequence % entries.size()));
+    }
+
+    /**
+     * A single request of the log.
+     */
+    public static class Entry {
+        private final String route;
+        private final String uri;
+
+        Entry(String route, String uri) {
+            this.route = route;
+            this.uri = uri;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        /**
+         * Get path and query of the request, relative to the base URL of the server.
+         */
+        public String getUri() {
+            return uri;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package de.komoot.photon.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.opensearch.PhotonDocSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for converting documents into the JSON sent to OpenSearch during import.
+ */
+@State(Scope.Benchmark)
+public class PhotonDocSerializerBenchmark {
+    @Param({"city", "street"})
+    public String kind;
+
+    private ObjectMapper mapper;
+    private PhotonDoc doc;
+
+    @Setup
+    public void setup() {
+        mapper = new ObjectMapper().registerModule(new SimpleModule().addSerializer(
+                PhotonDoc.class, new PhotonDocSerializer(ImportFixtures.LANGUAGES, ImportFixtures.EXTRA_TAGS)));
+        doc = "city".equals(kind) ? ImportFixtures.createCity() : ImportFixtures.createStreet();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(doc);
+    }
+}
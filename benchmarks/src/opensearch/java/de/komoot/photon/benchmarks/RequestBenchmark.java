@@ -0,0 +1,63 @@
+package de.komoot.photon.benchmarks;
+
+import de.komoot.photon.opensearch.SearchQueryBuilder;
+import de.komoot.photon.opensearch.SearchQueryParts;
+import de.komoot.photon.query.BadRequestException;
+import de.komoot.photon.query.ParameterMapRequest;
+import de.komoot.photon.query.PhotonRequest;
+import de.komoot.photon.query.PhotonRequestFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+
+import java.util.Map;
+
+/**
+ * Benchmarks for turning the parameters of a forward search request into
+ * a query for the database.
+ */
+@State(Scope.Benchmark)
+public class RequestBenchmark {
+    @Param({"simple", "biased", "filtered"})
+    public String kind;
+
+    private Map<String, String[]> parameters;
+    private PhotonRequestFactory factory;
+    private SearchQueryParts queryParts;
+    private PhotonRequest request;
+
+    @Setup
+    public void setup() throws BadRequestException {
+        parameters = SearchFixtures.searchParameters(kind);
+        factory = new PhotonRequestFactory(SearchFixtures.LANGUAGES, SearchFixtures.DEFAULT_LANGUAGE, SearchFixtures.MAX_RESULTS);
+        queryParts = new SearchQueryParts(SearchFixtures.LANGUAGES.toArray(new String[0]));
+        request = parse();
+    }
+
+    @Benchmark
+    public PhotonRequest parse() throws BadRequestException {
+        return factory.create(new ParameterMapRequest(parameters, null));
+    }
+
+    @Benchmark
+    public Query buildQuery() {
+        return build(false);
+    }
+
+    @Benchmark
+    public Query buildLenientQuery() {
+        return build(true);
+    }
+
+    private Query build(boolean lenient) {
+        return new SearchQueryBuilder(request.getQuery(), request.getLanguage(), queryParts, lenient)
+                .withOsmTagFilters(request.getOsmTagFilters())
+                .withLayerFilters(request.getLayerFilters())
+                .withLocationBias(request.getLocationForBias(), request.getScaleForBias(), request.getZoomForBias())
+                .withBoundingBox(request.getBbox())
+                .buildQuery();
+    }
+}
@@ -0,0 +1,65 @@
+package de.komoot.photon.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.komoot.photon.opensearch.OpenSearchResult;
+import de.komoot.photon.searcher.GeocodeJsonFormatter;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.StreetDupesRemover;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmarks for turning the hits returned by the database into the
+ * response sent to the client.
+ */
+@State(Scope.Benchmark)
+public class ResponseBenchmark {
+    @Param({"en", "de"})
+    public String language;
+
+    private ObjectMapper mapper;
+    private byte[] hits;
+    private List<PhotonResult> results;
+    private StreetDupesRemover dupesRemover;
+    private GeocodeJsonFormatter formatter;
+
+    @Setup
+    public void setup() {
+        mapper = SearchFixtures.createMapper();
+        hits = SearchFixtures.loadSearchHits();
+        results = SearchFixtures.loadResults();
+        dupesRemover = new StreetDupesRemover(language);
+        formatter = new GeocodeJsonFormatter(false, language);
+    }
+
+    @Benchmark
+    public OpenSearchResult[] deserialize() throws IOException {
+        return mapper.readValue(hits, OpenSearchResult[].class);
+    }
+
+    @Benchmark
+    public List<PhotonResult> removeStreetDupes() {
+        return dupesRemover.execute(results);
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.convert(results, null);
+    }
+
+    /**
+     * All steps together, as done for every search request.
+     */
+    @Benchmark
+    public String fullResponse() throws IOException {
+        final List<PhotonResult> deserialized = Arrays.asList(mapper.readValue(hits, OpenSearchResult[].class));
+        return formatter.convert(dupesRemover.execute(deserialized), null);
+    }
+}
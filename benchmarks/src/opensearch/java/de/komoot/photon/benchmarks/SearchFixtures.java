@@ -0,0 +1,100 @@
+package de.komoot.photon.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import de.komoot.photon.opensearch.OpenSearchResult;
+import de.komoot.photon.opensearch.OpenSearchResultDeserializer;
+import de.komoot.photon.searcher.PhotonResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared input data for the benchmarks.
+ *
+ * The search hits in 'search-hits.json' are sources of documents as they are
+ * stored in the Photon database: a mix of cities, streets split into several
+ * segments, house numbers and POIs with names in multiple languages.
+ */
+final class SearchFixtures {
+    static final List<String> LANGUAGES = List.of("en", "de", "fr", "it");
+    static final String DEFAULT_LANGUAGE = "en";
+    static final int MAX_RESULTS = 50;
+
+    private SearchFixtures() {
+    }
+
+    /**
+     * Create a mapper that reads search hits the same way the OpenSearch client does.
+     */
+    static ObjectMapper createMapper() {
+        return new ObjectMapper().registerModule(
+                new SimpleModule().addDeserializer(OpenSearchResult.class, new OpenSearchResultDeserializer()));
+    }
+
+    /**
+     * Get the raw JSON of the fixture hits.
+     */
+    static byte[] loadSearchHits() {
+        try (InputStream in = SearchFixtures.class.getResourceAsStream("/search-hits.json")) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture 'search-hits.json' not found.");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the fixture hits as results.
+     */
+    static List<PhotonResult> loadResults() {
+        try {
+            final OpenSearchResult[] results = createMapper().readValue(loadSearchHits(), OpenSearchResult[].class);
+            for (int i = 0; i < results.length; ++i) {
+                results[i].setScore(results.length - i);
+            }
+            return Arrays.asList(results);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the query parameters of a typical search request.
+     *
+     * @param kind One of 'simple', 'biased' or 'filtered'.
+     */
+    static Map<String, String[]> searchParameters(String kind) {
+        final Map<String, String[]> params = new HashMap<>();
+        params.put("q", new String[]{"unter den linden 5, berlin"});
+        params.put("limit", new String[]{"10"});
+
+        switch (kind) {
+            case "simple":
+                break;
+            case "biased":
+                params.put("lat", new String[]{"52.5200"});
+                params.put("lon", new String[]{"13.4050"});
+                params.put("zoom", new String[]{"14"});
+                params.put("location_bias_scale", new String[]{"0.3"});
+                params.put("lang", new String[]{"de"});
+                break;
+            case "filtered":
+                params.put("bbox", new String[]{"13.0883,52.3382,13.7611,52.6755"});
+                params.put("osm_tag", new String[]{"highway", "!highway:footway", "place:house"});
+                params.put("layer", new String[]{"house", "street"});
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown request kind: " + kind);
+        }
+
+        return params;
+    }
+}
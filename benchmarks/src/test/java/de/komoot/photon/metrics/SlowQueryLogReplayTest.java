@@ -0,0 +1,62 @@
+package de.komoot.photon.metrics;
+
+import de.komoot.photon.loadtest.RequestLog;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays entries of the slow query log with the load test. The test lives in
+ * the package of {@link SlowQueryLog} to get at the exact lines it writes.
+ */
+class SlowQueryLogReplayTest {
+
+    private static String logLine() {
+        final Map<String, String[]> params = new LinkedHashMap<>();
+        params.put("q", new String[]{"berlin mitte"});
+        params.put("osm_tag", new String[]{"place", "!highway"});
+
+        return SlowQueryLog.makeEntry("api/", params, "de", new RequestTimings(), 3, 2_500_000, "slow").toString();
+    }
+
+    private static void assertReplayed(RequestLog.Entry entry) {
+        // The order of the parameters in the JSON object is not defined.
+        final String[] uri = entry.getUri().split("\\?", 2);
+
+        assertEquals("/api", uri[0]);
+        assertEquals(Set.of("q=berlin+mitte", "osm_tag=place", "osm_tag=%21highway"), Set.of(uri[1].split("&")));
+    }
+
+    private static RequestLog read(String... lines) throws IOException {
+        return RequestLog.read(new BufferedReader(new StringReader(String.join("\n", lines))));
+    }
+
+    @Test
+    void testReplaysSlowQueryLog() throws IOException {
+        final RequestLog log = read(logLine(), "");
+
+        assertEquals(1, log.size());
+        assertEquals("api", log.get(0).getRoute());
+        assertReplayed(log.get(0));
+    }
+
+    @Test
+    void testSkipsTimestampOfOlderLogs() throws IOException {
+        final RequestLog log = read("2024-05-02 10:11:12,345 " + logLine());
+
+        assertEquals(1, log.size());
+        assertReplayed(log.get(0));
+    }
+
+    @Test
+    void testRejectsLinesWithoutJson() {
+        assertThrows(IOException.class, () -> read(logLine(), "not a request"));
+    }
+}
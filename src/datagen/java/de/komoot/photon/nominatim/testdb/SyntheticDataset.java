@@ -0,0 +1,533 @@
+package de.komoot.photon.nominatim.testdb;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generator for Nominatim data of arbitrary size.
+ *
+ * Creates rows for placex, place_addressline and location_property_osmline
+ * that form a consistent address hierarchy: cities with districts, streets,
+ * houses, POIs and interpolation lines. City sizes follow a power law, so
+ * that there are few large cities with names in many languages and many
+ * small villages with a single name. House numbers are a mix of plain
+ * numbers, numbers with suffixes, ranges and lists.
+ *
+ * Rows are handed to a {@link RowWriter} as soon as they are created, so
+ * the memory needed does not depend on the size of the dataset. The same
+ * seed always creates the same rows.
+ *
+ * This class is compiled with the tests and with the dataset generator of
+ * the benchmarks module, so it must not depend on any other libraries.
+ */
+public class SyntheticDataset {
+    /**
+     * Receives the generated rows.
+     */
+    public interface RowWriter {
+        void writeCountry(String countryCode, Map<String, String> names);
+
+        void writePlace(Place place);
+
+        void writeAddressLine(long placeId, long addressPlaceId, int rankAddress, double distance);
+
+        void writeInterpolation(Interpolation interpolation);
+    }
+
+    private static final String[] LANGUAGES = {"en", "de", "fr", "it", "es", "nl", "pl", "ru", "ja", "zh", "ar", "pt"};
+    private static final String[] POI_TYPES = {"restaurant", "cafe", "pharmacy", "school", "bank", "fuel", "bakery", "kindergarten"};
+    private static final String[] POI_NAMES = {"Sonne", "Central", "Am Markt", "Royal", "Zur Post", "Bella Vista", "Express", "Europa"};
+
+    private static final Country[] COUNTRIES = {
+            new Country("de", "Deutschland", "Germany", 47.3, 54.9, 5.9, 15.0,
+                    new String[]{"Neu", "Alt", "Ober", "Nieder", "Groß", "Klein", "Bad "},
+                    new String[]{"berg", "dorf", "hausen", "heim", "burg", "feld", "bach", "stadt"},
+                    new String[]{"Hauptstraße", "Bahnhofstraße", "Schulstraße", "Gartenstraße", "Dorfstraße", "Kirchweg", "Lindenallee", "Am Anger"}),
+            new Country("fr", "France", "France", 43.0, 50.9, -1.5, 7.5,
+                    new String[]{"Saint-", "Sainte-", "Mont", "Ville", "Beau"},
+                    new String[]{"ville", "court", "mont", "-sur-Mer", "-les-Bains", "ac"},
+                    new String[]{"Rue de la Gare", "Rue de l'Église", "Avenue Victor Hugo", "Place de la République", "Chemin du Moulin", "Rue Pasteur"}),
+            new Country("it", "Italia", "Italy", 37.5, 46.5, 7.5, 17.5,
+                    new String[]{"San ", "Santa ", "Monte", "Borgo ", "Castel"},
+                    new String[]{"ino", "ello", "ano", " Marittima", " al Mare", "ese"},
+                    new String[]{"Via Roma", "Via Garibaldi", "Via Giuseppe Mazzini", "Corso Italia", "Piazza del Duomo", "Via Dante"}),
+            new Country("nl", "Nederland", "Netherlands", 51.3, 53.4, 3.5, 7.1,
+                    new String[]{"Nieuw", "Oud", "Groot", "Zuid", "Noord"},
+                    new String[]{"dam", "dijk", "wijk", "hoven", "veen", "berg"},
+                    new String[]{"Kerkstraat", "Dorpsstraat", "Molenweg", "Stationsweg", "Schoolstraat", "Julianalaan"}),
+            new Country("pl", "Polska", "Poland", 49.5, 54.5, 14.5, 23.5,
+                    new String[]{"Nowy ", "Stary ", "Wielki ", "Biała "},
+                    new String[]{"ów", "owo", "ice", "no", "sk"},
+                    new String[]{"ulica Kościuszki", "ulica Mickiewicza", "ulica Polna", "ulica Leśna", "ulica Słoneczna", "ulica Szkolna"}),
+            new Country("gb", "United Kingdom", "United Kingdom", 50.5, 55.5, -4.5, 1.5,
+                    new String[]{"Great ", "Little ", "North ", "Upper ", "Kings "},
+                    new String[]{"ton", "ham", "bury", "field", "worth", "ford"},
+                    new String[]{"High Street", "Station Road", "Church Lane", "Victoria Road", "Green Lane", "Manor Road"})};
+
+    private final Random random;
+    private final long numPlaces;
+    private long nextPlaceId = 1;
+    private long placesWritten = 0;
+    private long interpolationsWritten = 0;
+
+    /**
+     * Create a new generator.
+     *
+     * @param seed      Seed for the random generator.
+     * @param numPlaces Number of rows to create in placex.
+     */
+    public SyntheticDataset(long seed, long numPlaces) {
+        this.random = new Random(seed);
+        this.numPlaces = numPlaces;
+    }
+
+    public long getPlacesWritten() {
+        return placesWritten;
+    }
+
+    public long getInterpolationsWritten() {
+        return interpolationsWritten;
+    }
+
+    /**
+     * Create all rows and send them to the given writer.
+     */
+    public void generate(RowWriter writer) {
+        for (Country country : COUNTRIES) {
+            writer.writeCountry(country.code, Map.of("name", country.name, "name:en", country.englishName));
+        }
+
+        while (placesWritten < numPlaces) {
+            writeCity(writer, COUNTRIES[random.nextInt(COUNTRIES.length)]);
+        }
+    }
+
+    private void writeCity(RowWriter writer, Country country) {
+        // Pareto distribution of the number of streets: many villages, few large cities.
+        final int numStreets = (int) Math.min(5000, 3 / Math.pow(1 - random.nextDouble(), 1 / 1.1));
+        final String type = numStreets > 300 ? "city" : (numStreets > 40 ? "town" : "village");
+        final double lat = country.minLat + random.nextDouble() * (country.maxLat - country.minLat);
+        final double lon = country.minLon + random.nextDouble() * (country.maxLon - country.minLon);
+        final double radius = 0.003 * Math.sqrt(numStreets);
+
+        final String cityName = country.prefixes[random.nextInt(country.prefixes.length)]
+                + syllable() + country.suffixes[random.nextInt(country.suffixes.length)];
+        final Place city = new Place(nextPlaceId++, "R", "place", type, 16)
+                .names(cityNames(cityName, numStreets))
+                .country(country.code)
+                .postcode(postcode(country))
+                .importance(Math.min(0.9, 0.3 + numStreets / 5000.0))
+                .centroid(lat, lon)
+                .geometry(box(lat, lon, radius));
+        if (!write(writer, city)) {
+            return;
+        }
+
+        final int numDistricts = numStreets / 60;
+        final long[] districts = new long[numDistricts];
+        for (int i = 0; i < numDistricts; ++i) {
+            final double dlat = lat + (random.nextDouble() - 0.5) * radius;
+            final double dlon = lon + (random.nextDouble() - 0.5) * radius;
+            final Place district = new Place(nextPlaceId++, "R", "place", "suburb", 20)
+                    .names(Map.of("name", cityName + "-" + syllable()))
+                    .country(country.code)
+                    .parent(city.getPlaceId())
+                    .centroid(dlat, dlon)
+                    .geometry(box(dlat, dlon, radius / 4));
+            if (!write(writer, district)) {
+                return;
+            }
+            writer.writeAddressLine(district.getPlaceId(), city.getPlaceId(), 16, radius / 2);
+            districts[i] = district.getPlaceId();
+        }
+
+        for (int i = 0; i < numStreets; ++i) {
+            final double slat = lat + (random.nextDouble() - 0.5) * radius;
+            final double slon = lon + (random.nextDouble() - 0.5) * radius;
+            String streetName = country.streets[random.nextInt(country.streets.length)];
+            if (i >= country.streets.length) {
+                streetName = syllable() + streetName.toLowerCase(Locale.ROOT);
+            }
+            final String postcode = postcode(country);
+            final Place street = new Place(nextPlaceId++, "W", "highway", random.nextInt(5) == 0 ? "secondary" : "residential", 26)
+                    .names(Map.of("name", streetName))
+                    .country(country.code)
+                    .postcode(postcode)
+                    .parent(numDistricts > 0 ? districts[i % numDistricts] : city.getPlaceId())
+                    .centroid(slat, slon)
+                    .geometry(line(slat, slon, 3 + random.nextInt(6)));
+            if (!write(writer, street)) {
+                return;
+            }
+            writer.writeAddressLine(street.getPlaceId(), city.getPlaceId(), 16, radius / 2);
+            if (numDistricts > 0) {
+                writer.writeAddressLine(street.getPlaceId(), districts[i % numDistricts], 20, radius / 8);
+            }
+
+            if (!writeHouses(writer, country, street, streetName, postcode, slat, slon)) {
+                return;
+            }
+
+            if (random.nextInt(10) == 0) {
+                // Interpolations are long, up to the maximum of 1000 numbers that the import accepts.
+                final int start = 1 + random.nextInt(50);
+                final int step = random.nextInt(4) == 0 ? 1 : 2;
+                writer.writeInterpolation(new Interpolation(nextPlaceId++, street.getPlaceId(), country.code,
+                        postcode, start, start + step * (5 + random.nextInt(400)), step, line(slat, slon, 10)));
+                ++interpolationsWritten;
+            }
+        }
+    }
+
+    private boolean writeHouses(RowWriter writer, Country country, Place street, String streetName, String postcode,
+                                double lat, double lon) {
+        // Geometric distribution with a mean of about 12 houses per street.
+        final int numHouses = (int) Math.min(300, -12 * Math.log(1 - random.nextDouble()));
+        for (int number = 1; number <= numHouses; ++number) {
+            final Map<String, String> address = new HashMap<>();
+            address.put("housenumber", housenumber(number));
+            address.put("street", streetName);
+
+            final double hlat = lat + number * 0.00005;
+            final double hlon = lon + (random.nextDouble() - 0.5) * 0.0002;
+            final Place house;
+            if (random.nextInt(20) == 0) {
+                final String poiType = POI_TYPES[random.nextInt(POI_TYPES.length)];
+                house = new Place(nextPlaceId++, "N", "amenity", poiType, 30)
+                        .names(Map.of("name", POI_NAMES[random.nextInt(POI_NAMES.length)] + " " + syllable()))
+                        .extraTags(Map.of("opening_hours", "Mo-Fr 08:00-18:00", "website", "https://example.com/" + nextPlaceId));
+            } else {
+                house = new Place(nextPlaceId++, random.nextBoolean() ? "W" : "N", "building", "yes", 30);
+            }
+            house.address(address)
+                    .country(country.code)
+                    .postcode(postcode)
+                    .parent(street.getPlaceId())
+                    .centroid(hlat, hlon)
+                    .geometry(point(hlat, hlon));
+            if (!write(writer, house)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean write(RowWriter writer, Place place) {
+        if (placesWritten >= numPlaces) {
+            return false;
+        }
+        writer.writePlace(place);
+        ++placesWritten;
+        return true;
+    }
+
+    private Map<String, String> cityNames(String name, int numStreets) {
+        final Map<String, String> names = new HashMap<>();
+        names.put("name", name);
+        // Larger cities have translations into more languages.
+        final int numTranslations = Math.min(LANGUAGES.length, numStreets / 25);
+        for (int i = 0; i < numTranslations; ++i) {
+            names.put("name:" + LANGUAGES[i], i % 3 == 0 ? name : name + " (" + LANGUAGES[i] + ")");
+        }
+        if (random.nextInt(10) == 0) {
+            names.put("alt_name", name + " " + syllable());
+        }
+        if (random.nextInt(20) == 0) {
+            names.put("old_name", syllable() + name.toLowerCase(Locale.ROOT));
+        }
+        return names;
+    }
+
+    private String housenumber(int number) {
+        final int kind = random.nextInt(20);
+        if (kind == 0) {
+            return number + "-" + (number + 2);
+        }
+        if (kind == 1) {
+            return number + ";" + (number + 2);
+        }
+        if (kind < 4) {
+            return number + Character.toString('a' + random.nextInt(3));
+        }
+        return Integer.toString(number);
+    }
+
+    private String postcode(Country country) {
+        if ("gb".equals(country.code)) {
+            return String.format(Locale.ROOT, "%c%c%d %d%c%c", 'A' + random.nextInt(26), 'A' + random.nextInt(26),
+                    1 + random.nextInt(20), random.nextInt(10), 'A' + random.nextInt(26), 'A' + random.nextInt(26));
+        }
+        if ("nl".equals(country.code)) {
+            return String.format(Locale.ROOT, "%04d %c%c", 1000 + random.nextInt(9000), 'A' + random.nextInt(26), 'A' + random.nextInt(26));
+        }
+        return String.format(Locale.ROOT, "%05d", random.nextInt(100000));
+    }
+
+    private String syllable() {
+        final String consonants = "bdfghklmnprstvz";
+        final String vowels = "aeiou";
+        final StringBuilder out = new StringBuilder();
+        final int len = 1 + random.nextInt(2);
+        for (int i = 0; i < len; ++i) {
+            out.append(consonants.charAt(random.nextInt(consonants.length())));
+            out.append(vowels.charAt(random.nextInt(vowels.length())));
+        }
+        out.setCharAt(0, Character.toUpperCase(out.charAt(0)));
+        return out.toString();
+    }
+
+    private static String point(double lat, double lon) {
+        return String.format(Locale.ROOT, "POINT(%.7f %.7f)", lon, lat);
+    }
+
+    private static String box(double lat, double lon, double radius) {
+        return String.format(Locale.ROOT, "POLYGON((%1$.7f %2$.7f, %3$.7f %2$.7f, %3$.7f %4$.7f, %1$.7f %4$.7f, %1$.7f %2$.7f))",
+                lon - radius, lat - radius, lon + radius, lat + radius);
+    }
+
+    private String line(double lat, double lon, int numPoints) {
+        final StringBuilder out = new StringBuilder("LINESTRING(");
+        double plat = lat;
+        double plon = lon;
+        for (int i = 0; i < numPoints; ++i) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(String.format(Locale.ROOT, "%.7f %.7f", plon, plat));
+            plat += (random.nextDouble() - 0.3) * 0.001;
+            plon += (random.nextDouble() - 0.3) * 0.001;
+        }
+        return out.append(')').toString();
+    }
+
+    private static class Country {
+        final String code;
+        final String name;
+        final String englishName;
+        final double minLat;
+        final double maxLat;
+        final double minLon;
+        final double maxLon;
+        final String[] prefixes;
+        final String[] suffixes;
+        final String[] streets;
+
+        Country(String code, String name, String englishName, double minLat, double maxLat, double minLon, double maxLon,
+                String[] prefixes, String[] suffixes, String[] streets) {
+            this.code = code;
+            this.name = name;
+            this.englishName = englishName;
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.minLon = minLon;
+            this.maxLon = maxLon;
+            this.prefixes = prefixes;
+            this.suffixes = suffixes;
+            this.streets = streets;
+        }
+    }
+
+    /**
+     * A row of the placex table. Geometries are in WKT.
+     */
+    public static class Place {
+        private final long placeId;
+        private final String osmType;
+        private final String key;
+        private final String value;
+        private final int rankAddress;
+        private Long parentPlaceId = null;
+        private Map<String, String> names = null;
+        private Map<String, String> address = null;
+        private Map<String, String> extraTags = null;
+        private String countryCode = null;
+        private String postcode = null;
+        private Double importance = null;
+        private String centroid = null;
+        private String geometry = null;
+
+        Place(long placeId, String osmType, String key, String value, int rankAddress) {
+            this.placeId = placeId;
+            this.osmType = osmType;
+            this.key = key;
+            this.value = value;
+            this.rankAddress = rankAddress;
+        }
+
+        Place names(Map<String, String> names) {
+            this.names = names;
+            return this;
+        }
+
+        Place address(Map<String, String> address) {
+            this.address = address;
+            return this;
+        }
+
+        Place extraTags(Map<String, String> extraTags) {
+            this.extraTags = extraTags;
+            return this;
+        }
+
+        Place parent(long parentPlaceId) {
+            this.parentPlaceId = parentPlaceId;
+            return this;
+        }
+
+        Place country(String countryCode) {
+            this.countryCode = countryCode;
+            return this;
+        }
+
+        Place postcode(String postcode) {
+            this.postcode = postcode;
+            return this;
+        }
+
+        Place importance(double importance) {
+            this.importance = importance;
+            return this;
+        }
+
+        Place centroid(double lat, double lon) {
+            this.centroid = point(lat, lon);
+            return this;
+        }
+
+        Place geometry(String wkt) {
+            this.geometry = wkt;
+            return this;
+        }
+
+        public long getPlaceId() {
+            return placeId;
+        }
+
+        public Long getParentPlaceId() {
+            return parentPlaceId;
+        }
+
+        public String getOsmType() {
+            return osmType;
+        }
+
+        /**
+         * The generated places use the place ID as OSM ID.
+         */
+        public long getOsmId() {
+            return placeId;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public int getRankAddress() {
+            return rankAddress;
+        }
+
+        public int getRankSearch() {
+            return rankAddress;
+        }
+
+        public Map<String, String> getNames() {
+            return names;
+        }
+
+        public Map<String, String> getAddress() {
+            return address;
+        }
+
+        public Map<String, String> getExtraTags() {
+            return extraTags;
+        }
+
+        public String getCountryCode() {
+            return countryCode;
+        }
+
+        public String getPostcode() {
+            return postcode;
+        }
+
+        public Double getImportance() {
+            return importance;
+        }
+
+        public String getCentroid() {
+            return centroid;
+        }
+
+        public String getGeometry() {
+            return geometry;
+        }
+    }
+
+    /**
+     * A row of the location_property_osmline table. The geometry is in WKT.
+     */
+    public static class Interpolation {
+        private final long placeId;
+        private final long parentPlaceId;
+        private final String countryCode;
+        private final String postcode;
+        private final int startNumber;
+        private final int endNumber;
+        private final int step;
+        private final String lineGeometry;
+
+        Interpolation(long placeId, long parentPlaceId, String countryCode, String postcode,
+                      int startNumber, int endNumber, int step, String lineGeometry) {
+            this.placeId = placeId;
+            this.parentPlaceId = parentPlaceId;
+            this.countryCode = countryCode;
+            this.postcode = postcode;
+            this.startNumber = startNumber;
+            this.endNumber = endNumber;
+            this.step = step;
+            this.lineGeometry = lineGeometry;
+        }
+
+        public long getPlaceId() {
+            return placeId;
+        }
+
+        public long getOsmId() {
+            return placeId;
+        }
+
+        public long getParentPlaceId() {
+            return parentPlaceId;
+        }
+
+        public String getCountryCode() {
+            return countryCode;
+        }
+
+        public String getPostcode() {
+            return postcode;
+        }
+
+        public int getStartNumber() {
+            return startNumber;
+        }
+
+        public int getEndNumber() {
+            return endNumber;
+        }
+
+        public int getStep() {
+            return step;
+        }
+
+        public String getLineGeometry() {
+            return lineGeometry;
+        }
+    }
+}
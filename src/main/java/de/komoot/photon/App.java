@@ -2,19 +2,30 @@ package de.komoot.photon;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
+import de.komoot.photon.metrics.SlowQueryLog;
 import de.komoot.photon.nominatim.NominatimConnector;
 import de.komoot.photon.nominatim.NominatimUpdater;
+import de.komoot.photon.searcher.CachingReverseHandler;
+import de.komoot.photon.searcher.CachingSearchHandler;
+import de.komoot.photon.searcher.CoalescingSearchHandler;
+import de.komoot.photon.searcher.ReloadableReverseHandler;
 import de.komoot.photon.searcher.ReverseHandler;
 import de.komoot.photon.searcher.SearchHandler;
 import de.komoot.photon.searcher.StructuredSearchHandler;
+import de.komoot.photon.utils.ApiServerFactory;
 import de.komoot.photon.utils.CorsFilter;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.hotspot.DefaultExports;
 import org.slf4j.Logger;
 import spark.Request;
 import spark.Response;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 
 import static spark.Spark.*;
 
@@ -24,6 +35,8 @@ import static spark.Spark.*;
 public class App {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(App.class);
 
+    private static final int THREAD_IDLE_TIMEOUT_MILLIS = 60000;
+
     public static void main(String[] rawArgs) throws Exception {
         CommandLineArgs args = parseCommandLine(rawArgs);
 
@@ -38,7 +51,9 @@ public class App {
         }
 
         boolean shutdownES = false;
-        final Server esServer = new Server(args.getDataDirectory()).start(args.getCluster(), args.getTransportAddresses());
+        final Server esServer = new Server(args.getDataDirectory())
+                .setMaxConnections(args.getMaxDatabaseConnections())
+                .start(args.getCluster(), args.getTransportAddresses());
         try {
             LOGGER.info("Make sure that the ES cluster is ready, this might take some time.");
             esServer.waitForReady();
@@ -79,6 +94,10 @@ public class App {
             if (args.isCorsAnyOrigin() && args.getCorsOrigin().length > 0) {
                 throw new ParameterException("Use only one cors configuration type");
             }
+
+            if (args.getMinThreads() < 1 || args.getMaxThreads() < args.getMinThreads()) {
+                throw new ParameterException("Thread settings invalid: need 1 <= min-threads <= max-threads");
+            }
         } catch (ParameterException e) {
             LOGGER.warn("Could not start photon: {}", e.getMessage());
             jCommander.usage();
@@ -176,6 +195,14 @@ public class App {
             dbProperties.restrictLanguages(args.getLanguages());
         }
 
+        ApiServerFactory serverFactory = new ApiServerFactory(args.getMaxQueuedRequests())
+                .setIdleTimeout(args.getHttpIdleTimeout() * 1000)
+                .setAcceptQueueSize(args.getHttpAcceptQueueSize());
+        if (args.isCompressResponses()) {
+            serverFactory.enableCompression(args.getCompressionMinSize());
+        }
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, new EmbeddedJettyFactory(serverFactory));
+        threadPool(args.getMaxThreads(), args.getMinThreads(), THREAD_IDLE_TIMEOUT_MILLIS);
         port(args.getListenPort());
         ipAddress(args.getListenIp());
 
@@ -190,31 +217,92 @@ public class App {
         // setup search API
         String[] langs = dbProperties.getLanguages();
 
-        SearchHandler searchHandler = server.createSearchHandler(langs, args.getQueryTimeout());
-        get("api", new SearchRequestHandler("api", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults()));
-        get("api/", new SearchRequestHandler("api/", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults()));
+        SlowQueryLog slowQueryLog = new SlowQueryLog(args.getSlowQueryThreshold(), args.getSlowQuerySampleRate());
 
+        SearchHandler searchHandler = server.createSearchHandler(langs, args.getQueryTimeout(), args.isParallelLenient(),
+                args.isUseSearchTemplates());
+        if (args.getPrefixIndexSize() > 0) {
+            searchHandler = server.createPrefixSearchHandler(searchHandler, langs, args.getPrefixIndexSize());
+        }
+        if (args.isCoalesceSearches()) {
+            searchHandler = new CoalescingSearchHandler(searchHandler);
+        }
+        CachingSearchHandler searchCache = null;
+        if (args.getSearchCacheSize() > 0) {
+            searchCache = new CachingSearchHandler(searchHandler, args.getSearchCacheSize(), args.getCacheTtl() * 1000L);
+            searchHandler = searchCache;
+        }
+        get("api", new SearchRequestHandler("api", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults(),
+                args.isServerTiming(), slowQueryLog));
+        get("api/", new SearchRequestHandler("api/", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults(),
+                args.isServerTiming(), slowQueryLog));
+
+        StructuredSearchHandler structured = null;
         if (dbProperties.getSupportStructuredQueries()) {
-            StructuredSearchHandler structured = server.createStructuredSearchHandler(langs, args.getQueryTimeout());
-            get("structured", new StructuredSearchRequestHandler("structured", structured, langs, args.getDefaultLanguage(), args.getMaxResults()));
-            get("structured/", new StructuredSearchRequestHandler("structured/", structured, langs, args.getDefaultLanguage(), args.getMaxResults()));
+            structured = server.createStructuredSearchHandler(langs, args.getQueryTimeout());
+            get("structured", new StructuredSearchRequestHandler("structured", structured, langs, args.getDefaultLanguage(), args.getMaxResults(),
+                    args.isServerTiming(), slowQueryLog));
+            get("structured/", new StructuredSearchRequestHandler("structured/", structured, langs, args.getDefaultLanguage(), args.getMaxResults(),
+                    args.isServerTiming(), slowQueryLog));
         }
 
         ReverseHandler reverseHandler = server.createReverseHandler(args.getQueryTimeout());
+        ReloadableReverseHandler reverseIndex = null;
+        if (args.isReverseIndex()) {
+            reverseIndex = server.createIndexedReverseHandler(reverseHandler, args.getQueryTimeout(),
+                    args.getReverseIndexReloadInterval());
+            reverseHandler = reverseIndex;
+        }
+        CachingReverseHandler reverseCache = null;
+        if (args.getReverseCacheSize() > 0) {
+            reverseCache = new CachingReverseHandler(reverseHandler, args.getReverseCacheSize(), args.getCacheTtl() * 1000L);
+            reverseHandler = reverseCache;
+        }
         get("reverse", new ReverseSearchRequestHandler("reverse", reverseHandler, dbProperties.getLanguages(),
-                args.getDefaultLanguage(), args.getMaxReverseResults()));
+                args.getDefaultLanguage(), args.getMaxReverseResults(), args.isServerTiming(), slowQueryLog));
         get("reverse/", new ReverseSearchRequestHandler("reverse/", reverseHandler, dbProperties.getLanguages(),
-                args.getDefaultLanguage(), args.getMaxReverseResults()));
+                args.getDefaultLanguage(), args.getMaxReverseResults(), args.isServerTiming(), slowQueryLog));
         
-        get("status", new StatusRequestHandler("status", server));
-        get("status/", new StatusRequestHandler("status/", server));
+        if (args.isEnableBatchApi()) {
+            post("batch", new BatchRequestHandler("batch", searchHandler, structured, reverseHandler, langs,
+                    args.getDefaultLanguage(), args.getMaxResults(), args.getMaxReverseResults(), args.getMaxBatchSize()));
+            post("reverse/bulk", new BulkReverseRequestHandler("reverse/bulk", reverseHandler, langs,
+                    args.getDefaultLanguage(), args.getMaxReverseResults(), args.getBulkReverseParallelism(),
+                    args.getMaxThreads()));
+        }
+
+        if (args.isEnableMetrics()) {
+            DefaultExports.initialize();
+            get("metrics", new MetricsRequestHandler("metrics", CollectorRegistry.defaultRegistry));
+        }
 
+        NominatimUpdater statusUpdater = null;
         if (args.isEnableUpdateApi()) {
             // setup update API
             final NominatimUpdater nominatimUpdater = setupNominatimUpdater(args, server);
+            statusUpdater = nominatimUpdater;
             if (!nominatimUpdater.isSetUpForUpdates()) {
                 throw new RuntimeException("Update API enabled, but Nominatim database is not prepared. Run -nominatim-update-init-for first.");
             }
+            if (searchCache != null) {
+                nominatimUpdater.addUpdateListener(searchCache::invalidate);
+            }
+            if (reverseCache != null) {
+                nominatimUpdater.addUpdateListener(reverseCache::invalidate);
+            }
+            // The index is rebuilt in the background. Results that were found
+            // in the old index in the meantime are removed from the cache once
+            // the new index is in use.
+            if (reverseIndex != null) {
+                final ReloadableReverseHandler index = reverseIndex;
+                final CachingReverseHandler cache = reverseCache;
+                nominatimUpdater.addUpdateListener(() -> {
+                    final CompletableFuture<Void> reloaded = index.reload();
+                    if (cache != null) {
+                        reloaded.thenRun(cache::invalidate);
+                    }
+                });
+            }
             get("/nominatim-update/status", (Request request, Response response) -> {
                if (nominatimUpdater.isBusy()) {
                    return "\"BUSY\"";
@@ -227,5 +315,8 @@ public class App {
                 return "\"nominatim update started (more information in console output) ...\"";
             });
         }
+
+        get("status", new StatusRequestHandler("status", server, statusUpdater));
+        get("status/", new StatusRequestHandler("status/", server, statusUpdater));
     }
 }
@@ -0,0 +1,225 @@
+package de.komoot.photon;
+
+import de.komoot.photon.metrics.RequestMetrics;
+import de.komoot.photon.query.*;
+import de.komoot.photon.searcher.*;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import spark.Request;
+import spark.Response;
+import spark.RouteImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+import static spark.Spark.halt;
+
+/**
+ * Webserver route for batches of forward, structured and reverse geocoding requests.
+ *
+ * The body of the request must be a JSON array of objects with the name of the
+ * endpoint ('api', 'structured' or 'reverse') and the parameters for the request.
+ * The requests are sent to the database in chunks and the results are streamed
+ * back as newline-delimited JSON, one line per request in the order of the input.
+ */
+public class BatchRequestHandler extends RouteImpl {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(BatchRequestHandler.class);
+
+    private static final int CHUNK_SIZE = 100;
+    private static final String ROUTE = "batch";
+
+    private final PhotonRequestFactory photonRequestFactory;
+    private final ReverseRequestFactory reverseRequestFactory;
+    private final SearchHandler searchHandler;
+    private final StructuredSearchHandler structuredSearchHandler;
+    private final ReverseHandler reverseHandler;
+    private final int maxBatchSize;
+
+    BatchRequestHandler(String path, SearchHandler searchHandler, StructuredSearchHandler structuredSearchHandler,
+                        ReverseHandler reverseHandler, String[] languages, String defaultLanguage,
+                        int maxResults, int maxReverseResults, int maxBatchSize) {
+        super(path);
+        List<String> supportedLanguages = Arrays.asList(languages);
+        this.photonRequestFactory = new PhotonRequestFactory(supportedLanguages, defaultLanguage, maxResults);
+        this.reverseRequestFactory = new ReverseRequestFactory(supportedLanguages, defaultLanguage, maxReverseResults);
+        this.searchHandler = searchHandler;
+        this.structuredSearchHandler = structuredSearchHandler;
+        this.reverseHandler = reverseHandler;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public String handle(Request request, Response response) throws IOException {
+        final long startNanos = System.nanoTime();
+        JSONArray entries;
+        try {
+            entries = new JSONArray(request.body());
+        } catch (JSONException e) {
+            RequestMetrics.failed(ROUTE, 400);
+            throw halt(400, errorMessage("Request body must be a JSON array of requests."));
+        }
+
+        if (entries.length() > maxBatchSize) {
+            RequestMetrics.failed(ROUTE, 400);
+            throw halt(400, errorMessage("Too many requests in batch. At most " + maxBatchSize + " are allowed."));
+        }
+
+        response.type("application/x-ndjson; charset=UTF-8");
+        OutputStream out = response.raw().getOutputStream();
+        for (int start = 0; start < entries.length(); start += CHUNK_SIZE) {
+            for (String line : processChunk(request, entries, start, Math.min(start + CHUNK_SIZE, entries.length()))) {
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+            }
+            out.flush();
+        }
+
+        RequestMetrics.observe(ROUTE, startNanos);
+        return "";
+    }
+
+    private String[] processChunk(Request request, JSONArray entries, int start, int end) {
+        final String[] lines = new String[end - start];
+        final PendingRequests<PhotonRequest> forward = new PendingRequests<>();
+        final PendingRequests<StructuredPhotonRequest> structured = new PendingRequests<>();
+        final PendingRequests<ReverseRequest> reverse = new PendingRequests<>();
+
+        for (int i = start; i < end; ++i) {
+            final int pos = i - start;
+            final JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) {
+                lines[pos] = errorMessage("Batch entry must be a JSON object.");
+                continue;
+            }
+
+            try {
+                final Request params = new ParameterMapRequest(toParameterMap(entry.optJSONObject("params")), request);
+                final String endpoint = entry.optString("endpoint", "api");
+                switch (endpoint) {
+                    case "api":
+                        forward.add(pos, photonRequestFactory.create(params));
+                        break;
+                    case "structured":
+                        if (structuredSearchHandler == null) {
+                            lines[pos] = errorMessage("Structured queries are not supported by this database.");
+                        } else {
+                            structured.add(pos, photonRequestFactory.createStructured(params));
+                        }
+                        break;
+                    case "reverse":
+                        reverse.add(pos, reverseRequestFactory.create(params));
+                        break;
+                    default:
+                        lines[pos] = errorMessage("Unknown endpoint '" + endpoint + "'. Allowed endpoints are: api, structured, reverse");
+                }
+            } catch (BadRequestException e) {
+                lines[pos] = errorMessage(e.getMessage());
+            }
+        }
+
+        forward.run(searchHandler::searchBatch, lines, this::formatSearchResults);
+        if (structuredSearchHandler != null) {
+            structured.run(structuredSearchHandler::searchBatch, lines, this::formatSearchResults);
+        }
+        reverse.run(reverseHandler::reverseBatch, lines, this::formatReverseResults);
+
+        return lines;
+    }
+
+    private String formatSearchResults(PhotonRequestBase photonRequest, List<PhotonResult> results) {
+        // Further filtering
+        results = new StreetDupesRemover(photonRequest.getLanguage()).execute(results);
+
+        // Restrict to the requested limit.
+        if (results.size() > photonRequest.getLimit()) {
+            results = results.subList(0, photonRequest.getLimit());
+        }
+
+        // Debug output is pretty-printed, which does not fit into a single line.
+        return new GeocodeJsonFormatter(false, photonRequest.getLanguage()).convert(results, null);
+    }
+
+    private String formatReverseResults(ReverseRequest photonRequest, List<PhotonResult> results) {
+        // Restrict to the requested limit.
+        if (results.size() > photonRequest.getLimit()) {
+            results = results.subList(0, photonRequest.getLimit());
+        }
+
+        return new GeocodeJsonFormatter(false, photonRequest.getLanguage()).convert(results, null);
+    }
+
+    private static Map<String, String[]> toParameterMap(JSONObject params) throws BadRequestException {
+        final Map<String, String[]> parameters = new HashMap<>();
+        if (params == null) {
+            return parameters;
+        }
+
+        for (String key : params.keySet()) {
+            final Object value = params.get(key);
+            if (value instanceof JSONArray) {
+                final JSONArray values = (JSONArray) value;
+                final String[] strValues = new String[values.length()];
+                for (int i = 0; i < values.length(); ++i) {
+                    strValues[i] = values.get(i).toString();
+                }
+                parameters.put(key, strValues);
+            } else if (value instanceof JSONObject) {
+                throw new BadRequestException(400, String.format("Invalid parameter '%s': objects are not allowed as values.", key));
+            } else if (value != JSONObject.NULL) {
+                parameters.put(key, new String[]{value.toString()});
+            }
+        }
+
+        return parameters;
+    }
+
+    private static String errorMessage(String message) {
+        JSONObject json = new JSONObject();
+        json.put("message", message);
+        return json.toString();
+    }
+
+    /**
+     * Requests of one kind within a chunk together with their position in the output.
+     */
+    private static class PendingRequests<T> {
+        private final List<T> requests = new ArrayList<>();
+        private final List<Integer> positions = new ArrayList<>();
+
+        void add(int position, T request) {
+            positions.add(position);
+            requests.add(request);
+        }
+
+        void run(Function<List<T>, List<List<PhotonResult>>> executor, String[] lines, Formatter<T> formatter) {
+            if (requests.isEmpty()) {
+                return;
+            }
+
+            final List<List<PhotonResult>> results;
+            try {
+                results = executor.apply(requests);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while processing batch.", e);
+                for (int pos : positions) {
+                    lines[pos] = errorMessage("Internal error while processing the request.");
+                }
+                return;
+            }
+
+            for (int i = 0; i < requests.size(); ++i) {
+                lines[positions.get(i)] = formatter.format(requests.get(i), results.get(i));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Formatter<T> {
+        String format(T request, List<PhotonResult> results);
+    }
+}
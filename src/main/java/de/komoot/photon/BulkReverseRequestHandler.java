@@ -0,0 +1,301 @@
+package de.komoot.photon;
+
+import de.komoot.photon.metrics.RequestMetrics;
+import de.komoot.photon.query.*;
+import de.komoot.photon.searcher.GeocodeJsonFormatter;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.ReverseHandler;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.locationtech.jts.geom.Point;
+import org.slf4j.Logger;
+import spark.Request;
+import spark.Response;
+import spark.RouteImpl;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static spark.Spark.halt;
+
+/**
+ * Webserver route for reverse geocoding a stream of points.
+ *
+ * The points are read from the request body, either as newline-delimited JSON
+ * objects with 'lat' and 'lon' (content type application/x-ndjson or
+ * application/json) or, for content type application/octet-stream, as a
+ * sequence of big-endian double pairs (lat, lon). Other content types are
+ * rejected. All other parameters of a reverse request are taken from the URL
+ * and apply to all points.
+ * The points are sent to the database in chunks with a bounded number of chunks
+ * in flight and the results are streamed back as newline-delimited JSON,
+ * one line per point in the order of the input. Note that the web server may
+ * already have buffered the complete request body, so the size of the input
+ * is not limited by this handler.
+ * The chunks of all bulk requests share a pool with a fixed number of threads,
+ * chunks beyond that wait in a queue.
+ */
+public class BulkReverseRequestHandler extends RouteImpl {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(BulkReverseRequestHandler.class);
+
+    private static final int CHUNK_SIZE = 100;
+    private static final String ROUTE = "reverse_bulk";
+    private static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+    private static final List<String> JSON_CONTENT_TYPES = List.of("application/x-ndjson", "application/json");
+    private static final LocationParamConverter locationConverter = new LocationParamConverter(true);
+    private static final long THREAD_IDLE_TIMEOUT_SECONDS = 60;
+
+    private final ReverseRequestFactory reverseRequestFactory;
+    private final ReverseHandler requestHandler;
+    private final int maxParallelChunks;
+    private final ExecutorService executor;
+
+    /**
+     * @param maxParallelChunks Number of chunks of a single request that are processed at the same time.
+     * @param maxThreads        Number of chunks of all requests together that are processed at the same time.
+     */
+    BulkReverseRequestHandler(String path, ReverseHandler dbHandler, String[] languages, String defaultLanguage,
+                              int maxResults, int maxParallelChunks, int maxThreads) {
+        super(path);
+        List<String> supportedLanguages = Arrays.asList(languages);
+        this.reverseRequestFactory = new ReverseRequestFactory(supportedLanguages, defaultLanguage, maxResults);
+        this.requestHandler = dbHandler;
+        this.maxParallelChunks = Math.max(1, maxParallelChunks);
+        final int threads = Math.max(1, maxThreads);
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                THREAD_IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "photon-bulk-reverse");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    @Override
+    public String handle(Request request, Response response) throws IOException {
+        final long startNanos = System.nanoTime();
+        // Check the content type first: reading the query parameters consumes
+        // form-encoded bodies.
+        final String contentType = mediaType(request.contentType());
+        final boolean binary = BINARY_CONTENT_TYPE.equals(contentType);
+        if (!binary && !JSON_CONTENT_TYPES.contains(contentType)) {
+            RequestMetrics.failed(ROUTE, 415);
+            throw halt(415, errorMessage("Unsupported content type, expected application/x-ndjson or "
+                    + BINARY_CONTENT_TYPE + "."));
+        }
+
+        final ReverseRequest template = createTemplateRequest(request);
+        final PointReader reader = binary
+                ? new BinaryPointReader(request.raw().getInputStream())
+                : new JsonPointReader(request.raw().getInputStream());
+
+        response.type("application/x-ndjson; charset=UTF-8");
+        final OutputStream out = response.raw().getOutputStream();
+
+        final Deque<CompletableFuture<String[]>> pending = new ArrayDeque<>();
+        Chunk chunk;
+        while ((chunk = readChunk(reader)) != null) {
+            if (pending.size() >= maxParallelChunks) {
+                writeLines(out, pending.poll().join());
+            }
+            final Chunk current = chunk;
+            pending.add(CompletableFuture.supplyAsync(() -> processChunk(template, current), executor));
+        }
+
+        while (!pending.isEmpty()) {
+            writeLines(out, pending.poll().join());
+        }
+
+        RequestMetrics.observe(ROUTE, startNanos);
+        return "";
+    }
+
+    private ReverseRequest createTemplateRequest(Request request) {
+        final Map<String, String[]> params = new HashMap<>(request.queryMap().toMap());
+        if (params.containsKey("lat") || params.containsKey("lon")) {
+            RequestMetrics.failed(ROUTE, 400);
+            throw halt(400, errorMessage("Parameters 'lat' and 'lon' must be given in the request body."));
+        }
+
+        // Dummy location, which is replaced with the points from the body later.
+        params.put("lat", new String[]{"0"});
+        params.put("lon", new String[]{"0"});
+
+        try {
+            return reverseRequestFactory.create(new ParameterMapRequest(params, request));
+        } catch (BadRequestException e) {
+            RequestMetrics.failed(ROUTE, e.getHttpStatus());
+            throw halt(e.getHttpStatus(), errorMessage(e.getMessage()));
+        }
+    }
+
+    private Chunk readChunk(PointReader reader) throws IOException {
+        final Chunk chunk = new Chunk();
+        while (chunk.size < CHUNK_SIZE) {
+            try {
+                final Point point = reader.next();
+                if (point == null) {
+                    break;
+                }
+                chunk.points[chunk.size] = point;
+            } catch (BadRequestException e) {
+                chunk.lines[chunk.size] = errorMessage(e.getMessage());
+            }
+            ++chunk.size;
+        }
+
+        return chunk.size == 0 ? null : chunk;
+    }
+
+    private String[] processChunk(ReverseRequest template, Chunk chunk) {
+        final String[] lines = Arrays.copyOf(chunk.lines, chunk.size);
+        final List<ReverseRequest> requests = new ArrayList<>(chunk.size);
+        final List<Integer> positions = new ArrayList<>(chunk.size);
+        for (int i = 0; i < chunk.size; ++i) {
+            if (chunk.points[i] != null) {
+                requests.add(template.withLocation(chunk.points[i]));
+                positions.add(i);
+            }
+        }
+
+        if (requests.isEmpty()) {
+            return lines;
+        }
+
+        final List<List<PhotonResult>> results;
+        try {
+            results = requestHandler.reverseBatch(requests);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error while processing bulk reverse request.", e);
+            for (int pos : positions) {
+                lines[pos] = errorMessage("Internal error while processing the request.");
+            }
+            return lines;
+        }
+
+        for (int i = 0; i < requests.size(); ++i) {
+            List<PhotonResult> pointResults = results.get(i);
+            // Restrict to the requested limit.
+            if (pointResults.size() > template.getLimit()) {
+                pointResults = pointResults.subList(0, template.getLimit());
+            }
+            lines[positions.get(i)] = new GeocodeJsonFormatter(false, template.getLanguage()).convert(pointResults, null);
+        }
+
+        return lines;
+    }
+
+    /**
+     * Get the media type of a content type header without any parameters.
+     */
+    private static String mediaType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        final int end = contentType.indexOf(';');
+        return (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Validate the coordinates of a point from the body. Unlike query
+     * parameters, they may come as binary values which are not finite.
+     */
+    private static Point toPoint(double lon, double lat) throws BadRequestException {
+        if (!Double.isFinite(lon) || !Double.isFinite(lat)) {
+            throw new BadRequestException(400, "Coordinates must be finite numbers.");
+        }
+        return locationConverter.apply(lon, lat);
+    }
+
+    private static void writeLines(OutputStream out, String[] lines) throws IOException {
+        for (String line : lines) {
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private static String errorMessage(String message) {
+        JSONObject json = new JSONObject();
+        json.put("message", message);
+        return json.toString();
+    }
+
+    /**
+     * Points of one chunk. Invalid entries have no point but an error line.
+     */
+    private static class Chunk {
+        final Point[] points = new Point[CHUNK_SIZE];
+        final String[] lines = new String[CHUNK_SIZE];
+        int size = 0;
+    }
+
+    private interface PointReader {
+        /**
+         * Read the next point from the input.
+         *
+         * @return The next point or null when the end of the input is reached.
+         * @throws BadRequestException The next entry in the input is not a valid point.
+         */
+        Point next() throws IOException, BadRequestException;
+    }
+
+    private static class JsonPointReader implements PointReader {
+        private final BufferedReader reader;
+
+        JsonPointReader(InputStream in) {
+            reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Point next() throws IOException, BadRequestException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            try {
+                final JSONObject json = new JSONObject(line);
+                return toPoint(json.getDouble("lon"), json.getDouble("lat"));
+            } catch (JSONException e) {
+                throw new BadRequestException(400, "Each line must be a JSON object with numeric 'lat' and 'lon'.");
+            }
+        }
+    }
+
+    private static class BinaryPointReader implements PointReader {
+        private static final int PAIR_SIZE = 2 * Double.BYTES;
+
+        private final InputStream in;
+        private final byte[] pair = new byte[PAIR_SIZE];
+        private final ByteBuffer buffer = ByteBuffer.wrap(pair);
+
+        BinaryPointReader(InputStream in) {
+            this.in = new BufferedInputStream(in);
+        }
+
+        @Override
+        public Point next() throws IOException, BadRequestException {
+            final int read = in.readNBytes(pair, 0, PAIR_SIZE);
+            if (read == 0) {
+                return null;
+            }
+            if (read < PAIR_SIZE) {
+                throw new BadRequestException(400, "Incomplete coordinate pair at end of input.");
+            }
+
+            return toPoint(buffer.getDouble(Double.BYTES), buffer.getDouble(0));
+        }
+    }
+}
@@ -46,6 +46,12 @@ public class CommandLineArgs {
     @Parameter(names = "-query-timeout", description = "Time after which to cancel queries to the ES database (in seconds).")
     private int queryTimeout = 7;
 
+    @Parameter(names = "-parallel-lenient", description = "Send the lenient (typo-tolerant) search query together with the strict one instead of waiting for the strict query to return no results. Reduces latency for misspelled queries at the cost of additional load on the database.")
+    private boolean parallelLenient = false;
+
+    @Parameter(names = "-search-templates", description = "Register the search query as stored templates in the database and only send the query parameters with each search (OpenSearch only)")
+    private boolean useSearchTemplates = false;
+
     @Parameter(names = "-json", description = "Read from nominatim database and dump it to the given file in a json-like format (useful for developing)")
     private String jsonDump = null;
 
@@ -82,6 +88,72 @@ public class CommandLineArgs {
     @Parameter(names = "-enable-update-api", description = "Enable the additional endpoint /nominatim-update, which allows to trigger updates from a nominatim database")
     private boolean enableUpdateApi = false;
 
+    @Parameter(names = "-enable-batch-api", description = "Enable the additional endpoint /batch, which allows to send many search and reverse requests in a single POST request")
+    private boolean enableBatchApi = false;
+
+    @Parameter(names = "-max-batch-size", description = "The maximum number of requests in a single call to the /batch endpoint")
+    private int maxBatchSize = 1000;
+
+    @Parameter(names = "-bulk-reverse-parallelism", description = "Number of chunks of a bulk reverse request that are sent to the database in parallel")
+    private int bulkReverseParallelism = 4;
+
+    @Parameter(names = "-prefix-index-size", description = "Number of most important places to keep in an in-memory index for answering single-word type-ahead queries (default: 0, index disabled; OpenSearch only)")
+    private int prefixIndexSize = 0;
+
+    @Parameter(names = "-coalesce-searches", description = "Send only a single query to the database for identical searches that arrive at the same time")
+    private boolean coalesceSearches = false;
+
+    @Parameter(names = "-search-cache-size", description = "Number of forward search results to keep in an in-memory cache (default: 0, cache disabled)")
+    private int searchCacheSize = 0;
+
+    @Parameter(names = "-reverse-index", description = "Keep the positions of all places in an in-memory index for answering reverse geocoding requests (OpenSearch only)")
+    private boolean reverseIndex = false;
+
+    @Parameter(names = "-reverse-index-reload-interval", description = "Time in seconds after which the reverse index is rebuilt from the database, for databases updated by another instance (default: 0, only rebuilt after updates through this instance)")
+    private int reverseIndexReloadInterval = 0;
+
+    @Parameter(names = "-reverse-cache-size", description = "Number of grid cells with reverse geocoding results to keep in an in-memory cache (default: 0, cache disabled)")
+    private int reverseCacheSize = 0;
+
+    @Parameter(names = "-cache-ttl", description = "Time in seconds after which cached search results expire")
+    private int cacheTtl = 300;
+
+    @Parameter(names = "-max-threads", description = "Maximum number of worker threads of the API server. This is the maximum number of requests processed in parallel.")
+    private int maxThreads = 200;
+
+    @Parameter(names = "-min-threads", description = "Number of worker threads of the API server to keep alive when idle")
+    private int minThreads = 8;
+
+    @Parameter(names = "-max-database-connections", description = "Maximum number of parallel connections to the database (default: 0, defaults of the database client; OpenSearch only)")
+    private int maxDatabaseConnections = 0;
+
+    @Parameter(names = "-max-queued-requests", description = "Maximum number of requests waiting for a free worker thread before further requests are rejected (default: unlimited)")
+    private int maxQueuedRequests = -1;
+
+    @Parameter(names = "-compress-responses", description = "Compress responses with gzip when the client supports it")
+    private boolean compressResponses = false;
+
+    @Parameter(names = "-compression-min-size", description = "Minimum size in bytes of a response to be compressed (default: 512)")
+    private int compressionMinSize = 512;
+
+    @Parameter(names = "-http-idle-timeout", description = "Time in seconds after which idle and keep-alive connections to the API are closed (default: 0, use the default of the web server)")
+    private int httpIdleTimeout = 0;
+
+    @Parameter(names = "-http-accept-queue-size", description = "Number of incoming connections queued by the operating system before they are accepted by the API server (default: 0, use the system default)")
+    private int httpAcceptQueueSize = 0;
+
+    @Parameter(names = "-enable-metrics", description = "Export request, cache and JVM metrics in the Prometheus format under /metrics")
+    private boolean enableMetrics = false;
+
+    @Parameter(names = "-server-timing", description = "Add a Server-Timing header with the time spent in each processing stage to search responses")
+    private boolean serverTiming = false;
+
+    @Parameter(names = "-slow-query-threshold", description = "Log search requests that take longer than the given number of milliseconds to the slow query log (default: 0, disabled)")
+    private long slowQueryThreshold = 0;
+
+    @Parameter(names = "-slow-query-sample-rate", description = "Fraction of all other search requests to write to the slow query log, between 0 and 1 (default: 0)")
+    private double slowQuerySampleRate = 0;
+
     @Parameter(names = "-h", description = "Show help / usage")
     private boolean usage = false;
 
@@ -143,6 +215,14 @@ public class CommandLineArgs {
         return this.queryTimeout;
     }
 
+    public boolean isParallelLenient() {
+        return this.parallelLenient;
+    }
+
+    public boolean isUseSearchTemplates() {
+        return this.useSearchTemplates;
+    }
+
     public String getJsonDump() {
         return this.jsonDump;
     }
@@ -191,6 +271,46 @@ public class CommandLineArgs {
         return this.enableUpdateApi;
     }
 
+    public boolean isEnableBatchApi() {
+        return this.enableBatchApi;
+    }
+
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    public int getBulkReverseParallelism() {
+        return this.bulkReverseParallelism;
+    }
+
+    public int getPrefixIndexSize() {
+        return this.prefixIndexSize;
+    }
+
+    public boolean isCoalesceSearches() {
+        return this.coalesceSearches;
+    }
+
+    public int getSearchCacheSize() {
+        return this.searchCacheSize;
+    }
+
+    public boolean isReverseIndex() {
+        return this.reverseIndex;
+    }
+
+    public int getReverseIndexReloadInterval() {
+        return this.reverseIndexReloadInterval;
+    }
+
+    public int getReverseCacheSize() {
+        return this.reverseCacheSize;
+    }
+
+    public int getCacheTtl() {
+        return this.cacheTtl;
+    }
+
     public boolean isUsage() {
         return this.usage;
     }
@@ -204,5 +324,53 @@ public class CommandLineArgs {
     public int getMaxResults() {
         return maxResults;
     }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    public int getMaxDatabaseConnections() {
+        return maxDatabaseConnections;
+    }
+
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    public boolean isCompressResponses() {
+        return compressResponses;
+    }
+
+    public int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+    public int getHttpIdleTimeout() {
+        return httpIdleTimeout;
+    }
+
+    public int getHttpAcceptQueueSize() {
+        return httpAcceptQueueSize;
+    }
+
+    public boolean isEnableMetrics() {
+        return enableMetrics;
+    }
+
+    public boolean isServerTiming() {
+        return serverTiming;
+    }
+
+    public long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    public double getSlowQuerySampleRate() {
+        return slowQuerySampleRate;
+    }
 }
 
@@ -0,0 +1,31 @@
+package de.komoot.photon;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import spark.Request;
+import spark.Response;
+import spark.RouteImpl;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Webserver route exporting the collected metrics in the Prometheus text format.
+ */
+public class MetricsRequestHandler extends RouteImpl {
+    private final CollectorRegistry registry;
+
+    MetricsRequestHandler(String path, CollectorRegistry registry) {
+        super(path);
+        this.registry = registry;
+    }
+
+    @Override
+    public String handle(Request request, Response response) throws IOException {
+        final StringWriter writer = new StringWriter();
+        TextFormat.write004(writer, registry.metricFamilySamples());
+
+        response.type(TextFormat.CONTENT_TYPE_004);
+        return writer.toString();
+    }
+}
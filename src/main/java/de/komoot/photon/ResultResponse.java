@@ -0,0 +1,60 @@
+package de.komoot.photon;
+
+import de.komoot.photon.metrics.RequestTimings;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.ResultFormatter;
+import org.json.JSONObject;
+import spark.Response;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Helpers for sending search results back to the client, shared by the
+ * different search routes.
+ */
+class ResultResponse {
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private ResultResponse() {
+    }
+
+    /**
+     * Create the debug information for a response.
+     *
+     * @param query   Dump of the database query, must be a JSON object. May be null
+     *                when the backend cannot provide the query.
+     * @param timings Timings of the request so far.
+     */
+    static String debugInfo(String query, RequestTimings timings) {
+        final JSONObject json = new JSONObject();
+        if (query != null) {
+            json.put("query", new JSONObject(query));
+        }
+        json.put("timings", timings.toJson());
+        return json.toString();
+    }
+
+    /**
+     * Format the results and send them to the client.
+     *
+     * The response is streamed directly to the client. The Server-Timing
+     * header therefore needs to be set before formatting starts and only
+     * contains the stages up to here. The time for formatting is still
+     * recorded in the timings for the metrics and the slow query log.
+     *
+     * @return The response body to return from the route.
+     */
+    static String write(Response response, ResultFormatter formatter, List<PhotonResult> results, String debugInfo,
+                        RequestTimings timings, boolean serverTiming) throws IOException {
+        if (serverTiming) {
+            response.header(SERVER_TIMING_HEADER, timings.toServerTiming());
+        }
+
+        final long stageStart = System.nanoTime();
+        formatter.write(results, debugInfo, response.raw().getOutputStream());
+        timings.record(RequestTimings.FORMAT, stageStart);
+
+        return "";
+    }
+}
@@ -1,5 +1,8 @@
 package de.komoot.photon;
 
+import de.komoot.photon.metrics.RequestMetrics;
+import de.komoot.photon.metrics.RequestTimings;
+import de.komoot.photon.metrics.SlowQueryLog;
 import de.komoot.photon.query.BadRequestException;
 import de.komoot.photon.query.ReverseRequest;
 import de.komoot.photon.query.ReverseRequestFactory;
@@ -11,6 +14,7 @@ import spark.Request;
 import spark.Response;
 import spark.RouteImpl;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -20,28 +24,47 @@ import static spark.Spark.halt;
  * Webserver route for reverse geocoding requests.
  */
 public class ReverseSearchRequestHandler extends RouteImpl {
+    private static final String ROUTE = "reverse";
+
     private final ReverseRequestFactory reverseRequestFactory;
     private final ReverseHandler requestHandler;
+    private final boolean serverTiming;
+    private final SlowQueryLog slowQueryLog;
 
-    ReverseSearchRequestHandler(String path, ReverseHandler dbHandler, String[] languages, String defaultLanguage, int maxResults) {
+    ReverseSearchRequestHandler(String path, ReverseHandler dbHandler, String[] languages, String defaultLanguage, int maxResults,
+                                boolean serverTiming, SlowQueryLog slowQueryLog) {
         super(path);
         List<String> supportedLanguages = Arrays.asList(languages);
         this.reverseRequestFactory = new ReverseRequestFactory(supportedLanguages, defaultLanguage, maxResults);
         this.requestHandler = dbHandler;
+        this.serverTiming = serverTiming;
+        this.slowQueryLog = slowQueryLog;
     }
 
     @Override
-    public String handle(Request request, Response response) {
+    public String handle(Request request, Response response) throws IOException {
+        final long startNanos = System.nanoTime();
         ReverseRequest photonRequest = null;
         try {
             photonRequest = reverseRequestFactory.create(request);
         } catch (BadRequestException e) {
+            RequestMetrics.failed(ROUTE, e.getHttpStatus());
             JSONObject json = new JSONObject();
             json.put("message", e.getMessage());
             throw halt(e.getHttpStatus(), json.toString());
         }
 
-        List<PhotonResult> results = requestHandler.reverse(photonRequest);
+        final RequestTimings timings = photonRequest.getTimings();
+        timings.record(RequestTimings.PARSE, startNanos);
+
+        List<PhotonResult> results;
+        try {
+            // Spark routes are synchronous, so the worker thread still has to wait for the result here.
+            results = requestHandler.reverseAsync(photonRequest).join();
+        } catch (RuntimeException e) {
+            RequestMetrics.failed(ROUTE, 500);
+            throw e;
+        }
 
         // Restrict to the requested limit.
         if (results.size() > photonRequest.getLimit()) {
@@ -50,9 +73,15 @@ public class ReverseSearchRequestHandler extends RouteImpl {
 
         String debugInfo = null;
         if (photonRequest.getDebug()) {
-            debugInfo = requestHandler.dumpQuery(photonRequest);
+            debugInfo = ResultResponse.debugInfo(requestHandler.dumpQuery(photonRequest), timings);
         }
 
-        return new GeocodeJsonFormatter(false, photonRequest.getLanguage()).convert(results, debugInfo);
+        final String body = ResultResponse.write(response,
+                new GeocodeJsonFormatter(false, photonRequest.getLanguage()),
+                results, debugInfo, timings, serverTiming);
+
+        RequestMetrics.observe(ROUTE, timings, results.size(), startNanos);
+        slowQueryLog.log(ROUTE, request.queryMap().toMap(), photonRequest.getLanguage(), timings, results.size(), startNanos);
+        return body;
     }
 }
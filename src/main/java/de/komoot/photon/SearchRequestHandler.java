@@ -1,5 +1,8 @@
 package de.komoot.photon;
 
+import de.komoot.photon.metrics.RequestMetrics;
+import de.komoot.photon.metrics.RequestTimings;
+import de.komoot.photon.metrics.SlowQueryLog;
 import de.komoot.photon.query.BadRequestException;
 import de.komoot.photon.query.PhotonRequest;
 import de.komoot.photon.query.PhotonRequestFactory;
@@ -9,6 +12,7 @@ import spark.Request;
 import spark.Response;
 import spark.RouteImpl;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -18,33 +22,54 @@ import static spark.Spark.halt;
  * Webserver route for forward geocoding requests.
  */
 public class SearchRequestHandler extends RouteImpl {
+    private static final String ROUTE = "api";
+
     private final PhotonRequestFactory photonRequestFactory;
     private final SearchHandler requestHandler;
     private final int maxResults;
+    private final boolean serverTiming;
+    private final SlowQueryLog slowQueryLog;
 
-    SearchRequestHandler(String path, SearchHandler dbHandler, String[] languages, String defaultLanguage, int maxResults) {
+    SearchRequestHandler(String path, SearchHandler dbHandler, String[] languages, String defaultLanguage, int maxResults,
+                         boolean serverTiming, SlowQueryLog slowQueryLog) {
         super(path);
         List<String> supportedLanguages = Arrays.asList(languages);
         this.photonRequestFactory = new PhotonRequestFactory(supportedLanguages, defaultLanguage, maxResults);
         this.requestHandler = dbHandler;
         this.maxResults = maxResults;
+        this.serverTiming = serverTiming;
+        this.slowQueryLog = slowQueryLog;
     }
 
     @Override
-    public String handle(Request request, Response response) {
+    public String handle(Request request, Response response) throws IOException {
+        final long startNanos = System.nanoTime();
         PhotonRequest photonRequest = null;
         try {
             photonRequest = photonRequestFactory.create(request);
         } catch (BadRequestException e) {
+            RequestMetrics.failed(ROUTE, e.getHttpStatus());
             JSONObject json = new JSONObject();
             json.put("message", e.getMessage());
             throw halt(e.getHttpStatus(), json.toString());
         }
 
-        List<PhotonResult> results = requestHandler.search(photonRequest);
+        final RequestTimings timings = photonRequest.getTimings();
+        timings.record(RequestTimings.PARSE, startNanos);
+
+        List<PhotonResult> results;
+        try {
+            // Spark routes are synchronous, so the worker thread still has to wait for the result here.
+            results = requestHandler.searchAsync(photonRequest).join();
+        } catch (RuntimeException e) {
+            RequestMetrics.failed(ROUTE, 500);
+            throw e;
+        }
 
         // Further filtering
+        long stageStart = System.nanoTime();
         results = new StreetDupesRemover(photonRequest.getLanguage()).execute(results);
+        timings.record(RequestTimings.DEDUP, stageStart);
 
         // Restrict to the requested limit.
         if (results.size() > photonRequest.getLimit()) {
@@ -53,9 +78,15 @@ public class SearchRequestHandler extends RouteImpl {
 
         String debugInfo = null;
         if (photonRequest.getDebug()) {
-            debugInfo = requestHandler.dumpQuery(photonRequest);
+            debugInfo = ResultResponse.debugInfo(requestHandler.dumpQuery(photonRequest), timings);
         }
 
-        return new GeocodeJsonFormatter(photonRequest.getDebug(), photonRequest.getLanguage()).convert(results, debugInfo);
+        final String body = ResultResponse.write(response,
+                new GeocodeJsonFormatter(photonRequest.getDebug(), photonRequest.getLanguage()),
+                results, debugInfo, timings, serverTiming);
+
+        RequestMetrics.observe(ROUTE, timings, results.size(), startNanos);
+        slowQueryLog.log(ROUTE, request.queryMap().toMap(), photonRequest.getLanguage(), timings, results.size(), startNanos);
+        return body;
     }
 }
\ No newline at end of file
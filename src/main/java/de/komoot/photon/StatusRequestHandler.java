@@ -3,6 +3,8 @@ package de.komoot.photon;
 import java.io.IOException;
 import java.util.Date;
 
+import de.komoot.photon.nominatim.ImportProgress;
+import de.komoot.photon.nominatim.NominatimUpdater;
 import org.json.JSONObject;
 
 import spark.Request;
@@ -11,10 +13,17 @@ import spark.RouteImpl;
 
 public class StatusRequestHandler extends RouteImpl {
     private Server server;
+    private NominatimUpdater updater;
 
-    protected StatusRequestHandler(String path, Server server) {
+    /**
+     * Create a new status route.
+     *
+     * @param updater Updater for reporting the progress of running updates, may be null.
+     */
+    protected StatusRequestHandler(String path, Server server, NominatimUpdater updater) {
         super(path);
         this.server = server;
+        this.updater = updater;
     }
 
     @Override
@@ -30,6 +39,13 @@ public class StatusRequestHandler extends RouteImpl {
         out.put("status", "Ok");
         out.put("import_date", importDateStr);
 
+        if (updater != null) {
+            final ImportProgress progress = updater.getProgress();
+            if (progress != null) {
+                out.put("update", progress.toJson());
+            }
+        }
+
         return out.toString();
     }
     
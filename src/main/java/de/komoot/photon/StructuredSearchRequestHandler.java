@@ -1,5 +1,8 @@
 package de.komoot.photon;
 
+import de.komoot.photon.metrics.RequestMetrics;
+import de.komoot.photon.metrics.RequestTimings;
+import de.komoot.photon.metrics.SlowQueryLog;
 import de.komoot.photon.query.BadRequestException;
 import de.komoot.photon.query.PhotonRequestFactory;
 import de.komoot.photon.query.StructuredPhotonRequest;
@@ -9,37 +12,58 @@ import spark.Request;
 import spark.Response;
 import spark.RouteImpl;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
 import static spark.Spark.halt;
 
 public class StructuredSearchRequestHandler extends RouteImpl {
+    private static final String ROUTE = "structured";
+
     private final PhotonRequestFactory photonRequestFactory;
     private final StructuredSearchHandler requestHandler;
+    private final boolean serverTiming;
+    private final SlowQueryLog slowQueryLog;
 
-    StructuredSearchRequestHandler(String path, StructuredSearchHandler dbHandler, String[] languages, String defaultLanguage, int maxResults) {
+    StructuredSearchRequestHandler(String path, StructuredSearchHandler dbHandler, String[] languages, String defaultLanguage, int maxResults,
+                                   boolean serverTiming, SlowQueryLog slowQueryLog) {
         super(path);
         List<String> supportedLanguages = Arrays.asList(languages);
         this.photonRequestFactory = new PhotonRequestFactory(supportedLanguages, defaultLanguage, maxResults);
         this.requestHandler = dbHandler;
+        this.serverTiming = serverTiming;
+        this.slowQueryLog = slowQueryLog;
     }
 
     @Override
-    public String handle(Request request, Response response) {
+    public String handle(Request request, Response response) throws IOException {
+        final long startNanos = System.nanoTime();
         StructuredPhotonRequest photonRequest = null;
         try {
             photonRequest = photonRequestFactory.createStructured(request);
         } catch (BadRequestException e) {
+            RequestMetrics.failed(ROUTE, e.getHttpStatus());
             JSONObject json = new JSONObject();
             json.put("message", e.getMessage());
             throw halt(e.getHttpStatus(), json.toString());
         }
 
-        List<PhotonResult> results = requestHandler.search(photonRequest);
+        final RequestTimings timings = photonRequest.getTimings();
+        timings.record(RequestTimings.PARSE, startNanos);
+
+        List<PhotonResult> results;
+        try {
+            results = requestHandler.search(photonRequest);
+        } catch (RuntimeException e) {
+            RequestMetrics.failed(ROUTE, 500);
+            throw e;
+        }
 
         // Further filtering
+        long stageStart = System.nanoTime();
         results = new StreetDupesRemover(photonRequest.getLanguage()).execute(results);
+        timings.record(RequestTimings.DEDUP, stageStart);
 
         // Restrict to the requested limit.
         if (results.size() > photonRequest.getLimit()) {
@@ -47,10 +71,17 @@ public class StructuredSearchRequestHandler extends RouteImpl {
         }
 
         String debugInfo = null;
-     /*   if (photonRequest.getDebug()) {
-            debugInfo = requestHandler.dumpQuery(photonRequest);
+        if (photonRequest.getDebug()) {
+            // Structured search handlers cannot dump their query yet.
+            debugInfo = ResultResponse.debugInfo(null, timings);
         }
- */
-        return new GeocodeJsonFormatter(photonRequest.getDebug(), photonRequest.getLanguage()).convert(results, debugInfo);
+
+        final String body = ResultResponse.write(response,
+                new GeocodeJsonFormatter(photonRequest.getDebug(), photonRequest.getLanguage()),
+                results, debugInfo, timings, serverTiming);
+
+        RequestMetrics.observe(ROUTE, timings, results.size(), startNanos);
+        slowQueryLog.log(ROUTE, request.queryMap().toMap(), photonRequest.getLanguage(), timings, results.size(), startNanos);
+        return body;
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package de.komoot.photon.metrics;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Metrics collected while importing or updating data from a Nominatim database.
+ *
+ * Metrics with a 'mode' label distinguish between the initial import and
+ * updates, see {@link #IMPORT} and {@link #UPDATE}.
+ */
+public class ImportMetrics {
+    public static final String IMPORT = "import";
+    public static final String UPDATE = "update";
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    public static final Counter ROWS_READ = Counter.build()
+            .name("photon_import_rows_read")
+            .help("Number of rows read from the Nominatim database by table.")
+            .labelNames("mode", "table")
+            .register();
+
+    public static final Counter DOCUMENTS = Counter.build()
+            .name("photon_import_documents")
+            .help("Number of documents sent to the Photon database.")
+            .labelNames("mode")
+            .register();
+
+    public static final Counter BULK_REQUESTS = Counter.build()
+            .name("photon_import_bulk_requests")
+            .help("Number of bulk requests sent to the Photon database.")
+            .labelNames("mode")
+            .register();
+
+    public static final Histogram BULK_DURATION = Histogram.build()
+            .name("photon_import_bulk_duration_seconds")
+            .help("Time needed to execute a bulk request.")
+            .labelNames("mode")
+            .buckets(0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60)
+            .register();
+
+    public static final Counter BULK_ERRORS = Counter.build()
+            .name("photon_import_bulk_errors")
+            .help("Number of documents that could not be written by a bulk request.")
+            .labelNames("mode")
+            .register();
+
+    public static final Gauge QUEUE_DEPTH = Gauge.build()
+            .name("photon_import_queue_depth")
+            .help("Number of places waiting in the queue of the import thread.")
+            .register();
+
+    public static final Gauge EXPECTED_ROWS = Gauge.build()
+            .name("photon_import_expected_rows")
+            .help("Estimated number of rows to process in the running import or update.")
+            .labelNames("mode")
+            .register();
+
+    public static final Gauge ETA = Gauge.build()
+            .name("photon_import_eta_seconds")
+            .help("Estimated time until the running import or update is finished, -1 when unknown.")
+            .labelNames("mode")
+            .register();
+
+    private ImportMetrics() {
+    }
+
+    /**
+     * Record a finished bulk request.
+     *
+     * @param mode       Either {@link #IMPORT} or {@link #UPDATE}.
+     * @param startNanos Start of the request as returned by {@link System#nanoTime()}.
+     * @param failures   Number of documents that could not be written.
+     */
+    public static void bulkFinished(String mode, long startNanos, int failures) {
+        BULK_REQUESTS.labels(mode).inc();
+        BULK_DURATION.labels(mode).observe((System.nanoTime() - startNanos) / NANOS_PER_SECOND);
+        if (failures > 0) {
+            BULK_ERRORS.labels(mode).inc(failures);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package de.komoot.photon.metrics;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+
+import java.util.Map;
+
+/**
+ * Metrics about the requests to the API.
+ */
+public class RequestMetrics {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    public static final Counter REQUESTS = Counter.build()
+            .name("photon_api_requests")
+            .help("Number of API requests by route and HTTP status.")
+            .labelNames("route", "status")
+            .register();
+
+    public static final Histogram REQUEST_DURATION = Histogram.build()
+            .name("photon_api_request_duration_seconds")
+            .help("Time needed to answer successful API requests.")
+            .labelNames("route")
+            .buckets(0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10)
+            .register();
+
+    public static final Histogram STAGE_DURATION = Histogram.build()
+            .name("photon_api_stage_duration_seconds")
+            .help("Time spent in the different stages of answering an API request.")
+            .labelNames("route", "stage")
+            .buckets(0.0001, 0.0005, 0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5)
+            .register();
+
+    public static final Histogram RESULTS = Histogram.build()
+            .name("photon_api_results")
+            .help("Number of results returned by API requests.")
+            .labelNames("route")
+            .buckets(0, 1, 2, 5, 10, 20, 50)
+            .register();
+
+    private RequestMetrics() {
+    }
+
+    /**
+     * Record a successfully answered request.
+     *
+     * @param route      Name of the route that answered the request.
+     * @param timings    Times of the processing stages of the request, may be null.
+     * @param numResults Number of results returned.
+     * @param startNanos Start of the request as returned by {@link System#nanoTime()}.
+     */
+    public static void observe(String route, RequestTimings timings, int numResults, long startNanos) {
+        observe(route, startNanos);
+        RESULTS.labels(route).observe(numResults);
+
+        if (timings != null) {
+            for (Map.Entry<String, Long> stage : timings.getStages().entrySet()) {
+                STAGE_DURATION.labels(route, stage.getKey()).observe(stage.getValue() / NANOS_PER_SECOND);
+            }
+        }
+    }
+
+    /**
+     * Record a successfully answered request without looking at its results.
+     */
+    public static void observe(String route, long startNanos) {
+        REQUESTS.labels(route, "200").inc();
+        REQUEST_DURATION.labels(route).observe((System.nanoTime() - startNanos) / NANOS_PER_SECOND);
+    }
+
+    /**
+     * Record a request that could not be answered.
+     */
+    public static void failed(String route, int httpStatus) {
+        REQUESTS.labels(route, Integer.toString(httpStatus)).inc();
+    }
+}
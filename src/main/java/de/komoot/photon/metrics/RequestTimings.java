@@ -0,0 +1,161 @@
+package de.komoot.photon.metrics;
+
+import org.json.JSONObject;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Wall-clock time spent in the different stages of processing a single request.
+ *
+ * Stages may be recorded from different threads, e.g. when a database query
+ * completes asynchronously. When a stage is recorded more than once, the
+ * times are added up.
+ *
+ * Next to the local timings, the statistics reported by the database for
+ * each query can be recorded, so that slow database queries can be told
+ * apart from slow network or client code.
+ */
+public class RequestTimings implements Serializable {
+    public static final String PARSE = "parse";
+    public static final String QUERY_BUILD = "query_build";
+    public static final String INDEX_LOOKUP = "index_lookup";
+    public static final String BACKEND = "backend";
+    public static final String BACKEND_LENIENT = "backend_lenient";
+    public static final String DEDUP = "dedup";
+    public static final String FORMAT = "format";
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final long createdNanos = System.nanoTime();
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+    private final Map<String, BackendStats> backendStats = new LinkedHashMap<>();
+    private volatile boolean lenientUsed = false;
+
+    /**
+     * Record the end of a stage.
+     *
+     * @param stage      Name of the stage.
+     * @param startNanos Start of the stage as returned by {@link System#nanoTime()}.
+     */
+    public synchronized void record(String stage, long startNanos) {
+        stages.merge(stage, System.nanoTime() - startNanos, Long::sum);
+    }
+
+    /**
+     * Record the statistics the database reported for a query.
+     *
+     * @param stage            Stage the query was sent in, usually {@link #BACKEND} or {@link #BACKEND_LENIENT}.
+     * @param tookMillis       Time the database needed to execute the query.
+     * @param totalShards      Number of shards the query was sent to.
+     * @param successfulShards Number of shards that answered the query successfully.
+     * @param failedShards     Number of shards where the query failed.
+     */
+    public synchronized void recordBackend(String stage, long tookMillis, int totalShards, int successfulShards, int failedShards) {
+        backendStats.computeIfAbsent(stage, k -> new BackendStats())
+                .add(tookMillis, totalShards, successfulShards, failedShards);
+    }
+
+    /**
+     * Mark that the results of the request come from the lenient query.
+     */
+    public void markLenientUsed() {
+        lenientUsed = true;
+    }
+
+    public boolean isLenientUsed() {
+        return lenientUsed;
+    }
+
+    /**
+     * Get the time in nanoseconds spent in each stage, in the order in which
+     * the stages were first recorded.
+     */
+    public synchronized Map<String, Long> getStages() {
+        return new LinkedHashMap<>(stages);
+    }
+
+    /**
+     * Get the time in milliseconds the database reported for the queries of the given stage.
+     *
+     * @return The sum of the reported times or -1 if no query statistics were recorded for the stage.
+     */
+    public synchronized long getBackendTook(String stage) {
+        final BackendStats stats = backendStats.get(stage);
+        return stats == null ? -1 : stats.took;
+    }
+
+    /**
+     * Create the value for a 'Server-Timing' HTTP header.
+     *
+     * Contains the duration of all stages recorded so far, the time the database
+     * reported for its queries and the total time since the request was created.
+     */
+    public synchronized String toServerTiming() {
+        final StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, Long> stage : stages.entrySet()) {
+            appendServerTiming(header, stage.getKey(), stage.getValue() / NANOS_PER_MILLI);
+        }
+        for (Map.Entry<String, BackendStats> stats : backendStats.entrySet()) {
+            appendServerTiming(header, stats.getKey() + "_took", stats.getValue().took);
+        }
+        appendServerTiming(header, "total", (System.nanoTime() - createdNanos) / NANOS_PER_MILLI);
+
+        return header.toString();
+    }
+
+    /**
+     * Create a JSON object with the stage durations in milliseconds and the
+     * statistics reported by the database, for inclusion in debug output.
+     */
+    public synchronized JSONObject toJson() {
+        final JSONObject stageJson = new JSONObject();
+        for (Map.Entry<String, Long> stage : stages.entrySet()) {
+            stageJson.put(stage.getKey(), stage.getValue() / NANOS_PER_MILLI);
+        }
+
+        final JSONObject backendJson = new JSONObject();
+        for (Map.Entry<String, BackendStats> stats : backendStats.entrySet()) {
+            backendJson.put(stats.getKey(), stats.getValue().toJson());
+        }
+
+        return new JSONObject()
+                .put("stages", stageJson)
+                .put("backend", backendJson);
+    }
+
+    private static void appendServerTiming(StringBuilder header, String name, double millis) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", millis));
+    }
+
+    private static class BackendStats implements Serializable {
+        private int queries = 0;
+        private long took = 0;
+        private int totalShards = 0;
+        private int successfulShards = 0;
+        private int failedShards = 0;
+
+        void add(long tookMillis, int total, int successful, int failed) {
+            ++queries;
+            took += tookMillis;
+            totalShards += total;
+            successfulShards += successful;
+            failedShards += failed;
+        }
+
+        JSONObject toJson() {
+            return new JSONObject()
+                    .put("queries", queries)
+                    .put("took", took)
+                    .put("shards", new JSONObject()
+                            .put("total", totalShards)
+                            .put("successful", successfulShards)
+                            .put("failed", failedShards));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.komoot.photon.metrics;
+
+import io.prometheus.client.Counter;
+
+/**
+ * Metrics collected while executing search requests.
+ */
+public class SearchMetrics {
+    public static final Counter FORWARD_SEARCHES = Counter.build()
+            .name("photon_search_forward_requests")
+            .help("Number of forward searches sent to the database.")
+            .register();
+
+    public static final Counter LENIENT_FALLBACKS = Counter.build()
+            .name("photon_search_lenient_fallbacks")
+            .help("Number of forward searches where the strict query found nothing and the lenient result was used.")
+            .register();
+
+    public static final Counter LENIENT_DISCARDED = Counter.build()
+            .name("photon_search_lenient_discarded")
+            .help("Number of lenient queries sent in parallel whose result was not needed.")
+            .register();
+
+    public static final Counter PREFIX_INDEX_ANSWERS = Counter.build()
+            .name("photon_search_prefix_index_answers")
+            .help("Number of forward searches answered from the in-memory prefix index.")
+            .register();
+
+    public static final Counter REVERSE_INDEX_ANSWERS = Counter.build()
+            .name("photon_search_reverse_index_answers")
+            .help("Number of reverse searches answered with the help of the in-memory reverse index.")
+            .register();
+
+    public static final Counter REVERSE_RADIUS_EXPANSIONS = Counter.build()
+            .name("photon_search_reverse_radius_expansions")
+            .help("Number of reverse queries repeated with a larger radius because too few results were found.")
+            .register();
+
+    public static final Counter COALESCED_SEARCHES = Counter.build()
+            .name("photon_search_coalesced")
+            .help("Number of forward searches that were merged with an identical search already waiting for the database.")
+            .register();
+
+    public static final Counter CACHE_HITS = Counter.build()
+            .name("photon_search_cache_hits")
+            .help("Number of requests answered from a result cache.")
+            .labelNames("cache")
+            .register();
+
+    public static final Counter CACHE_MISSES = Counter.build()
+            .name("photon_search_cache_misses")
+            .help("Number of requests that had to be sent to the database because there was no valid cache entry.")
+            .labelNames("cache")
+            .register();
+
+    private SearchMetrics() {
+    }
+}
@@ -0,0 +1,97 @@
+package de.komoot.photon.metrics;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log of slow requests and a random sample of all other requests.
+ *
+ * Each entry is written as a single line of JSON to the logger 'photon.slowlog',
+ * which the default logging configuration sends to a rotating file without
+ * any additional text. The entries contain the time of the request and the
+ * full request parameters, so that they can be replayed later.
+ */
+public class SlowQueryLog {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger("photon.slowlog");
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+
+    /**
+     * Create a new log.
+     *
+     * @param thresholdMillis Requests taking at least this long are always logged. 0 disables logging of slow requests.
+     * @param sampleRate      Fraction of the remaining requests to log, between 0 and 1.
+     */
+    public SlowQueryLog(long thresholdMillis, double sampleRate) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isEnabled() {
+        return thresholdNanos > 0 || sampleRate > 0;
+    }
+
+    /**
+     * Log the request if it was slow or is chosen for the sample.
+     *
+     * @param route      Name of the route that answered the request.
+     * @param parameters The query parameters of the request.
+     * @param language   The language the request was answered in.
+     * @param timings    Timings of the request.
+     * @param numResults Number of results returned.
+     * @param startNanos Start of the request as returned by {@link System#nanoTime()}.
+     */
+    public void log(String route, Map<String, String[]> parameters, String language, RequestTimings timings,
+                    int numResults, long startNanos) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final long duration = System.nanoTime() - startNanos;
+        final String reason;
+        if (thresholdNanos > 0 && duration >= thresholdNanos) {
+            reason = "slow";
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            reason = "sample";
+        } else {
+            return;
+        }
+
+        LOGGER.info(makeEntry(route, parameters, language, timings, numResults, duration, reason).toString());
+    }
+
+    static JSONObject makeEntry(String route, Map<String, String[]> parameters, String language, RequestTimings timings,
+                                int numResults, long durationNanos, String reason) {
+        final JSONObject params = new JSONObject();
+        for (Map.Entry<String, String[]> param : parameters.entrySet()) {
+            final String[] values = param.getValue();
+            params.put(param.getKey(), values.length == 1 ? values[0] : new JSONArray(values));
+        }
+
+        final JSONObject entry = new JSONObject()
+                .put("time", Instant.now().toString())
+                .put("reason", reason)
+                .put("route", route)
+                .put("params", params)
+                .put("lang", language)
+                .put("path", timings.isLenientUsed() ? "lenient" : "strict")
+                .put("duration", durationNanos / NANOS_PER_MILLI)
+                .put("results", numResults)
+                .put("timings", timings.toJson());
+
+        final long strictTook = timings.getBackendTook(RequestTimings.BACKEND);
+        final long lenientTook = timings.getBackendTook(RequestTimings.BACKEND_LENIENT);
+        if (strictTook >= 0 || lenientTook >= 0) {
+            entry.put("took", Math.max(0, strictTook) + Math.max(0, lenientTook));
+        }
+
+        return entry;
+    }
+}
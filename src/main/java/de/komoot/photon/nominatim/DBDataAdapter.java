@@ -30,4 +30,11 @@ public interface DBDataAdapter {
      * Wrap a DELETE statement with a RETURNING clause.
      */
     String deleteReturning(String deleteSQL, String columns);
+
+    /**
+     * Get a cheap estimate of the number of rows in a table.
+     *
+     * @return The estimated number of rows or 0 if no estimate is available.
+     */
+    long estimateRowCount(JdbcTemplate template, String table);
 }
@@ -0,0 +1,160 @@
+package de.komoot.photon.nominatim;
+
+import de.komoot.photon.metrics.ImportMetrics;
+import org.json.JSONObject;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of an import or update from a Nominatim database.
+ *
+ * Counts the rows read from the database and estimates the remaining time
+ * from the expected number of rows. The expected number of rows usually comes
+ * from the statistics of the database, so it is only an approximation.
+ */
+public class ImportProgress {
+    private final String mode;
+    private final long startMillis;
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong expectedRows = new AtomicLong();
+    private volatile String table = null;
+
+    /**
+     * Create a new progress tracker.
+     *
+     * @param mode Either {@link ImportMetrics#IMPORT} or {@link ImportMetrics#UPDATE}.
+     */
+    public ImportProgress(String mode) {
+        this(mode, System.currentTimeMillis());
+    }
+
+    ImportProgress(String mode, long startMillis) {
+        this.mode = mode;
+        this.startMillis = startMillis;
+        ImportMetrics.EXPECTED_ROWS.labels(mode).set(0);
+        ImportMetrics.ETA.labels(mode).set(-1);
+    }
+
+    /**
+     * Add to the number of rows expected to be processed.
+     */
+    public void addExpectedRows(long numRows) {
+        ImportMetrics.EXPECTED_ROWS.labels(mode).set(expectedRows.addAndGet(numRows));
+    }
+
+    /**
+     * Set the table that rows are currently read from.
+     */
+    public void startTable(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Count a row read from the current table.
+     */
+    public void addRow() {
+        rows.incrementAndGet();
+        ImportMetrics.ROWS_READ.labels(mode, table).inc();
+    }
+
+    /**
+     * Count documents sent to the Photon database.
+     */
+    public void addDocuments(int numDocuments) {
+        documents.addAndGet(numDocuments);
+        ImportMetrics.DOCUMENTS.labels(mode).inc(numDocuments);
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getDocuments() {
+        return documents.get();
+    }
+
+    public long getExpectedRows() {
+        return expectedRows.get();
+    }
+
+    /**
+     * Get the number of rows processed per second since the start.
+     */
+    public double getRowsPerSecond() {
+        return getRowsPerSecond(System.currentTimeMillis());
+    }
+
+    double getRowsPerSecond(long nowMillis) {
+        final long elapsed = nowMillis - startMillis;
+        return elapsed <= 0 ? 0 : 1000d * rows.get() / elapsed;
+    }
+
+    /**
+     * Estimate the time in seconds until all expected rows are processed.
+     *
+     * @return The estimated time or -1 if no estimate is possible yet.
+     */
+    public long getEtaSeconds() {
+        return getEtaSeconds(System.currentTimeMillis());
+    }
+
+    long getEtaSeconds(long nowMillis) {
+        final double rate = getRowsPerSecond(nowMillis);
+        final long expected = expectedRows.get();
+        if (rate <= 0 || expected <= 0) {
+            return -1;
+        }
+
+        // The expected number may be an underestimate.
+        return Math.round(Math.max(0, expected - rows.get()) / rate);
+    }
+
+    /**
+     * Update the ETA metric and create a short description for logging.
+     */
+    public String describe() {
+        final long now = System.currentTimeMillis();
+        final long eta = getEtaSeconds(now);
+        ImportMetrics.ETA.labels(mode).set(eta);
+
+        final StringBuilder out = new StringBuilder();
+        out.append(documents.get()).append(" documents from ").append(rows.get());
+        if (expectedRows.get() > 0) {
+            out.append(" of ~").append(expectedRows.get());
+        }
+        out.append(" rows [").append(Math.round(getRowsPerSecond(now))).append(" rows/second]");
+        if (eta >= 0) {
+            out.append(", ETA ").append(formatDuration(eta));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Create a JSON description of the progress, e.g. for the status page.
+     */
+    public JSONObject toJson() {
+        final long now = System.currentTimeMillis();
+        final JSONObject out = new JSONObject()
+                .put("mode", mode)
+                .put("table", table == null ? JSONObject.NULL : table)
+                .put("rows", rows.get())
+                .put("documents", documents.get())
+                .put("expected_rows", expectedRows.get())
+                .put("rows_per_second", getRowsPerSecond(now))
+                .put("elapsed_seconds", (now - startMillis) / 1000);
+
+        final long eta = getEtaSeconds(now);
+        if (eta >= 0) {
+            out.put("eta_seconds", eta);
+        }
+
+        return out;
+    }
+
+    static String formatDuration(long seconds) {
+        final Duration duration = Duration.ofSeconds(seconds);
+        return String.format("%d:%02d:%02d", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+}
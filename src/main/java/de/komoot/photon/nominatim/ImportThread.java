@@ -2,6 +2,7 @@ package de.komoot.photon.nominatim;
 
 import de.komoot.photon.Importer;
 import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.metrics.ImportMetrics;
 import org.slf4j.Logger;
 
 import java.util.concurrent.BlockingQueue;
@@ -19,14 +20,14 @@ class ImportThread {
     private final BlockingQueue<NominatimResult> documents = new LinkedBlockingDeque<>(20);
     private final AtomicLong counter = new AtomicLong();
     private final Importer importer;
+    private final ImportProgress progress;
     private final Thread thread;
-    private final long startMillis;
 
-    public ImportThread(Importer importer) {
+    public ImportThread(Importer importer, ImportProgress progress) {
         this.importer = importer;
+        this.progress = progress;
         this.thread = new Thread(new ImportRunnable());
         this.thread.start();
-        this.startMillis = System.currentTimeMillis();
     }
 
     /**
@@ -47,9 +48,10 @@ class ImportThread {
             }
         }
 
+        ImportMetrics.QUEUE_DEPTH.set(documents.size());
+
         if (counter.incrementAndGet() % PROGRESS_INTERVAL == 0) {
-            final double documentsPerSecond = 1000d * counter.longValue() / (System.currentTimeMillis() - startMillis);
-            LOGGER.info("Imported {} documents [{}/second]", counter.longValue(), documentsPerSecond);
+            LOGGER.info("Imported {}", progress.describe());
         }
     }
 
@@ -70,7 +72,8 @@ class ImportThread {
                 Thread.currentThread().interrupt();
             }
         }
-        LOGGER.info("Finished import of {} photon documents.", counter.longValue());
+        ImportMetrics.QUEUE_DEPTH.set(0);
+        LOGGER.info("Finished import of {} photon documents.", progress.getDocuments());
     }
 
     private class ImportRunnable implements Runnable {
@@ -87,6 +90,7 @@ class ImportThread {
                     for (PhotonDoc doc : docs.getDocsWithHousenumber()) {
                         importer.add(doc, objectId++);
                     }
+                    progress.addDocuments(objectId);
                 } catch (InterruptedException e) {
                     LOGGER.info("Interrupted exception", e);
                     // Restore interrupted state.
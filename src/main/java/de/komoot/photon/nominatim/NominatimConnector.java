@@ -3,6 +3,7 @@ package de.komoot.photon.nominatim;
 import org.locationtech.jts.geom.Geometry;
 import de.komoot.photon.Importer;
 import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.metrics.ImportMetrics;
 import de.komoot.photon.nominatim.model.AddressRow;
 import de.komoot.photon.nominatim.model.AddressType;
 import org.apache.commons.dbcp2.BasicDataSource;
@@ -265,13 +266,22 @@ public class NominatimConnector {
 
         LOGGER.info("Start importing documents from nominatim ({})", countryCodeStr.isEmpty() ? "global" : countryCodeStr);
 
-        ImportThread importThread = new ImportThread(importer);
+        final ImportProgress progress = new ImportProgress(ImportMetrics.IMPORT);
+        if (countryCodeStr.isEmpty()) {
+            // Table statistics are only available for the full tables.
+            progress.addExpectedRows(dbutils.estimateRowCount(template, "placex")
+                    + dbutils.estimateRowCount(template, "location_property_osmline"));
+        }
+
+        ImportThread importThread = new ImportThread(importer, progress);
 
         try {
+            progress.startTable("placex");
             template.query(SELECT_COLS_PLACEX + " FROM placex " +
                     " WHERE linked_place_id IS NULL AND centroid IS NOT NULL " + andCountryCodeStr +
                     " ORDER BY geometry_sector, parent_place_id; ", rs -> {
                 // turns a placex row into a photon document that gathers all de-normalised information
+                progress.addRow();
                 NominatimResult docs = placeRowMapper.mapRow(rs, 0);
                 assert (docs != null);
 
@@ -280,10 +290,12 @@ public class NominatimConnector {
                 }
             });
 
+            progress.startTable("location_property_osmline");
             template.query(selectOsmlineSql + " FROM location_property_osmline " +
                     "WHERE startnumber is not null " +
                     andCountryCodeStr +
                     " ORDER BY geometry_sector, parent_place_id; ", rs -> {
+                progress.addRow();
                 NominatimResult docs = osmlineRowMapper.mapRow(rs, 0);
                 assert (docs != null);
 
@@ -2,6 +2,7 @@ package de.komoot.photon.nominatim;
 
 import de.komoot.photon.PhotonDoc;
 import de.komoot.photon.Updater;
+import de.komoot.photon.metrics.ImportMetrics;
 import de.komoot.photon.nominatim.model.UpdateRow;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -10,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -18,6 +20,8 @@ import java.util.concurrent.locks.ReentrantLock;
 public class NominatimUpdater {
     private static final org.slf4j.Logger LOGGER = org.slf4j.LoggerFactory.getLogger(NominatimUpdater.class);
 
+    private static final int PROGRESS_INTERVAL = 10000;
+
     private static final String TRIGGER_SQL =
             "DROP TABLE IF EXISTS photon_updates;"
             + "CREATE TABLE photon_updates (rel TEXT, place_id BIGINT,"
@@ -50,11 +54,18 @@ public class NominatimUpdater {
 
     private Updater updater;
 
+    private final List<Runnable> updateListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Lock to prevent thread from updating concurrently.
      */
     private ReentrantLock updateLock = new ReentrantLock();
 
+    /**
+     * Progress of the running update, null when no update is running.
+     */
+    private volatile ImportProgress progress = null;
+
     public Date getLastImportDate() {
         return exporter.getLastImportDate();
     }
@@ -63,6 +74,15 @@ public class NominatimUpdater {
         return updateLock.isLocked();
     }
 
+    /**
+     * Get the progress of the running update.
+     *
+     * @return The progress or null, when no update is running.
+     */
+    public ImportProgress getProgress() {
+        return progress;
+    }
+
     public boolean isSetUpForUpdates() {
         int result = template.queryForObject("SELECT count(*) FROM pg_tables WHERE tablename = 'photon_updates'", Integer.class);
         return result > 0;
@@ -72,6 +92,14 @@ public class NominatimUpdater {
         this.updater = updater;
     }
 
+    /**
+     * Register a function to be called each time an update has been written
+     * to the database.
+     */
+    public void addUpdateListener(Runnable listener) {
+        updateListeners.add(listener);
+    }
+
     public void initUpdates(String updateUser) {
         LOGGER.info("Creating tracking tables");
         template.execute(TRIGGER_SQL);
@@ -81,11 +109,14 @@ public class NominatimUpdater {
     public void update() {
         if (updateLock.tryLock()) {
             try {
+                progress = new ImportProgress(ImportMetrics.UPDATE);
                 updateFromPlacex();
                 updateFromInterpolations();
                 updater.finish();
-                LOGGER.info("Finished updating");
+                updateListeners.forEach(Runnable::run);
+                LOGGER.info("Finished updating: {}", progress.describe());
             } finally {
+                progress = null;
                 updateLock.unlock();
             }
         } else {
@@ -97,7 +128,11 @@ public class NominatimUpdater {
         LOGGER.info("Starting place updates");
         int updatedPlaces = 0;
         int deletedPlaces = 0;
-        for (UpdateRow place : getPlaces("placex")) {
+        final List<UpdateRow> places = getPlaces("placex");
+        progress.addExpectedRows(places.size());
+        progress.startTable("placex");
+        for (UpdateRow place : places) {
+            countRow();
             long placeId = place.getPlaceId();
             int objectId = -1;
             boolean checkForMultidoc = true;
@@ -110,6 +145,7 @@ public class NominatimUpdater {
                     for (PhotonDoc updatedDoc : updatedDocs) {
                             updater.create(updatedDoc, ++objectId);
                     }
+                    progress.addDocuments(updatedDocs.size());
                 }
             }
 
@@ -138,7 +174,11 @@ public class NominatimUpdater {
         LOGGER.info("Starting interpolations");
         int updatedInterpolations = 0;
         int deletedInterpolations = 0;
-        for (UpdateRow place : getPlaces("location_property_osmline")) {
+        final List<UpdateRow> places = getPlaces("location_property_osmline");
+        progress.addExpectedRows(places.size());
+        progress.startTable("location_property_osmline");
+        for (UpdateRow place : places) {
+            countRow();
             long placeId = place.getPlaceId();
             int objectId = -1;
 
@@ -149,6 +189,7 @@ public class NominatimUpdater {
                     for (PhotonDoc updatedDoc : updatedDocs) {
                         updater.create(updatedDoc, ++objectId);
                     }
+                    progress.addDocuments(updatedDocs.size());
                 }
             }
 
@@ -164,6 +205,13 @@ public class NominatimUpdater {
         LOGGER.info("{} interpolations created or updated, {} deleted", updatedInterpolations, deletedInterpolations);
     }
 
+    private void countRow() {
+        progress.addRow();
+        if (progress.getRows() % PROGRESS_INTERVAL == 0) {
+            LOGGER.info("Updated {}", progress.describe());
+        }
+    }
+
     private List<UpdateRow> getPlaces(String table) {
         List<UpdateRow> results = template.query(exporter.getDataAdaptor().deleteReturning(
                 "DELETE FROM photon_updates WHERE rel = ?", "place_id, operation, indexed_date"),
@@ -10,6 +10,7 @@ import org.springframework.jdbc.core.RowMapper;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -58,4 +59,15 @@ public class PostgisDataAdapter implements DBDataAdapter {
     public String deleteReturning(String deleteSQL, String columns) {
         return deleteSQL + " RETURNING " + columns;
     }
+
+    @Override
+    public long estimateRowCount(JdbcTemplate template, String table) {
+        // The planner statistics are good enough for progress reporting and,
+        // unlike count(*), do not need a scan of the table.
+        // reltuples is -1 for tables that were never analysed.
+        List<Long> estimate = template.query("SELECT reltuples::bigint FROM pg_class WHERE relname = ?",
+                (rs, rowNum) -> rs.getLong(1), table);
+
+        return estimate.isEmpty() ? 0 : Math.max(0, estimate.get(0));
+    }
 }
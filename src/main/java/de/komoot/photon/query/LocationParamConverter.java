@@ -19,26 +19,33 @@ public class LocationParamConverter {
     }
     
     public Point apply(Request webRequest) throws BadRequestException {
-        Point location;
         String lonParam = webRequest.queryParams("lon");
         String latParam = webRequest.queryParams("lat");
         if (!mandatory && lonParam == null && latParam == null) {
             return null;
         }
-        
+
+        double lon;
+        double lat;
         try {
-            Double lon = Double.valueOf(lonParam);
-            if (lon > 180.0 || lon < -180.00) {
-                throw new BadRequestException(400, "invalid search term 'lon', expected number >= -180.0 and <= 180.0");
-            }
-            Double lat = Double.valueOf(latParam);
-            if (lat > 90.0 || lat < -90.00) {
-                throw new BadRequestException(400, "invalid search term 'lat', expected number >= -90.0 and <= 90.0");
-            }
-            location = geometryFactory.createPoint(new Coordinate(lon, lat));
+            lon = Double.parseDouble(lonParam);
+            lat = Double.parseDouble(latParam);
         } catch (NullPointerException | NumberFormatException e) {
             throw new BadRequestException(400, "invalid search term 'lat' and/or 'lon', try instead lat=51.5&lon=8.0");
         }
-        return location;
+        return apply(lon, lat);
+    }
+
+    /**
+     * Validate the given coordinates and convert them into a location.
+     */
+    public Point apply(double lon, double lat) throws BadRequestException {
+        if (lon > 180.0 || lon < -180.00) {
+            throw new BadRequestException(400, "invalid search term 'lon', expected number >= -180.0 and <= 180.0");
+        }
+        if (lat > 90.0 || lat < -90.00) {
+            throw new BadRequestException(400, "invalid search term 'lat', expected number >= -90.0 and <= 90.0");
+        }
+        return geometryFactory.createPoint(new Coordinate(lon, lat));
     }
 }
@@ -0,0 +1,88 @@
+package de.komoot.photon.query;
+
+import spark.QueryParamsMap;
+import spark.Request;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Web request whose query parameters come from a map instead of the URL.
+ *
+ * Makes it possible to run the parameter validation of the request factories
+ * on requests that are not sent as separate HTTP requests, e.g. the entries of
+ * a batch request. Headers are taken from the enclosing HTTP request.
+ */
+public class ParameterMapRequest extends Request {
+    private final Map<String, String[]> parameters;
+    private final Request origin;
+
+    /**
+     * Create a new request.
+     *
+     * @param parameters Query parameters, mapping each name to one or more values.
+     * @param origin     HTTP request to take the headers from, may be null.
+     */
+    public ParameterMapRequest(Map<String, String[]> parameters, Request origin) {
+        this.parameters = parameters;
+        this.origin = origin;
+    }
+
+    @Override
+    public Set<String> queryParams() {
+        return parameters.keySet();
+    }
+
+    @Override
+    public String queryParams(String queryParam) {
+        final String[] values = parameters.get(queryParam);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public String[] queryParamsValues(String queryParam) {
+        return parameters.get(queryParam);
+    }
+
+    @Override
+    public String queryParamOrDefault(String queryParam, String defaultValue) {
+        final String value = queryParams(queryParam);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public QueryParamsMap queryMap(String key) {
+        return new ValueList(parameters.get(key));
+    }
+
+    @Override
+    public String headers(String header) {
+        return origin == null ? null : origin.headers(header);
+    }
+
+    /**
+     * Minimal query map that only knows the list of values of a single parameter.
+     */
+    private static class ValueList extends QueryParamsMap {
+        private final String[] values;
+
+        ValueList(String[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasValue() {
+            return values != null && values.length > 0;
+        }
+
+        @Override
+        public String value() {
+            return hasValue() ? values[0] : null;
+        }
+
+        @Override
+        public String[] values() {
+            return values;
+        }
+    }
+}
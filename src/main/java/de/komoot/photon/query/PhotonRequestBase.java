@@ -2,6 +2,7 @@ package de.komoot.photon.query;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Point;
+import de.komoot.photon.metrics.RequestTimings;
 import de.komoot.photon.searcher.TagFilter;
 
 import java.util.ArrayList;
@@ -21,6 +22,7 @@ public class PhotonRequestBase
 
     private final List<TagFilter> osmTagFilters = new ArrayList<>(1);
     private Set<String> layerFilters = new HashSet<>(1);
+    private final RequestTimings timings = new RequestTimings();
 
     protected PhotonRequestBase(String language)
     {
@@ -53,6 +55,10 @@ public class PhotonRequestBase
 
     public boolean getDebug() { return debug; }
 
+    public RequestTimings getTimings() {
+        return timings;
+    }
+
     public List<TagFilter> getOsmTagFilters() {
         return osmTagFilters;
     }
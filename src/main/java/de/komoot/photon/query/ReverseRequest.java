@@ -2,6 +2,7 @@ package de.komoot.photon.query;
 
 import org.locationtech.jts.geom.Point;
 
+import de.komoot.photon.metrics.RequestTimings;
 import de.komoot.photon.searcher.TagFilter;
 
 import java.io.Serializable;
@@ -20,6 +21,7 @@ public class ReverseRequest implements Serializable {
     private final Set<String> layerFilters;
     private final List<TagFilter> osmTagFilters = new ArrayList<>(1);
     private final boolean debug;
+    private RequestTimings timings = new RequestTimings();
 
     public ReverseRequest(Point location, String language, double radius, String queryStringFilter, int limit,
                           boolean locationDistanceSort, Set<String> layerFilter, boolean debug) {
@@ -69,6 +71,29 @@ public class ReverseRequest implements Serializable {
         return debug;
     }
 
+    public RequestTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * Create a copy of the request for a different location.
+     */
+    public ReverseRequest withLocation(Point newLocation) {
+        return withArea(newLocation, radius, limit);
+    }
+
+    /**
+     * Create a copy of the request for a different search area and number of results.
+     */
+    public ReverseRequest withArea(Point newLocation, double newRadius, int newLimit) {
+        ReverseRequest request = new ReverseRequest(newLocation, language, newRadius, queryStringFilter, newLimit,
+                locationDistanceSort, layerFilters, debug);
+        request.osmTagFilters.addAll(osmTagFilters);
+        // Derived requests are part of processing the original one.
+        request.timings = timings;
+        return request;
+    }
+
     ReverseRequest addOsmTagFilter(TagFilter filter) {
         osmTagFilters.add(filter);
         return this;
@@ -0,0 +1,315 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.query.ReverseRequest;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reverse handler that caches the places around frequently requested locations.
+ *
+ * The world is divided into grid cells with a size derived from the search
+ * radius. For each cell, the places closest to the cell center are fetched
+ * once with a radius large enough to cover the whole cell. Requests for a point
+ * in the cell are then answered by sorting these candidates by distance to the
+ * actual point. The cached answer is only used when it is guaranteed to be the
+ * same as the answer from the database, i.e. when no place missing from the
+ * candidate list could be closer than the returned ones. Otherwise the request
+ * is passed through to the database.
+ *
+ * Only requests sorted by distance are cached. The language is part of the
+ * cache key because the database may only return the names in the requested
+ * language.
+ */
+public class CachingReverseHandler implements ReverseHandler {
+    private static final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    // Number of grid cells per search radius.
+    private static final double CELLS_PER_RADIUS = 4.0;
+    // Number of places fetched for each cell.
+    private static final int CANDIDATES = 50;
+    // Larger radii produce cells too large to be useful.
+    private static final double MAX_CACHED_RADIUS_KM = 50.0;
+
+    private final ReverseHandler handler;
+    private final ResultCache<CellKey> cache;
+
+    /**
+     * Create a new caching handler.
+     *
+     * @param handler   Handler that executes the lookups on a cache miss.
+     * @param maxSize   Maximum number of grid cells to cache.
+     * @param ttlMillis Time after which a cached cell expires.
+     */
+    public CachingReverseHandler(ReverseHandler handler, int maxSize, long ttlMillis) {
+        this.handler = handler;
+        this.cache = new ResultCache<>("reverse", maxSize, ttlMillis);
+    }
+
+    @Override
+    public List<PhotonResult> reverse(ReverseRequest photonRequest) {
+        if (!isCacheable(photonRequest)) {
+            return handler.reverse(photonRequest);
+        }
+
+        final Cell cell = new Cell(photonRequest);
+        List<PhotonResult> candidates = cache.get(cell.key);
+        if (candidates == null) {
+            candidates = handler.reverse(cell.candidateRequest(photonRequest));
+            cache.put(cell.key, candidates);
+        }
+
+        final List<PhotonResult> results = cell.select(photonRequest, candidates);
+        return results == null ? handler.reverse(photonRequest) : results;
+    }
+
+    @Override
+    public CompletableFuture<List<PhotonResult>> reverseAsync(ReverseRequest photonRequest) {
+        if (!isCacheable(photonRequest)) {
+            return handler.reverseAsync(photonRequest);
+        }
+
+        final Cell cell = new Cell(photonRequest);
+        final List<PhotonResult> candidates = cache.get(cell.key);
+        final CompletableFuture<List<PhotonResult>> fetched;
+        if (candidates == null) {
+            fetched = handler.reverseAsync(cell.candidateRequest(photonRequest)).thenApply(r -> {
+                cache.put(cell.key, r);
+                return r;
+            });
+        } else {
+            fetched = CompletableFuture.completedFuture(candidates);
+        }
+
+        return fetched.thenCompose(c -> {
+            final List<PhotonResult> results = cell.select(photonRequest, c);
+            return results == null ? handler.reverseAsync(photonRequest) : CompletableFuture.completedFuture(results);
+        });
+    }
+
+    @Override
+    public List<List<PhotonResult>> reverseBatch(List<ReverseRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(Collections.nCopies(photonRequests.size(), null));
+        final List<Integer> uncached = new ArrayList<>();
+        final Map<CellKey, List<Integer>> missingCells = new LinkedHashMap<>();
+        final Cell[] cells = new Cell[photonRequests.size()];
+
+        for (int i = 0; i < photonRequests.size(); ++i) {
+            final ReverseRequest request = photonRequests.get(i);
+            if (!isCacheable(request)) {
+                uncached.add(i);
+                continue;
+            }
+
+            cells[i] = new Cell(request);
+            final List<Integer> waiting = missingCells.get(cells[i].key);
+            if (waiting != null) {
+                waiting.add(i);
+                continue;
+            }
+
+            final List<PhotonResult> candidates = cache.get(cells[i].key);
+            if (candidates == null) {
+                missingCells.put(cells[i].key, new ArrayList<>(List.of(i)));
+            } else {
+                selectOrDefer(i, photonRequests, cells, candidates, results, uncached);
+            }
+        }
+
+        if (!missingCells.isEmpty()) {
+            final List<ReverseRequest> cellRequests = new ArrayList<>(missingCells.size());
+            for (List<Integer> positions : missingCells.values()) {
+                final int first = positions.get(0);
+                cellRequests.add(cells[first].candidateRequest(photonRequests.get(first)));
+            }
+
+            final List<List<PhotonResult>> cellResults = handler.reverseBatch(cellRequests);
+            int cellIdx = 0;
+            for (Map.Entry<CellKey, List<Integer>> entry : missingCells.entrySet()) {
+                final List<PhotonResult> candidates = cellResults.get(cellIdx++);
+                cache.put(entry.getKey(), candidates);
+                for (int i : entry.getValue()) {
+                    selectOrDefer(i, photonRequests, cells, candidates, results, uncached);
+                }
+            }
+        }
+
+        if (!uncached.isEmpty()) {
+            final List<ReverseRequest> uncachedRequests = new ArrayList<>(uncached.size());
+            for (int i : uncached) {
+                uncachedRequests.add(photonRequests.get(i));
+            }
+
+            final List<List<PhotonResult>> uncachedResults = handler.reverseBatch(uncachedRequests);
+            for (int i = 0; i < uncached.size(); ++i) {
+                results.set(uncached.get(i), uncachedResults.get(i));
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public String dumpQuery(ReverseRequest photonRequest) {
+        return handler.dumpQuery(photonRequest);
+    }
+
+    /**
+     * Remove all cached results, e.g. after the database was updated.
+     */
+    public void invalidate() {
+        cache.invalidate();
+    }
+
+    private static void selectOrDefer(int pos, List<ReverseRequest> requests, Cell[] cells, List<PhotonResult> candidates,
+                                      List<List<PhotonResult>> results, List<Integer> uncached) {
+        final List<PhotonResult> selected = cells[pos].select(requests.get(pos), candidates);
+        if (selected == null) {
+            uncached.add(pos);
+        } else {
+            results.set(pos, selected);
+        }
+    }
+
+    private static boolean isCacheable(ReverseRequest request) {
+        final Point location = request.getLocation();
+        return request.getLocationDistanceSort()
+                && !request.getDebug()
+                && request.getLimit() <= CANDIDATES
+                && request.getRadius() <= MAX_CACHED_RADIUS_KM
+                && Math.abs(location.getY()) <= 89.0
+                && Math.abs(location.getX()) <= 179.0;
+    }
+
+    /**
+     * Great-circle distance in km between two points given as lon/lat.
+     */
+    static double distance(double lon1, double lat1, double lon2, double lat2) {
+        final double dLat = Math.toRadians(lat2 - lat1);
+        final double dLon = Math.toRadians(lon2 - lon1);
+        final double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Grid cell of a request together with the parameters for fetching the candidates.
+     */
+    private static class Cell {
+        final CellKey key;
+        final double centerLon;
+        final double centerLat;
+        // Radius around the cell center that contains all places within the
+        // search radius of any point in the cell.
+        final double candidateRadius;
+
+        Cell(ReverseRequest request) {
+            final double cellSize = request.getRadius() / CELLS_PER_RADIUS / KM_PER_DEGREE;
+            final long cellX = (long) Math.floor(request.getLocation().getX() / cellSize);
+            final long cellY = (long) Math.floor(request.getLocation().getY() / cellSize);
+
+            centerLon = (cellX + 0.5) * cellSize;
+            centerLat = (cellY + 0.5) * cellSize;
+            final double cornerLat = centerLat >= 0 ? centerLat - cellSize / 2 : centerLat + cellSize / 2;
+            candidateRadius = request.getRadius() + distance(centerLon, centerLat, centerLon + cellSize / 2, cornerLat);
+            key = new CellKey(cellX, cellY, request);
+        }
+
+        ReverseRequest candidateRequest(ReverseRequest request) {
+            return request.withArea(geometryFactory.createPoint(new Coordinate(centerLon, centerLat)),
+                    candidateRadius, CANDIDATES);
+        }
+
+        /**
+         * Compute the results for the given request from the candidates of the cell.
+         *
+         * @return The results or null if they cannot be determined reliably from the candidates.
+         */
+        List<PhotonResult> select(ReverseRequest request, List<PhotonResult> candidates) {
+            final double lon = request.getLocation().getX();
+            final double lat = request.getLocation().getY();
+            final double radius = request.getRadius();
+
+            // Places not in the candidate list are at least this far from the cell center.
+            double knownRadius = candidateRadius;
+            if (candidates.size() >= CANDIDATES) {
+                final double[] last = candidates.get(candidates.size() - 1).getCoordinates();
+                knownRadius = distance(centerLon, centerLat, last[0], last[1]);
+            }
+            // And therefore at least this far from the requested point.
+            final double safeRadius = knownRadius - distance(centerLon, centerLat, lon, lat);
+
+            final int n = candidates.size();
+            final double[] distances = new double[n];
+            final Integer[] order = new Integer[n];
+            for (int i = 0; i < n; ++i) {
+                final double[] coords = candidates.get(i).getCoordinates();
+                distances[i] = distance(lon, lat, coords[0], coords[1]);
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(i -> distances[i]));
+
+            final List<PhotonResult> results = new ArrayList<>(request.getLimit());
+            for (int i : order) {
+                if (distances[i] > radius || results.size() >= request.getLimit()) {
+                    break;
+                }
+                if (distances[i] > safeRadius) {
+                    return null;
+                }
+                results.add(candidates.get(i));
+            }
+
+            if (results.size() < request.getLimit() && safeRadius < radius) {
+                return null;
+            }
+
+            return results;
+        }
+    }
+
+    private static class CellKey {
+        private final long cellX;
+        private final long cellY;
+        private final double radius;
+        private final String language;
+        private final String queryStringFilter;
+        private final Set<String> layerFilters;
+        private final Set<TagFilter> osmTagFilters;
+
+        CellKey(long cellX, long cellY, ReverseRequest request) {
+            this.cellX = cellX;
+            this.cellY = cellY;
+            this.radius = request.getRadius();
+            this.language = request.getLanguage();
+            this.queryStringFilter = request.getQueryStringFilter() == null ? "" : request.getQueryStringFilter().trim();
+            this.layerFilters = new HashSet<>(request.getLayerFilters());
+            this.osmTagFilters = new HashSet<>(request.getOsmTagFilters());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CellKey other = (CellKey) o;
+            return cellX == other.cellX
+                    && cellY == other.cellY
+                    && Double.compare(radius, other.radius) == 0
+                    && language.equals(other.language)
+                    && queryStringFilter.equals(other.queryStringFilter)
+                    && layerFilters.equals(other.layerFilters)
+                    && osmTagFilters.equals(other.osmTagFilters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cellX, cellY, radius, language, queryStringFilter, layerFilters, osmTagFilters);
+        }
+    }
+}
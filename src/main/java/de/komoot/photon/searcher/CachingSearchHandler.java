@@ -0,0 +1,105 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.query.PhotonRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Search handler that keeps the results of recent searches in memory.
+ *
+ * Requests are looked up by their {@link SearchRequestKey}. Requests with
+ * debug output are always passed through to the database.
+ */
+public class CachingSearchHandler implements SearchHandler {
+    private final SearchHandler handler;
+    private final ResultCache<SearchRequestKey> cache;
+
+    /**
+     * Create a new caching handler.
+     *
+     * @param handler   Handler that executes the searches on a cache miss.
+     * @param maxSize   Maximum number of searches to cache.
+     * @param ttlMillis Time after which a cached result expires.
+     */
+    public CachingSearchHandler(SearchHandler handler, int maxSize, long ttlMillis) {
+        this.handler = handler;
+        this.cache = new ResultCache<>("forward", maxSize, ttlMillis);
+    }
+
+    @Override
+    public List<PhotonResult> search(PhotonRequest photonRequest) {
+        if (photonRequest.getDebug()) {
+            return handler.search(photonRequest);
+        }
+
+        final SearchRequestKey key = new SearchRequestKey(photonRequest);
+        List<PhotonResult> results = cache.get(key);
+        if (results == null) {
+            results = handler.search(photonRequest);
+            cache.put(key, results);
+        }
+
+        return results;
+    }
+
+    @Override
+    public CompletableFuture<List<PhotonResult>> searchAsync(PhotonRequest photonRequest) {
+        if (photonRequest.getDebug()) {
+            return handler.searchAsync(photonRequest);
+        }
+
+        final SearchRequestKey key = new SearchRequestKey(photonRequest);
+        final List<PhotonResult> results = cache.get(key);
+        if (results != null) {
+            return CompletableFuture.completedFuture(results);
+        }
+
+        return handler.searchAsync(photonRequest).thenApply(r -> {
+            cache.put(key, r);
+            return r;
+        });
+    }
+
+    @Override
+    public List<List<PhotonResult>> searchBatch(List<PhotonRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(photonRequests.size());
+        final List<SearchRequestKey> missingKeys = new ArrayList<>();
+        final List<PhotonRequest> missingRequests = new ArrayList<>();
+        final List<Integer> missingPositions = new ArrayList<>();
+
+        for (PhotonRequest photonRequest : photonRequests) {
+            final SearchRequestKey key = new SearchRequestKey(photonRequest);
+            final List<PhotonResult> cached = cache.get(key);
+            if (cached == null) {
+                missingKeys.add(key);
+                missingRequests.add(photonRequest);
+                missingPositions.add(results.size());
+            }
+            results.add(cached);
+        }
+
+        if (!missingRequests.isEmpty()) {
+            final List<List<PhotonResult>> fetched = handler.searchBatch(missingRequests);
+            for (int i = 0; i < fetched.size(); ++i) {
+                cache.put(missingKeys.get(i), fetched.get(i));
+                results.set(missingPositions.get(i), fetched.get(i));
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public String dumpQuery(PhotonRequest photonRequest) {
+        return handler.dumpQuery(photonRequest);
+    }
+
+    /**
+     * Remove all cached results, e.g. after the database was updated.
+     */
+    public void invalidate() {
+        cache.invalidate();
+    }
+}
@@ -0,0 +1,108 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.metrics.SearchMetrics;
+import de.komoot.photon.query.PhotonRequest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Search handler that merges identical searches running at the same time.
+ *
+ * When a search comes in while a search with the same {@link SearchRequestKey}
+ * is still waiting for the database, no new query is sent. Instead, the request
+ * waits for the running query and receives the same results. In contrast to a
+ * cache, results are never reused once the query has finished.
+ */
+public class CoalescingSearchHandler implements SearchHandler {
+    private final SearchHandler handler;
+    private final ConcurrentMap<SearchRequestKey, CompletableFuture<List<PhotonResult>>> inFlight = new ConcurrentHashMap<>();
+
+    public CoalescingSearchHandler(SearchHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public List<PhotonResult> search(PhotonRequest photonRequest) {
+        if (photonRequest.getDebug()) {
+            return handler.search(photonRequest);
+        }
+
+        final SearchRequestKey key = new SearchRequestKey(photonRequest);
+        final CompletableFuture<List<PhotonResult>> own = new CompletableFuture<>();
+        final CompletableFuture<List<PhotonResult>> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            SearchMetrics.COALESCED_SEARCHES.inc();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            final List<PhotonResult> results = handler.search(photonRequest);
+            own.complete(results);
+            return results;
+        } catch (Throwable e) {
+            // Waiting requests must not hang, whatever goes wrong.
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<PhotonResult>> searchAsync(PhotonRequest photonRequest) {
+        if (photonRequest.getDebug()) {
+            return handler.searchAsync(photonRequest);
+        }
+
+        final SearchRequestKey key = new SearchRequestKey(photonRequest);
+        final CompletableFuture<List<PhotonResult>> own = new CompletableFuture<>();
+        final CompletableFuture<List<PhotonResult>> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            SearchMetrics.COALESCED_SEARCHES.inc();
+            // Use a dependent future, so that callers cannot complete the shared one.
+            return running.thenApply(results -> results);
+        }
+
+        try {
+            handler.searchAsync(photonRequest).whenComplete((results, error) -> {
+                inFlight.remove(key, own);
+                if (error == null) {
+                    own.complete(results);
+                } else {
+                    own.completeExceptionally(error);
+                }
+            });
+        } catch (Throwable e) {
+            // The handler may fail before it returns a future, e.g. while building the query.
+            inFlight.remove(key, own);
+            own.completeExceptionally(e);
+        }
+
+        return own.thenApply(results -> results);
+    }
+
+    @Override
+    public List<List<PhotonResult>> searchBatch(List<PhotonRequest> photonRequests) {
+        // Batches are sent in one go anyway, so there is nothing to gain from waiting.
+        return handler.searchBatch(photonRequests);
+    }
+
+    @Override
+    public String dumpQuery(PhotonRequest photonRequest) {
+        return handler.dumpQuery(photonRequest);
+    }
+}
@@ -1,18 +1,33 @@
 package de.komoot.photon.searcher;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import de.komoot.photon.Constants;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Format a database result into a Photon GeocodeJson response.
+ *
+ * The response is streamed with a Jackson generator, so that no intermediate
+ * JSON tree needs to be built for the results.
  */
 public class GeocodeJsonFormatter implements ResultFormatter {
     private static final String[] KEYS_LANG_UNSPEC = {Constants.OSM_TYPE, Constants.OSM_ID, Constants.OSM_KEY, Constants.OSM_VALUE, Constants.OBJECT_TYPE, Constants.POSTCODE, Constants.HOUSENUMBER, Constants.COUNTRYCODE};
     private static final String[] KEYS_LANG_SPEC = {Constants.NAME, Constants.COUNTRY, Constants.CITY, Constants.DISTRICT, Constants.LOCALITY, Constants.STREET, Constants.STATE, Constants.COUNTY};
 
+    private static final JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     private final boolean addDebugInfo;
     private final String language;
 
@@ -23,62 +38,141 @@ public class GeocodeJsonFormatter implements ResultFormatter {
 
     @Override
     public String convert(List<PhotonResult> results, String debugInfo) {
-        final JSONArray features = new JSONArray(results.size());
-
-        for (PhotonResult result : results) {
-            final double[] coordinates = result.getCoordinates();
-
-            features.put(new JSONObject()
-                        .put("type", "Feature")
-                        .put("properties", getResultProperties(result))
-                        .put("geometry", new JSONObject()
-                                .put("type", "Point")
-                                .put("coordinates", coordinates)));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(results, debugInfo, out);
+        } catch (IOException e) {
+            // Cannot happen when writing into memory.
+            throw new UncheckedIOException(e);
         }
 
-        final JSONObject out = new JSONObject();
-        out.put("type", "FeatureCollection")
-           .put("features", features);
-
-        if (debugInfo != null) {
-            out.put("properties", new JSONObject().put("debug", new JSONObject(debugInfo)));
-        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
 
-        if (addDebugInfo) {
-            return out.toString(4);
+    @Override
+    public void write(List<PhotonResult> results, String debugInfo, OutputStream out) throws IOException {
+        try (JsonGenerator gen = jsonFactory.createGenerator(out)) {
+            if (addDebugInfo) {
+                final DefaultIndenter indenter = new DefaultIndenter("    ", "\n");
+                gen.setPrettyPrinter(new DefaultPrettyPrinter()
+                        .withObjectIndenter(indenter)
+                        .withArrayIndenter(indenter));
+            }
+
+            gen.writeStartObject();
+            gen.writeStringField("type", "FeatureCollection");
+            gen.writeArrayFieldStart("features");
+            for (PhotonResult result : results) {
+                gen.writeStartObject();
+                gen.writeStringField("type", "Feature");
+
+                gen.writeFieldName("properties");
+                writeResultProperties(gen, result);
+
+                gen.writeObjectFieldStart("geometry");
+                gen.writeStringField("type", "Point");
+                gen.writeFieldName("coordinates");
+                writeDoubleArray(gen, result.getCoordinates());
+                gen.writeEndObject();
+
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+
+            if (debugInfo != null) {
+                gen.writeObjectFieldStart("properties");
+                gen.writeFieldName("debug");
+                writeValue(gen, new JSONObject(debugInfo).toMap());
+                gen.writeEndObject();
+            }
+
+            gen.writeEndObject();
         }
-
-        return out.toString();
     }
 
-    private JSONObject getResultProperties(PhotonResult result) {
-        JSONObject props = new JSONObject();
+    private void writeResultProperties(JsonGenerator gen, PhotonResult result) throws IOException {
+        gen.writeStartObject();
         if (addDebugInfo) {
-            props.put("score", result.getScore());
-            put(props,"importance", result.get("importance"));
+            gen.writeFieldName("score");
+            writeDouble(gen, result.getScore());
+            writeField(gen, "importance", result.get("importance"));
         }
 
         for (String key : KEYS_LANG_UNSPEC) {
-            put(props, key, result.get(key));
+            writeField(gen, key, result.get(key));
         }
 
         for (String key : KEYS_LANG_SPEC) {
-            put(props, key, result.getLocalised(key, language));
+            writeField(gen, key, result.getLocalised(key, language));
         }
 
         final double[] extent = result.getExtent();
         if (extent != null) {
-            props.put("extent", extent);
+            gen.writeFieldName("extent");
+            writeDoubleArray(gen, extent);
         }
 
-        put(props, "extra", result.getMap("extra"));
+        writeField(gen, "extra", result.getMap("extra"));
 
-        return props;
+        gen.writeEndObject();
     }
 
-    private void put(JSONObject out, String key, Object value) {
+    private static void writeField(JsonGenerator gen, String key, Object value) throws IOException {
         if (value != null) {
-            out.put(key, value);
+            gen.writeFieldName(key);
+            writeValue(gen, value);
+        }
+    }
+
+    private static void writeDoubleArray(JsonGenerator gen, double[] values) throws IOException {
+        gen.writeStartArray();
+        for (double value : values) {
+            writeDouble(gen, value);
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * Write a floating point number in the same format as org.json, which
+     * was used for the responses before, e.g. 13 instead of 13.0.
+     * NaN and infinity cannot be represented in JSON and are written as null.
+     */
+    private static void writeDouble(JsonGenerator gen, double value) throws IOException {
+        if (Double.isFinite(value)) {
+            gen.writeNumber(JSONObject.numberToString(value));
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    private static void writeValue(JsonGenerator gen, Object value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (value instanceof String) {
+            gen.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            gen.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            writeDouble(gen, ((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            gen.writeBoolean((Boolean) value);
+        } else if (value instanceof double[]) {
+            writeDoubleArray(gen, (double[]) value);
+        } else if (value instanceof Map) {
+            gen.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                gen.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(gen, entry.getValue());
+            }
+            gen.writeEndObject();
+        } else if (value instanceof Collection) {
+            gen.writeStartArray();
+            for (Object item : (Collection<?>) value) {
+                writeValue(gen, item);
+            }
+            gen.writeEndArray();
+        } else {
+            gen.writeString(value.toString());
         }
     }
 }
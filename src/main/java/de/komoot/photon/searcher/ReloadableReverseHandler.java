@@ -0,0 +1,16 @@
+package de.komoot.photon.searcher;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reverse handler that keeps data in memory, which needs to be reloaded
+ * when the database changes.
+ */
+public interface ReloadableReverseHandler extends ReverseHandler {
+
+    /**
+     * Reload the in-memory data from the database. Requests may still be
+     * answered from the old data until the returned future completes.
+     */
+    CompletableFuture<Void> reload();
+}
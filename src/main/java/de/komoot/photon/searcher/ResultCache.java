@@ -0,0 +1,101 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.metrics.SearchMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Size- and time-bounded cache for the results of database queries.
+ *
+ * When the cache is full, the least recently used entry is evicted. Entries
+ * also expire after a fixed time, so that changes to the database become
+ * visible even when nobody explicitly invalidates the cache.
+ *
+ * @param <K> Type of the key describing the request.
+ */
+public class ResultCache<K> {
+    private final String name;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Map<K, Entry> entries;
+
+    /**
+     * Create a new cache.
+     *
+     * @param name      Name of the cache as reported in the metrics.
+     * @param maxSize   Maximum number of entries.
+     * @param ttlMillis Time after which an entry expires.
+     */
+    public ResultCache(String name, int maxSize, long ttlMillis) {
+        this(name, maxSize, ttlMillis, System::currentTimeMillis);
+    }
+
+    ResultCache(String name, int maxSize, long ttlMillis, LongSupplier clock) {
+        this.name = name;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Look up the results for the given key.
+     *
+     * @return The cached results or null if there is no valid entry for the key.
+     */
+    public List<PhotonResult> get(K key) {
+        final long now = clock.getAsLong();
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    SearchMetrics.CACHE_HITS.labels(name).inc();
+                    return entry.results;
+                }
+                entries.remove(key);
+            }
+        }
+
+        SearchMetrics.CACHE_MISSES.labels(name).inc();
+        return null;
+    }
+
+    public void put(K key, List<PhotonResult> results) {
+        final Entry entry = new Entry(List.copyOf(results), clock.getAsLong() + ttlMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+        final List<PhotonResult> results;
+        final long expiresAt;
+
+        Entry(List<PhotonResult> results, long expiresAt) {
+            this.results = results;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package de.komoot.photon.searcher;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -8,4 +11,11 @@ import java.util.List;
 public interface ResultFormatter {
 
     String convert(List<PhotonResult> results, String debugInfo);
+
+    /**
+     * Write the formatted results as UTF-8 directly into the given stream.
+     */
+    default void write(List<PhotonResult> results, String debugInfo, OutputStream out) throws IOException {
+        out.write(convert(results, debugInfo).getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -2,7 +2,9 @@ package de.komoot.photon.searcher;
 
 import de.komoot.photon.query.ReverseRequest;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for a handler of reverse geocoding requests.
@@ -11,5 +13,41 @@ public interface ReverseHandler {
 
     List<PhotonResult> reverse(ReverseRequest photonRequest);
 
+    /**
+     * Asynchronous variant of {@link #reverse(ReverseRequest)}.
+     *
+     * Handlers with a non-blocking database client should override this function.
+     * The default implementation runs the synchronous lookup in the calling thread.
+     *
+     * @param photonRequest Request to execute.
+     * @return Future that completes with the list of results.
+     */
+    default CompletableFuture<List<PhotonResult>> reverseAsync(ReverseRequest photonRequest) {
+        try {
+            return CompletableFuture.completedFuture(reverse(photonRequest));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Run a list of reverse lookups at once.
+     *
+     * Handlers should override this function when the database can process
+     * several queries in a single round trip. The default implementation runs
+     * the lookups one after another.
+     *
+     * @param photonRequests Requests to execute.
+     * @return List of results for each request, in the order of the requests.
+     */
+    default List<List<PhotonResult>> reverseBatch(List<ReverseRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(photonRequests.size());
+        for (ReverseRequest photonRequest : photonRequests) {
+            results.add(reverse(photonRequest));
+        }
+
+        return results;
+    }
+
     String dumpQuery(ReverseRequest photonRequest);
 }
@@ -2,7 +2,9 @@ package de.komoot.photon.searcher;
 
 import de.komoot.photon.query.PhotonRequest;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for a handler of search geocoding requests.
@@ -11,5 +13,41 @@ public interface SearchHandler {
 
     List<PhotonResult> search(PhotonRequest photonRequest);
 
+    /**
+     * Asynchronous variant of {@link #search(PhotonRequest)}.
+     *
+     * Handlers with a non-blocking database client should override this function.
+     * The default implementation runs the synchronous search in the calling thread.
+     *
+     * @param photonRequest Request to execute.
+     * @return Future that completes with the list of results.
+     */
+    default CompletableFuture<List<PhotonResult>> searchAsync(PhotonRequest photonRequest) {
+        try {
+            return CompletableFuture.completedFuture(search(photonRequest));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Run a list of searches at once.
+     *
+     * Handlers should override this function when the database can process
+     * several queries in a single round trip. The default implementation runs
+     * the searches one after another.
+     *
+     * @param photonRequests Requests to execute.
+     * @return List of results for each request, in the order of the requests.
+     */
+    default List<List<PhotonResult>> searchBatch(List<PhotonRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(photonRequests.size());
+        for (PhotonRequest photonRequest : photonRequests) {
+            results.add(search(photonRequest));
+        }
+
+        return results;
+    }
+
     String dumpQuery(PhotonRequest photonRequest);
 }
@@ -0,0 +1,91 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.query.PhotonRequest;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Point;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Normalised form of a forward search request.
+ *
+ * Two requests with equal keys are expected to produce the same results.
+ * The query is compared case-insensitively with collapsed whitespace, the order
+ * of filters is ignored and the location bias is rounded to a grid that is fine
+ * enough compared to the radius of the bias at the requested zoom level.
+ */
+public class SearchRequestKey {
+    // Minimum zoom level at which the location bias is taken into account.
+    private static final int MIN_BIAS_ZOOM = 4;
+    // Number of grid cells per radius of the location bias.
+    private static final double BIAS_CELLS_PER_RADIUS = 10.0;
+    private static final double KM_PER_DEGREE = 111.0;
+
+    private final String query;
+    private final String language;
+    private final int limit;
+    private final Set<TagFilter> osmTagFilters;
+    private final Set<String> layerFilters;
+    private final Envelope bbox;
+    private final int zoom;
+    private final long biasCellX;
+    private final long biasCellY;
+    private final double scale;
+    private final boolean hasBias;
+    private final int hashCode;
+
+    public SearchRequestKey(PhotonRequest request) {
+        query = request.getQuery().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        language = request.getLanguage();
+        limit = request.getLimit();
+        osmTagFilters = new HashSet<>(request.getOsmTagFilters());
+        layerFilters = new HashSet<>(request.getLayerFilters());
+        bbox = request.getBbox();
+
+        final Point bias = request.getLocationForBias();
+        hasBias = bias != null && request.getZoomForBias() >= MIN_BIAS_ZOOM;
+        if (hasBias) {
+            zoom = Math.min(request.getZoomForBias(), 18);
+            // Same radius as used for the decay function of the location bias.
+            final double radiusKm = (1 << (18 - zoom)) * 0.25;
+            final double cellSize = radiusKm / BIAS_CELLS_PER_RADIUS / KM_PER_DEGREE;
+            biasCellX = Math.round(bias.getX() / cellSize);
+            biasCellY = Math.round(bias.getY() / cellSize);
+            scale = request.getScaleForBias();
+        } else {
+            zoom = 0;
+            biasCellX = 0;
+            biasCellY = 0;
+            scale = 0;
+        }
+
+        hashCode = Objects.hash(query, language, limit, osmTagFilters, layerFilters, bbox,
+                hasBias, zoom, biasCellX, biasCellY, scale);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchRequestKey other = (SearchRequestKey) o;
+        return limit == other.limit
+                && hasBias == other.hasBias
+                && zoom == other.zoom
+                && biasCellX == other.biasCellX
+                && biasCellY == other.biasCellY
+                && Double.compare(scale, other.scale) == 0
+                && query.equals(other.query)
+                && language.equals(other.language)
+                && osmTagFilters.equals(other.osmTagFilters)
+                && layerFilters.equals(other.layerFilters)
+                && Objects.equals(bbox, other.bbox);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -2,8 +2,26 @@ package de.komoot.photon.searcher;
 
 import de.komoot.photon.query.StructuredPhotonRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface StructuredSearchHandler {
     List<PhotonResult> search(StructuredPhotonRequest photonRequest);
+
+    /**
+     * Run a list of structured searches at once.
+     *
+     * The default implementation runs the searches one after another.
+     *
+     * @param photonRequests Requests to execute.
+     * @return List of results for each request, in the order of the requests.
+     */
+    default List<List<PhotonResult>> searchBatch(List<StructuredPhotonRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(photonRequests.size());
+        for (StructuredPhotonRequest photonRequest : photonRequests) {
+            results.add(search(photonRequest));
+        }
+
+        return results;
+    }
 }
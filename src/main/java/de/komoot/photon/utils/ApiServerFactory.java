@@ -0,0 +1,122 @@
+package de.komoot.photon.utils;
+
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import spark.embeddedserver.jetty.JettyServerFactory;
+
+/**
+ * Creates the embedded Jetty server for the API.
+ *
+ * In contrast to the default factory of Spark, the queue of requests waiting
+ * for a free worker thread may be bounded, so that an overloaded server rejects
+ * requests early instead of piling them up until they time out.
+ *
+ * The factory can also tune the connection settings and enable compression
+ * of the responses. Spark sets up the connector and the request handler only
+ * after the server has been created, so these settings are applied when the
+ * server is started.
+ */
+public class ApiServerFactory implements JettyServerFactory {
+    private final int maxQueuedRequests;
+    private int idleTimeoutMillis = 0;
+    private int acceptQueueSize = 0;
+    private int compressionMinSize = -1;
+
+    /**
+     * Create a new factory.
+     *
+     * @param maxQueuedRequests Maximum number of requests waiting for a worker thread.
+     *                          Zero or negative values mean that the queue is unbounded.
+     */
+    public ApiServerFactory(int maxQueuedRequests) {
+        this.maxQueuedRequests = maxQueuedRequests;
+    }
+
+    /**
+     * Set the time after which idle connections, in particular keep-alive
+     * connections between requests, are closed. Zero keeps the default of Spark.
+     */
+    public ApiServerFactory setIdleTimeout(int idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Set the number of connections the operating system queues up before
+     * the server accepts them. Zero keeps the default of the operating system.
+     */
+    public ApiServerFactory setAcceptQueueSize(int acceptQueueSize) {
+        this.acceptQueueSize = acceptQueueSize;
+        return this;
+    }
+
+    /**
+     * Enable gzip compression of responses.
+     *
+     * @param minSize Minimum size of a response in bytes to be compressed.
+     */
+    public ApiServerFactory enableCompression(int minSize) {
+        this.compressionMinSize = minSize;
+        return this;
+    }
+
+    @Override
+    public Server create(int maxThreads, int minThreads, int threadTimeoutMillis) {
+        final QueuedThreadPool threadPool;
+        if (maxQueuedRequests > 0) {
+            final int initialCapacity = Math.min(minThreads, maxQueuedRequests);
+            threadPool = new QueuedThreadPool(maxThreads, minThreads, threadTimeoutMillis,
+                    new BlockingArrayQueue<>(initialCapacity, initialCapacity, maxQueuedRequests));
+        } else {
+            threadPool = new QueuedThreadPool(maxThreads, minThreads, threadTimeoutMillis);
+        }
+        threadPool.setName("photon-api");
+
+        return create(threadPool);
+    }
+
+    @Override
+    public Server create(ThreadPool threadPool) {
+        return threadPool == null ? new ApiServer() : new ApiServer(threadPool);
+    }
+
+    private class ApiServer extends Server {
+        ApiServer() {
+            super();
+        }
+
+        ApiServer(ThreadPool threadPool) {
+            super(threadPool);
+        }
+
+        @Override
+        protected void doStart() throws Exception {
+            for (Connector connector : getConnectors()) {
+                if (connector instanceof ServerConnector) {
+                    final ServerConnector serverConnector = (ServerConnector) connector;
+                    if (idleTimeoutMillis > 0) {
+                        serverConnector.setIdleTimeout(idleTimeoutMillis);
+                    }
+                    if (acceptQueueSize > 0) {
+                        serverConnector.setAcceptQueueSize(acceptQueueSize);
+                    }
+                }
+            }
+
+            if (compressionMinSize >= 0 && !(getHandler() instanceof GzipHandler)) {
+                final GzipHandler gzipHandler = new GzipHandler();
+                gzipHandler.setMinGzipSize(compressionMinSize);
+                gzipHandler.setIncludedMethods("GET", "POST");
+                gzipHandler.setHandler(getHandler());
+                setHandler(gzipHandler);
+            }
+
+            super.doStart();
+        }
+    }
+}
@@ -7,11 +7,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static spark.Spark.*;
@@ -200,4 +206,295 @@ class ApiIntegrationTest extends ESBaseTester {
         assertEquals("Ok", json.getString("status"));
         assertEquals(prop.getImportDate().toInstant().toString(), json.getString("import_date"));
     }
+
+    @Test
+    void testApiBatch() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-enable-batch-api"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/batch").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(("[{\"endpoint\": \"api\", \"params\": {\"q\": \"berlin\", \"osm_tag\": [\"place:town\"]}},"
+                    + "{\"endpoint\": \"reverse\", \"params\": {\"lon\": 13.38886, \"lat\": 52.51704}},"
+                    + "{\"endpoint\": \"api\", \"params\": {\"limit\": 1}}]").getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        List<String> lines = new BufferedReader(new InputStreamReader(connection.getInputStream())).lines().collect(Collectors.toList());
+        assertEquals(3, lines.size());
+
+        JSONArray features = new JSONObject(lines.get(0)).getJSONArray("features");
+        assertEquals(1, features.length());
+        assertEquals("town", features.getJSONObject(0).getJSONObject("properties").getString("osm_value"));
+
+        features = new JSONObject(lines.get(1)).getJSONArray("features");
+        assertEquals(1, features.length());
+        assertEquals("city", features.getJSONObject(0).getJSONObject("properties").getString("osm_value"));
+
+        assertTrue(new JSONObject(lines.get(2)).has("message"));
+    }
+
+    @Test
+    void testApiBatchDisabled() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/batch").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write("[]".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(404, connection.getResponseCode());
+    }
+
+    @Test
+    void testApiReverseBulkJson() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-enable-batch-api"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/reverse/bulk?distance_sort=true").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/x-ndjson");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(("{\"lat\": 52.51704, \"lon\": 13.38886}\n"
+                    + "{\"lat\": 152.0, \"lon\": 13.38886}\n"
+                    + "{\"lat\": 52.54714, \"lon\": 13.39026}\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        List<String> lines = new BufferedReader(new InputStreamReader(connection.getInputStream())).lines().collect(Collectors.toList());
+        assertEquals(3, lines.size());
+
+        JSONArray features = new JSONObject(lines.get(0)).getJSONArray("features");
+        assertEquals(1, features.length());
+        assertEquals("city", features.getJSONObject(0).getJSONObject("properties").getString("osm_value"));
+
+        assertTrue(new JSONObject(lines.get(1)).has("message"));
+
+        features = new JSONObject(lines.get(2)).getJSONArray("features");
+        assertEquals(1, features.length());
+        assertEquals("town", features.getJSONObject(0).getJSONObject("properties").getString("osm_value"));
+    }
+
+    @Test
+    void testApiReverseBulkBinary() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-enable-batch-api"});
+        awaitInitialization();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(body)) {
+            for (int i = 0; i < 250; ++i) {
+                data.writeDouble(i % 2 == 0 ? 52.51704 : 52.54714);
+                data.writeDouble(i % 2 == 0 ? 13.38886 : 13.39026);
+            }
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/reverse/bulk").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/octet-stream");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.toByteArray());
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        List<String> lines = new BufferedReader(new InputStreamReader(connection.getInputStream())).lines().collect(Collectors.toList());
+        assertEquals(250, lines.size());
+        for (int i = 0; i < lines.size(); ++i) {
+            JSONArray features = new JSONObject(lines.get(i)).getJSONArray("features");
+            assertEquals(i % 2 == 0 ? "city" : "town",
+                    features.getJSONObject(0).getJSONObject("properties").getString("osm_value"));
+        }
+    }
+
+    @Test
+    void testApiReverseBulkRejectsNonFiniteCoordinates() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-enable-batch-api"});
+        awaitInitialization();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(body)) {
+            data.writeDouble(Double.NaN);
+            data.writeDouble(13.38886);
+            data.writeDouble(52.51704);
+            data.writeDouble(Double.POSITIVE_INFINITY);
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/reverse/bulk").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/octet-stream");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.toByteArray());
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        List<String> lines = new BufferedReader(new InputStreamReader(connection.getInputStream())).lines().collect(Collectors.toList());
+        assertEquals(2, lines.size());
+        assertTrue(new JSONObject(lines.get(0)).has("message"));
+        assertTrue(new JSONObject(lines.get(1)).has("message"));
+    }
+
+    @Test
+    void testApiReverseBulkReportsIncompletePair() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-enable-batch-api"});
+        awaitInitialization();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(body)) {
+            data.writeDouble(52.51704);
+            data.writeDouble(13.38886);
+            // Half of a latitude.
+            data.writeInt(0);
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/reverse/bulk").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/octet-stream");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.toByteArray());
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        List<String> lines = new BufferedReader(new InputStreamReader(connection.getInputStream())).lines().collect(Collectors.toList());
+        assertEquals(2, lines.size());
+        assertTrue(new JSONObject(lines.get(0)).has("features"));
+        assertTrue(new JSONObject(lines.get(1)).has("message"));
+    }
+
+    @Test
+    void testApiReverseBulkUnsupportedContentType() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-enable-batch-api"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/reverse/bulk").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write("{\"lat\": 52.51704, \"lon\": 13.38886}\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(415, connection.getResponseCode());
+    }
+
+    @Test
+    void testCompressedResponse() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-compress-responses", "-compression-min-size", "0"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/api?q=berlin&limit=1").openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        JSONObject json = new JSONObject(new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(connection.getInputStream()), StandardCharsets.UTF_8)).lines().collect(Collectors.joining("\n")));
+        assertEquals(1, json.getJSONArray("features").length());
+    }
+
+    @Test
+    void testUncompressedResponseByDefault() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/api?q=berlin&limit=1").openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        assertNull(connection.getHeaderField("Content-Encoding"));
+    }
+
+    @Test
+    void testMetrics() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-enable-metrics"});
+        awaitInitialization();
+        HttpURLConnection search = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/api?q=berlin").openConnection();
+        assertEquals(200, search.getResponseCode());
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/metrics").openConnection();
+        assertTrue(connection.getContentType().startsWith("text/plain"));
+        String metrics = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))
+                .lines().collect(Collectors.joining("\n"));
+
+        assertAll(
+                () -> assertTrue(metrics.contains("photon_api_requests_total{route=\"api\",status=\"200\",}")),
+                () -> assertTrue(metrics.contains("photon_api_stage_duration_seconds_count{route=\"api\",stage=\"backend\",}")),
+                () -> assertTrue(metrics.contains("jvm_memory_bytes_used"))
+        );
+    }
+
+    @Test
+    void testMetricsDisabledByDefault() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/metrics").openConnection();
+
+        assertEquals(404, connection.getResponseCode());
+    }
+
+    @Test
+    void testServerTimingHeader() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1",
+                "-server-timing"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/api?q=berlin").openConnection();
+        String serverTiming = connection.getHeaderField("Server-Timing");
+
+        assertNotNull(serverTiming);
+        assertAll(
+                () -> assertTrue(serverTiming.contains("parse;dur=")),
+                () -> assertTrue(serverTiming.contains("backend;dur=")),
+                () -> assertTrue(serverTiming.contains("backend_took;dur=")),
+                () -> assertTrue(serverTiming.contains("total;dur="))
+        );
+        JSONObject json = new JSONObject(new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))
+                .lines().collect(Collectors.joining("\n")));
+        assertTrue(json.getJSONArray("features").length() > 0);
+    }
+
+    @Test
+    void testNoServerTimingHeaderByDefault() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/api?q=berlin").openConnection();
+
+        assertNull(connection.getHeaderField("Server-Timing"));
+    }
+
+    @Test
+    void testDebugOutputContainsTimings() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/api?q=berlin&debug=1").openConnection();
+        JSONObject debug = new JSONObject(new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))
+                .lines().collect(Collectors.joining("\n")))
+                .getJSONObject("properties").getJSONObject("debug");
+
+        assertAll(
+                () -> assertFalse(debug.getJSONObject("query").isEmpty()),
+                () -> assertTrue(debug.getJSONObject("timings").getJSONObject("stages").has("backend")),
+                () -> assertTrue(debug.getJSONObject("timings").getJSONObject("backend").getJSONObject("backend").has("took"))
+        );
+    }
+
+    @Test
+    void testReverseDebugOutput() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1"});
+        awaitInitialization();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + "/reverse?lon=13.38886&lat=52.51704&debug=1").openConnection();
+
+        assertEquals(200, connection.getResponseCode());
+        JSONObject debug = new JSONObject(new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))
+                .lines().collect(Collectors.joining("\n")))
+                .getJSONObject("properties").getJSONObject("debug");
+
+        assertAll(
+                () -> assertFalse(debug.getJSONObject("query").isEmpty()),
+                () -> assertTrue(debug.getJSONObject("timings").getJSONObject("stages").has("backend"))
+        );
+    }
 }
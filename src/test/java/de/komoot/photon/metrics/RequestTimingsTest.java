@@ -0,0 +1,71 @@
+package de.komoot.photon.metrics;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingsTest {
+
+    @Test
+    void testStagesKeepRecordingOrder() {
+        final RequestTimings timings = new RequestTimings();
+        final long start = System.nanoTime();
+        timings.record(RequestTimings.PARSE, start);
+        timings.record(RequestTimings.BACKEND, start);
+        timings.record(RequestTimings.FORMAT, start);
+
+        assertEquals(List.of(RequestTimings.PARSE, RequestTimings.BACKEND, RequestTimings.FORMAT),
+                List.copyOf(timings.getStages().keySet()));
+    }
+
+    @Test
+    void testRepeatedStagesAreAddedUp() {
+        final RequestTimings timings = new RequestTimings();
+        final long now = System.nanoTime();
+        timings.record(RequestTimings.BACKEND, now - 1000);
+        final long first = timings.getStages().get(RequestTimings.BACKEND);
+        timings.record(RequestTimings.BACKEND, now - 2000);
+
+        final Map<String, Long> stages = timings.getStages();
+        assertEquals(1, stages.size());
+        assertTrue(stages.get(RequestTimings.BACKEND) >= first + 2000);
+    }
+
+    @Test
+    void testStagesAreCopied() {
+        final RequestTimings timings = new RequestTimings();
+        timings.getStages().put(RequestTimings.DEDUP, 1L);
+
+        assertTrue(timings.getStages().isEmpty());
+    }
+
+    @Test
+    void testServerTiming() {
+        final RequestTimings timings = new RequestTimings();
+        timings.record(RequestTimings.PARSE, System.nanoTime());
+        timings.record(RequestTimings.BACKEND, System.nanoTime());
+        timings.recordBackend(RequestTimings.BACKEND, 12, 1, 1, 0);
+
+        assertTrue(timings.toServerTiming().matches(
+                "parse;dur=\\d+\\.\\d{3}, backend;dur=\\d+\\.\\d{3}, backend_took;dur=12\\.000, total;dur=\\d+\\.\\d{3}"));
+    }
+
+    @Test
+    void testBackendStatsAreAddedUp() {
+        final RequestTimings timings = new RequestTimings();
+        timings.recordBackend(RequestTimings.BACKEND_LENIENT, 5, 2, 2, 0);
+        timings.recordBackend(RequestTimings.BACKEND_LENIENT, 7, 2, 1, 1);
+
+        assertEquals(12, timings.getBackendTook(RequestTimings.BACKEND_LENIENT));
+        assertEquals(-1, timings.getBackendTook(RequestTimings.BACKEND));
+
+        final JSONObject stats = timings.toJson().getJSONObject("backend").getJSONObject(RequestTimings.BACKEND_LENIENT);
+        assertEquals(2, stats.getInt("queries"));
+        assertEquals(4, stats.getJSONObject("shards").getInt("total"));
+        assertEquals(1, stats.getJSONObject("shards").getInt("failed"));
+    }
+}
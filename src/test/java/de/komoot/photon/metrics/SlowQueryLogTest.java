@@ -0,0 +1,57 @@
+package de.komoot.photon.metrics;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryLogTest {
+
+    @Test
+    void testEntryContainsRequest() {
+        final Map<String, String[]> params = new LinkedHashMap<>();
+        params.put("q", new String[]{"berlin"});
+        params.put("osm_tag", new String[]{"place", "!highway"});
+
+        final RequestTimings timings = new RequestTimings();
+        timings.record(RequestTimings.BACKEND, System.nanoTime());
+        timings.recordBackend(RequestTimings.BACKEND, 10, 1, 1, 0);
+        timings.recordBackend(RequestTimings.BACKEND_LENIENT, 5, 1, 1, 0);
+        timings.markLenientUsed();
+
+        final JSONObject entry = SlowQueryLog.makeEntry("api", params, "de", timings, 3, 2_500_000, "slow");
+
+        assertAll(
+                () -> assertNotNull(Instant.parse(entry.getString("time"))),
+                () -> assertEquals("slow", entry.getString("reason")),
+                () -> assertEquals("api", entry.getString("route")),
+                () -> assertEquals("berlin", entry.getJSONObject("params").getString("q")),
+                () -> assertEquals(2, entry.getJSONObject("params").getJSONArray("osm_tag").length()),
+                () -> assertEquals("de", entry.getString("lang")),
+                () -> assertEquals("lenient", entry.getString("path")),
+                () -> assertEquals(2.5, entry.getDouble("duration"), 0.001),
+                () -> assertEquals(3, entry.getInt("results")),
+                () -> assertEquals(15, entry.getLong("took")),
+                () -> assertTrue(entry.getJSONObject("timings").getJSONObject("stages").has("backend"))
+        );
+    }
+
+    @Test
+    void testEntryWithoutBackendStats() {
+        final JSONObject entry = SlowQueryLog.makeEntry("reverse", Map.of(), "en", new RequestTimings(), 0, 1000, "sample");
+
+        assertEquals("strict", entry.getString("path"));
+        assertFalse(entry.has("took"));
+    }
+
+    @Test
+    void testDisabled() {
+        assertFalse(new SlowQueryLog(0, 0).isEnabled());
+        assertTrue(new SlowQueryLog(100, 0).isEnabled());
+        assertTrue(new SlowQueryLog(0, 0.1).isEnabled());
+    }
+}
@@ -0,0 +1,67 @@
+package de.komoot.photon.nominatim;
+
+import de.komoot.photon.metrics.ImportMetrics;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportProgressTest {
+
+    private ImportProgress progressWithRows(long startMillis, int numRows) {
+        final ImportProgress progress = new ImportProgress(ImportMetrics.IMPORT, startMillis);
+        progress.startTable("placex");
+        for (int i = 0; i < numRows; ++i) {
+            progress.addRow();
+        }
+        return progress;
+    }
+
+    @Test
+    void testEta() {
+        final ImportProgress progress = progressWithRows(0, 100);
+        progress.addExpectedRows(1000);
+
+        assertEquals(10.0, progress.getRowsPerSecond(10_000), 0.001);
+        assertEquals(90, progress.getEtaSeconds(10_000));
+    }
+
+    @Test
+    void testNoEtaWithoutEstimate() {
+        final ImportProgress progress = progressWithRows(0, 100);
+
+        assertEquals(-1, progress.getEtaSeconds(10_000));
+    }
+
+    @Test
+    void testEtaWhenEstimateTooLow() {
+        final ImportProgress progress = progressWithRows(0, 100);
+        progress.addExpectedRows(50);
+
+        assertEquals(0, progress.getEtaSeconds(10_000));
+    }
+
+    @Test
+    void testJson() {
+        final ImportProgress progress = progressWithRows(System.currentTimeMillis() - 10_000, 10);
+        progress.addDocuments(12);
+        progress.addExpectedRows(20);
+
+        final JSONObject json = progress.toJson();
+
+        assertAll(
+                () -> assertEquals("import", json.getString("mode")),
+                () -> assertEquals("placex", json.getString("table")),
+                () -> assertEquals(10, json.getLong("rows")),
+                () -> assertEquals(12, json.getLong("documents")),
+                () -> assertEquals(20, json.getLong("expected_rows")),
+                () -> assertTrue(json.has("eta_seconds"))
+        );
+    }
+
+    @Test
+    void testFormatDuration() {
+        assertEquals("0:00:59", ImportProgress.formatDuration(59));
+        assertEquals("27:46:40", ImportProgress.formatDuration(100_000));
+    }
+}
@@ -49,6 +49,22 @@ class NominatimUpdaterDBTest {
         updater.assertHasCreated(place.getPlaceId());
     }
 
+    @Test
+    void testProgressOnlyAvailableDuringUpdate() {
+        PlacexTestRow place = new PlacexTestRow("place", "city").name("Town").add(jdbc);
+        (new PhotonUpdateRow("placex", place.getPlaceId(), "UPDATE")).add(jdbc);
+
+        final ImportProgress[] progress = new ImportProgress[1];
+        connector.addUpdateListener(() -> progress[0] = connector.getProgress());
+        connector.update();
+
+        assertNull(connector.getProgress());
+        assertNotNull(progress[0]);
+        assertEquals(1, progress[0].getRows());
+        assertEquals(1, progress[0].getExpectedRows());
+        assertEquals(1, progress[0].getDocuments());
+    }
+
     @Test
     void testSimpleDelete() {
         final long place_id = 47836;
@@ -0,0 +1,106 @@
+package de.komoot.photon.nominatim;
+
+import de.komoot.photon.ReflectionTestUtil;
+import de.komoot.photon.nominatim.testdb.CollectingImporter;
+import de.komoot.photon.nominatim.testdb.H2DataAdapter;
+import de.komoot.photon.nominatim.testdb.H2DatasetWriter;
+import de.komoot.photon.nominatim.testdb.SyntheticDataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticDatasetTest {
+    private static final int NUM_PLACES = 2000;
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setup() {
+        db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("/test-schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(db);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.shutdown();
+    }
+
+    private SyntheticDataset writeDataset(long seed) {
+        final SyntheticDataset dataset = new SyntheticDataset(seed, NUM_PLACES);
+        final H2DatasetWriter writer = new H2DatasetWriter(jdbc);
+        dataset.generate(writer);
+        writer.flush();
+        return dataset;
+    }
+
+    @Test
+    void testCreatesRequestedNumberOfPlaces() {
+        final SyntheticDataset dataset = writeDataset(1);
+
+        assertEquals(NUM_PLACES, dataset.getPlacesWritten());
+        assertEquals(NUM_PLACES, jdbc.queryForObject("SELECT count(*) FROM placex", Long.class));
+        assertEquals(dataset.getInterpolationsWritten(),
+                jdbc.queryForObject("SELECT count(*) FROM location_property_osmline", Long.class));
+        assertTrue(jdbc.queryForObject("SELECT count(*) FROM place_addressline", Long.class) > 0);
+    }
+
+    @Test
+    void testSameSeedCreatesSameData() {
+        assertEquals(collectNames(42), collectNames(42));
+        assertNotEquals(collectNames(42), collectNames(43));
+    }
+
+    @Test
+    void testDatasetCanBeImported() {
+        final SyntheticDataset dataset = writeDataset(7);
+
+        final NominatimConnector connector = new NominatimConnector(null, 0, null, null, null, new H2DataAdapter());
+        final CollectingImporter importer = new CollectingImporter();
+        connector.setImporter(importer);
+        ReflectionTestUtil.setFieldValue(connector, "template", jdbc);
+
+        connector.readEntireDatabase();
+
+        // House number lists and interpolations create additional documents.
+        assertTrue(importer.size() > NUM_PLACES);
+        assertTrue(dataset.getInterpolationsWritten() > 0);
+    }
+
+    private List<Map<String, String>> collectNames(long seed) {
+        final List<Map<String, String>> names = new ArrayList<>();
+        new SyntheticDataset(seed, NUM_PLACES).generate(new SyntheticDataset.RowWriter() {
+            @Override
+            public void writeCountry(String countryCode, Map<String, String> countryNames) {
+            }
+
+            @Override
+            public void writePlace(SyntheticDataset.Place place) {
+                names.add(place.getNames() == null ? place.getAddress() : place.getNames());
+            }
+
+            @Override
+            public void writeAddressLine(long placeId, long addressPlaceId, int rankAddress, double distance) {
+            }
+
+            @Override
+            public void writeInterpolation(SyntheticDataset.Interpolation interpolation) {
+            }
+        });
+        return names;
+    }
+}
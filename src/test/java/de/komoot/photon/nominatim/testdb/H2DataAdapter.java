@@ -45,4 +45,9 @@ public class H2DataAdapter implements DBDataAdapter {
         return "SELECT " + columns + " FROM OLD TABLE (" + deleteSQL + ")";
     }
 
+    @Override
+    public long estimateRowCount(JdbcTemplate template, String table) {
+        return template.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+
 }
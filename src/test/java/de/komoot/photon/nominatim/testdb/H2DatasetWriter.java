@@ -0,0 +1,93 @@
+package de.komoot.photon.nominatim.testdb;
+
+import org.json.JSONObject;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link SyntheticDataset} into a database with the H2 test schema.
+ *
+ * Rows are inserted in batches. Call {@link #flush()} after the dataset
+ * has been generated to insert the remaining rows.
+ */
+public class H2DatasetWriter implements SyntheticDataset.RowWriter {
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_PLACEX = "INSERT INTO placex (place_id, parent_place_id, osm_type, osm_id, class, type,"
+            + " rank_search, rank_address, centroid, geometry, name, address, extratags, country_code, postcode,"
+            + " importance, indexed_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ? FORMAT JSON, ? FORMAT JSON,"
+            + " ? FORMAT JSON, ?, ?, ?, 0)";
+    private static final String INSERT_ADDRESSLINE = "INSERT INTO place_addressline (place_id, address_place_id,"
+            + " cached_rank_address, distance, fromarea, isaddress) VALUES (?, ?, ?, ?, true, true)";
+    private static final String INSERT_OSMLINE = "INSERT INTO location_property_osmline (place_id, parent_place_id, osm_id,"
+            + " startnumber, endnumber, step, linegeo, postcode, country_code, indexed_status)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbc;
+    private final List<Object[]> places = new ArrayList<>();
+    private final List<Object[]> addressLines = new ArrayList<>();
+    private final List<Object[]> interpolations = new ArrayList<>();
+
+    public H2DatasetWriter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void writeCountry(String countryCode, Map<String, String> names) {
+        jdbc.update("DELETE FROM country_name WHERE country_code = ?", countryCode);
+        jdbc.update("INSERT INTO country_name (country_code, name) VALUES (?, ? FORMAT JSON)", countryCode, asJson(names));
+    }
+
+    @Override
+    public void writePlace(SyntheticDataset.Place place) {
+        places.add(new Object[]{place.getPlaceId(), place.getParentPlaceId(), place.getOsmType(), place.getOsmId(),
+                place.getKey(), place.getValue(), place.getRankSearch(), place.getRankAddress(), place.getCentroid(),
+                place.getGeometry(), asJson(place.getNames()), asJson(place.getAddress()), asJson(place.getExtraTags()),
+                place.getCountryCode(), place.getPostcode(), place.getImportance()});
+        flushIfFull(INSERT_PLACEX, places);
+    }
+
+    @Override
+    public void writeAddressLine(long placeId, long addressPlaceId, int rankAddress, double distance) {
+        addressLines.add(new Object[]{placeId, addressPlaceId, rankAddress, distance});
+        flushIfFull(INSERT_ADDRESSLINE, addressLines);
+    }
+
+    @Override
+    public void writeInterpolation(SyntheticDataset.Interpolation interpolation) {
+        interpolations.add(new Object[]{interpolation.getPlaceId(), interpolation.getParentPlaceId(),
+                interpolation.getOsmId(), interpolation.getStartNumber(), interpolation.getEndNumber(),
+                interpolation.getStep(), interpolation.getLineGeometry(), interpolation.getPostcode(),
+                interpolation.getCountryCode()});
+        flushIfFull(INSERT_OSMLINE, interpolations);
+    }
+
+    /**
+     * Insert all rows that are still waiting for their batch to be complete.
+     */
+    public void flush() {
+        insert(INSERT_PLACEX, places);
+        insert(INSERT_ADDRESSLINE, addressLines);
+        insert(INSERT_OSMLINE, interpolations);
+    }
+
+    private void flushIfFull(String sql, List<Object[]> rows) {
+        if (rows.size() >= BATCH_SIZE) {
+            insert(sql, rows);
+        }
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+
+    private static String asJson(Map<String, String> map) {
+        return map == null ? null : new JSONObject(map).toString();
+    }
+}
@@ -0,0 +1,67 @@
+package de.komoot.photon.query;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import spark.Request;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParameterMapRequestTest {
+
+    @Test
+    void testSearchRequestFromMap() throws BadRequestException {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("q", new String[]{"berlin"});
+        params.put("limit", new String[]{"3"});
+        params.put("osm_tag", new String[]{"place:city", "!place:town"});
+        params.put("layer", new String[]{"city"});
+
+        PhotonRequest request = new PhotonRequestFactory(List.of("en", "de"), "default", 50)
+                .create(new ParameterMapRequest(params, null));
+
+        assertEquals("berlin", request.getQuery());
+        assertEquals(3, request.getLimit());
+        assertEquals(2, request.getOsmTagFilters().size());
+        assertEquals(Collections.singleton("city"), request.getLayerFilters());
+        assertEquals("default", request.getLanguage());
+    }
+
+    @Test
+    void testLanguageFromOriginHeaders() throws BadRequestException {
+        Request origin = Mockito.mock(Request.class);
+        Mockito.when(origin.headers("Accept-Language")).thenReturn("de");
+
+        PhotonRequest request = new PhotonRequestFactory(List.of("en", "de"), "default", 50)
+                .create(new ParameterMapRequest(Map.of("q", new String[]{"berlin"}), origin));
+
+        assertEquals("de", request.getLanguage());
+    }
+
+    @Test
+    void testReverseRequestDefaults() throws BadRequestException {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("lat", new String[]{"52.5"});
+        params.put("lon", new String[]{"13.4"});
+
+        ReverseRequest request = new ReverseRequestFactory(List.of("en"), "default", 50)
+                .create(new ParameterMapRequest(params, null));
+
+        assertEquals(52.5, request.getLocation().getY(), 0.00001);
+        assertEquals(13.4, request.getLocation().getX(), 0.00001);
+        assertTrue(request.getLocationDistanceSort());
+        assertTrue(request.getLayerFilters().isEmpty());
+        assertEquals(1, request.getLimit());
+    }
+
+    @Test
+    void testUnknownParameterRejected() {
+        assertThrows(BadRequestException.class, () ->
+                new PhotonRequestFactory(List.of("en"), "default", 50)
+                        .create(new ParameterMapRequest(Map.of("q", new String[]{"berlin"}, "foo", new String[]{"bar"}), null)));
+    }
+}
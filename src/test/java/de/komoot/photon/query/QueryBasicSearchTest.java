@@ -4,6 +4,7 @@ import de.komoot.photon.ESBaseTester;
 import de.komoot.photon.Importer;
 import de.komoot.photon.PhotonDoc;
 import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.SearchHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -42,6 +43,10 @@ class QueryBasicSearchTest extends ESBaseTester {
         return getServer().createSearchHandler(new String[]{"en"}, 1).search(new PhotonRequest(query, "en"));
     }
 
+    private List<PhotonResult> searchAsync(String query) {
+        return getServer().createSearchHandler(new String[]{"en"}, 1).searchAsync(new PhotonRequest(query, "en")).join();
+    }
+
 
     @Test
     void testSearchByDefaultName() throws IOException {
@@ -165,4 +170,35 @@ class QueryBasicSearchTest extends ESBaseTester {
                 () -> assertEquals(0, search("hauptstrasse").size())
         );
     }
+
+    @Test
+    void testSearchAsync() throws IOException {
+        Importer instance = makeImporter();
+        instance.add(createDoc("name", "Muffle Flu"), 0);
+        instance.finish();
+        refresh();
+
+        assertAll("async search",
+                () -> assertEquals(1, searchAsync("muffle flu").size()),
+                () -> assertEquals(1, searchAsync("mufle flu").size()),
+                () -> assertEquals(0, searchAsync("huffle fluff").size())
+        );
+    }
+
+    @Test
+    void testSearchParallelLenient() throws IOException {
+        Importer instance = makeImporter();
+        instance.add(createDoc("name", "Muffle Flu"), 0);
+        instance.finish();
+        refresh();
+
+        SearchHandler handler = getServer().createSearchHandler(new String[]{"en"}, 1, true);
+
+        assertAll("parallel lenient search",
+                () -> assertEquals(1, handler.search(new PhotonRequest("muffle flu", "en")).size()),
+                () -> assertEquals(1, handler.search(new PhotonRequest("mufle flu", "en")).size()),
+                () -> assertEquals(1, handler.searchAsync(new PhotonRequest("mufle flu", "en")).join().size()),
+                () -> assertEquals(0, handler.search(new PhotonRequest("huffle fluff", "en")).size())
+        );
+    }
 }
@@ -70,5 +70,16 @@ class QueryReverseTest extends ESBaseTester {
         assertEquals(101, results.get(1).get("osm_id"));
     }
 
+    @Test
+    void testReverseAsync() {
+        Point pt = FACTORY.createPoint(new Coordinate(10, 10));
+
+        List<PhotonResult> results = getServer().createReverseHandler(1).reverseAsync(
+                new ReverseRequest(pt, "en", 20, "", 2, true, new HashSet<>(), false)).join();
+
+        assertEquals(2, results.size());
+        assertEquals(100, results.get(0).get("osm_id"));
+        assertEquals(101, results.get(1).get("osm_id"));
+    }
 
 }
@@ -0,0 +1,166 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.query.ReverseRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingReverseHandlerTest {
+    private static final GeometryFactory FACTORY = new GeometryFactory(new PrecisionModel(), 4326);
+
+    private final List<PhotonResult> places = new ArrayList<>();
+    private int queryCount;
+    private int asyncCount;
+    private ReverseHandler database;
+
+    @BeforeEach
+    void setUp() {
+        Random rnd = new Random(4711);
+        places.clear();
+        for (int i = 0; i < 400; ++i) {
+            MockPhotonResult place = new MockPhotonResult().put("id", i);
+            place.coordinates[0] = 13.3 + rnd.nextDouble() * 0.2;
+            place.coordinates[1] = 52.4 + rnd.nextDouble() * 0.2;
+            places.add(place);
+        }
+
+        queryCount = 0;
+        asyncCount = 0;
+        database = new ReverseHandler() {
+            @Override
+            public List<PhotonResult> reverse(ReverseRequest request) {
+                ++queryCount;
+                double lon = request.getLocation().getX();
+                double lat = request.getLocation().getY();
+                return places.stream()
+                        .filter(p -> CachingReverseHandler.distance(lon, lat, p.getCoordinates()[0], p.getCoordinates()[1]) <= request.getRadius())
+                        .sorted(Comparator.comparingDouble(p -> CachingReverseHandler.distance(lon, lat, p.getCoordinates()[0], p.getCoordinates()[1])))
+                        .limit(request.getLimit())
+                        .collect(Collectors.toList());
+            }
+
+            @Override
+            public CompletableFuture<List<PhotonResult>> reverseAsync(ReverseRequest request) {
+                ++asyncCount;
+                return CompletableFuture.completedFuture(reverse(request));
+            }
+
+            @Override
+            public String dumpQuery(ReverseRequest photonRequest) {
+                return "{}";
+            }
+        };
+    }
+
+    private ReverseRequest request(double lon, double lat, double radius, int limit) {
+        return request(lon, lat, radius, limit, "en");
+    }
+
+    private ReverseRequest request(double lon, double lat, double radius, int limit, String language) {
+        return new ReverseRequest(FACTORY.createPoint(new Coordinate(lon, lat)), language, radius, null, limit,
+                true, new HashSet<>(), false);
+    }
+
+    private static List<Object> ids(List<PhotonResult> results) {
+        return results.stream().map(r -> r.get("id")).collect(Collectors.toList());
+    }
+
+    @Test
+    void testResultsMatchDatabase() {
+        CachingReverseHandler handler = new CachingReverseHandler(database, 100, 60000);
+        Random rnd = new Random(42);
+        for (int i = 0; i < 500; ++i) {
+            double lon = 13.35 + rnd.nextDouble() * 0.1;
+            double lat = 52.45 + rnd.nextDouble() * 0.1;
+            double radius = rnd.nextBoolean() ? 1.0 : 0.2;
+            int limit = 1 + rnd.nextInt(5);
+
+            assertEquals(ids(database.reverse(request(lon, lat, radius, limit))),
+                         ids(handler.reverse(request(lon, lat, radius, limit))));
+        }
+    }
+
+    @Test
+    void testAsyncMatchesDatabase() {
+        CachingReverseHandler handler = new CachingReverseHandler(database, 100, 60000);
+        Random rnd = new Random(42);
+        for (int i = 0; i < 200; ++i) {
+            double lon = 13.35 + rnd.nextDouble() * 0.1;
+            double lat = 52.45 + rnd.nextDouble() * 0.1;
+            double radius = rnd.nextBoolean() ? 1.0 : 0.2;
+            int limit = 1 + rnd.nextInt(5);
+
+            assertEquals(ids(database.reverse(request(lon, lat, radius, limit))),
+                         ids(handler.reverseAsync(request(lon, lat, radius, limit)).join()));
+        }
+    }
+
+    @Test
+    void testAsyncHitsUseCache() {
+        CachingReverseHandler handler = new CachingReverseHandler(database, 100, 60000);
+        handler.reverseAsync(request(13.40000, 52.50000, 1.0, 1)).join();
+        int queriesAfterFirst = queryCount;
+        CompletableFuture<List<PhotonResult>> hit = handler.reverseAsync(request(13.40001, 52.50001, 1.0, 1));
+
+        assertTrue(hit.isDone());
+        assertEquals(queriesAfterFirst, queryCount);
+        assertEquals(queryCount, asyncCount);
+    }
+
+    @Test
+    void testNearbyRequestsUseCache() {
+        CachingReverseHandler handler = new CachingReverseHandler(database, 100, 60000);
+        handler.reverse(request(13.40000, 52.50000, 1.0, 1));
+        int queriesAfterFirst = queryCount;
+        handler.reverse(request(13.40001, 52.50001, 1.0, 1));
+        handler.reverse(request(13.40002, 52.50002, 1.0, 1));
+
+        assertEquals(queriesAfterFirst, queryCount);
+    }
+
+    @Test
+    void testLanguagesAreCachedSeparately() {
+        CachingReverseHandler handler = new CachingReverseHandler(database, 100, 60000);
+        handler.reverse(request(13.40000, 52.50000, 1.0, 1, "en"));
+        int queriesAfterFirst = queryCount;
+        handler.reverse(request(13.40001, 52.50001, 1.0, 1, "de"));
+
+        assertEquals(queriesAfterFirst + 1, queryCount);
+    }
+
+    @Test
+    void testBatchMatchesDatabase() {
+        CachingReverseHandler handler = new CachingReverseHandler(database, 100, 60000);
+        List<ReverseRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            requests.add(request(13.35 + i * 0.002, 52.45 + (i % 7) * 0.001, 0.5, 2));
+        }
+
+        List<List<PhotonResult>> results = handler.reverseBatch(requests);
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < requests.size(); ++i) {
+            assertEquals(ids(database.reverse(requests.get(i))), ids(results.get(i)));
+        }
+    }
+
+    @Test
+    void testUnsortedRequestsBypassCache() {
+        CachingReverseHandler handler = new CachingReverseHandler(database, 100, 60000);
+        Point location = FACTORY.createPoint(new Coordinate(13.4, 52.5));
+        ReverseRequest unsorted = new ReverseRequest(location, "en", 1.0, null, 1, false, new HashSet<>(), false);
+
+        handler.reverse(unsorted);
+        handler.reverse(unsorted);
+
+        assertEquals(2, queryCount);
+    }
+}
@@ -0,0 +1,103 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.query.BadRequestException;
+import de.komoot.photon.query.ParameterMapRequest;
+import de.komoot.photon.query.PhotonRequest;
+import de.komoot.photon.query.PhotonRequestFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingSearchHandlerTest {
+    private final PhotonRequestFactory factory = new PhotonRequestFactory(List.of("en", "de"), "default", 50);
+    private final List<String> executed = new ArrayList<>();
+    private CachingSearchHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        executed.clear();
+        handler = new CachingSearchHandler(new SearchHandler() {
+            @Override
+            public List<PhotonResult> search(PhotonRequest photonRequest) {
+                executed.add(photonRequest.getQuery());
+                return List.of(new MockPhotonResult().put("name", photonRequest.getQuery()));
+            }
+
+            @Override
+            public String dumpQuery(PhotonRequest photonRequest) {
+                return "{}";
+            }
+        }, 10, 60000);
+    }
+
+    private PhotonRequest request(String... params) throws BadRequestException {
+        Map<String, String[]> map = new HashMap<>();
+        for (int i = 0; i < params.length; i += 2) {
+            map.put(params[i], new String[]{params[i + 1]});
+        }
+        return factory.create(new ParameterMapRequest(map, null));
+    }
+
+    @Test
+    void testRepeatedSearchIsCached() throws BadRequestException {
+        List<PhotonResult> first = handler.search(request("q", "berlin"));
+        List<PhotonResult> second = handler.search(request("q", " Berlin  "));
+
+        assertEquals(List.of("berlin"), executed);
+        assertEquals(first.get(0).get("name"), second.get(0).get("name"));
+    }
+
+    @Test
+    void testDifferentParametersAreNotShared() throws BadRequestException {
+        handler.search(request("q", "berlin"));
+        handler.search(request("q", "berlin", "lang", "de"));
+        handler.search(request("q", "berlin", "limit", "3"));
+        handler.search(request("q", "berlin", "layer", "city"));
+        handler.search(request("q", "berlin", "osm_tag", "place:city"));
+
+        assertEquals(5, executed.size());
+    }
+
+    @Test
+    void testNearbyBiasIsShared() throws BadRequestException {
+        handler.search(request("q", "berlin", "lat", "52.5000", "lon", "13.4000", "zoom", "14"));
+        handler.search(request("q", "berlin", "lat", "52.5001", "lon", "13.4001", "zoom", "14"));
+        handler.search(request("q", "berlin", "lat", "53.5", "lon", "13.4", "zoom", "14"));
+
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    void testDebugRequestsBypassCache() throws BadRequestException {
+        handler.search(request("q", "berlin", "debug", "1"));
+        handler.search(request("q", "berlin", "debug", "1"));
+
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    void testInvalidate() throws BadRequestException {
+        handler.search(request("q", "berlin"));
+        handler.invalidate();
+        handler.search(request("q", "berlin"));
+
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    void testBatchUsesCache() throws BadRequestException {
+        handler.search(request("q", "berlin"));
+        List<List<PhotonResult>> results = handler.searchBatch(List.of(request("q", "berlin"), request("q", "paris")));
+
+        assertEquals(List.of("berlin", "paris"), executed);
+        assertEquals(2, results.size());
+        assertEquals("berlin", results.get(0).get(0).get("name"));
+        assertEquals("paris", results.get(1).get(0).get("name"));
+    }
+}
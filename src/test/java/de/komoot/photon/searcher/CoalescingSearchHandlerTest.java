@@ -0,0 +1,142 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.query.PhotonRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingSearchHandlerTest {
+    private final AtomicInteger queryCount = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final SearchHandler blockingHandler = new SearchHandler() {
+        @Override
+        public List<PhotonResult> search(PhotonRequest photonRequest) {
+            queryCount.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            if ("fail".equals(photonRequest.getQuery())) {
+                throw new IllegalStateException("database error");
+            }
+            if ("crash".equals(photonRequest.getQuery())) {
+                throw new Error("fatal error");
+            }
+            return List.of(new MockPhotonResult().put("name", photonRequest.getQuery()));
+        }
+
+        @Override
+        public String dumpQuery(PhotonRequest photonRequest) {
+            return "{}";
+        }
+    };
+
+    @Test
+    void testConcurrentIdenticalSearchesShareQuery() throws Exception {
+        CoalescingSearchHandler handler = new CoalescingSearchHandler(blockingHandler);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<PhotonResult>> first = executor.submit(() -> handler.search(new PhotonRequest("berlin", "en")));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            CompletableFuture<List<PhotonResult>> second = handler.searchAsync(new PhotonRequest("Berlin", "en"));
+            assertFalse(second.isDone());
+
+            release.countDown();
+            assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, queryCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFinishedSearchesAreNotReused() {
+        release.countDown();
+        CoalescingSearchHandler handler = new CoalescingSearchHandler(blockingHandler);
+
+        handler.search(new PhotonRequest("berlin", "en"));
+        handler.search(new PhotonRequest("berlin", "en"));
+
+        assertEquals(2, queryCount.get());
+    }
+
+    @Test
+    void testErrorsArePassedToAllWaiting() throws Exception {
+        CoalescingSearchHandler handler = new CoalescingSearchHandler(blockingHandler);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<PhotonResult>> first = executor.submit(() -> handler.search(new PhotonRequest("fail", "en")));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            CompletableFuture<List<PhotonResult>> second = handler.searchAsync(new PhotonRequest("fail", "en"));
+
+            release.countDown();
+            ExecutionException error = assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+            error = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+            assertEquals(1, queryCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testErrorsInSyncSearchArePassedToAllWaiting() throws Exception {
+        CoalescingSearchHandler handler = new CoalescingSearchHandler(blockingHandler);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<PhotonResult>> first = executor.submit(() -> handler.search(new PhotonRequest("crash", "en")));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            CompletableFuture<List<PhotonResult>> second = handler.searchAsync(new PhotonRequest("crash", "en"));
+
+            release.countDown();
+            ExecutionException error = assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(Error.class, error.getCause());
+            error = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(Error.class, error.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testAsyncHandlerThrowingBeforeReturningFuture() {
+        SearchHandler throwingHandler = new SearchHandler() {
+            @Override
+            public List<PhotonResult> search(PhotonRequest photonRequest) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<List<PhotonResult>> searchAsync(PhotonRequest photonRequest) {
+                queryCount.incrementAndGet();
+                throw new IllegalStateException("cannot build query");
+            }
+
+            @Override
+            public String dumpQuery(PhotonRequest photonRequest) {
+                return "{}";
+            }
+        };
+        CoalescingSearchHandler handler = new CoalescingSearchHandler(throwingHandler);
+
+        CompletableFuture<List<PhotonResult>> first = handler.searchAsync(new PhotonRequest("berlin", "en"));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+
+        // A second identical request must not wait for the failed one.
+        CompletableFuture<List<PhotonResult>> second = handler.searchAsync(new PhotonRequest("berlin", "en"));
+        error = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(2, queryCount.get());
+    }
+}
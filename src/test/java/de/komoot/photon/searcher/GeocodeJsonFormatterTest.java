@@ -5,8 +5,12 @@ import org.json.JSONObject;
 import org.json.JSONArray;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,7 +37,74 @@ class GeocodeJsonFormatterTest {
         }
     }
     
-    private PhotonResult createDummyResult(String postCode, String name, String osmKey,
+    @Test
+    void testAllProperties() {
+        List<PhotonResult> allResults = new ArrayList<>();
+        allResults.add(createDummyResult("99999", "Park Foo", "leisure", "park")
+                .put(Constants.OSM_ID, 1234L)
+                .put(Constants.OSM_TYPE, "W")
+                .put("importance", 0.25)
+                .put("extra", Map.of("wikidata", "Q42", "note", "with \"quotes\"\n"))
+                .putLocalized(Constants.CITY, "en", "Fünfhausen"));
+
+        JSONObject json = new JSONObject(new GeocodeJsonFormatter(true, "en").convert(allResults, "{\"query\": {\"match_all\": {}}}"));
+
+        JSONObject props = json.getJSONArray("features").getJSONObject(0).getJSONObject("properties");
+        assertEquals(1234L, props.getLong(Constants.OSM_ID));
+        assertEquals("W", props.getString(Constants.OSM_TYPE));
+        assertEquals(99.0, props.getDouble("score"));
+        assertEquals(0.25, props.getDouble("importance"));
+        assertEquals("Fünfhausen", props.getString(Constants.CITY));
+        assertEquals("with \"quotes\"\n", props.getJSONObject("extra").getString("note"));
+        assertTrue(new JSONArray(new double[]{0, 1, 2, 3}).similar(props.getJSONArray("extent")));
+        assertTrue(new JSONArray(new double[]{42, 21}).similar(
+                json.getJSONArray("features").getJSONObject(0).getJSONObject("geometry").getJSONArray("coordinates")));
+        assertTrue(new JSONObject("{\"query\": {\"match_all\": {}}}").similar(
+                json.getJSONObject("properties").getJSONObject("debug")));
+    }
+
+    @Test
+    void testWriteToStream() throws IOException {
+        GeocodeJsonFormatter formatter = new GeocodeJsonFormatter(false, "en");
+        List<PhotonResult> allResults = List.of(createDummyResult("99999", "Park Foo", "leisure", "park"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.write(allResults, null, out);
+
+        assertEquals(formatter.convert(allResults, null), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testIntegralNumbersWithoutFraction() {
+        String json = new GeocodeJsonFormatter(false, "en").convert(
+                List.of(createDummyResult("99999", "Park Foo", "leisure", "park")), null);
+
+        assertTrue(json.contains("\"coordinates\":[42,21]"), json);
+        assertTrue(json.contains("\"extent\":[0,1,2,3]"), json);
+    }
+
+    @Test
+    void testNonFiniteNumbersAsNull() {
+        JSONObject json = new JSONObject(new GeocodeJsonFormatter(true, "en").convert(
+                List.of(createDummyResult("99999", "Park Foo", "leisure", "park")
+                        .put("importance", Double.NaN)
+                        .put("extra", Map.of("size", Double.POSITIVE_INFINITY))), null));
+
+        JSONObject props = json.getJSONArray("features").getJSONObject(0).getJSONObject("properties");
+        assertTrue(props.isNull("importance"));
+        assertTrue(props.getJSONObject("extra").isNull("size"));
+    }
+
+    @Test
+    void testEmptyResult() {
+        JSONObject json = new JSONObject(new GeocodeJsonFormatter(false, "en").convert(List.of(), null));
+
+        assertEquals("FeatureCollection", json.getString("type"));
+        assertTrue(json.getJSONArray("features").isEmpty());
+        assertFalse(json.has("properties"));
+    }
+
+    private MockPhotonResult createDummyResult(String postCode, String name, String osmKey,
                     String osmValue) {
         return new MockPhotonResult()
                 .put(Constants.POSTCODE, postCode)
@@ -0,0 +1,38 @@
+package de.komoot.photon.searcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        ResultCache<String> cache = new ResultCache<>("test", 2, 1000);
+        cache.put("a", List.of());
+        cache.put("b", List.of());
+        assertNotNull(cache.get("a"));
+        cache.put("c", List.of());
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void testEntriesExpire() {
+        AtomicLong now = new AtomicLong(0);
+        ResultCache<String> cache = new ResultCache<>("test", 10, 1000, now::get);
+        cache.put("a", List.of());
+
+        now.set(999);
+        assertNotNull(cache.get("a"));
+        now.set(1000);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}